@@ -0,0 +1,164 @@
+package me.ryzeon.transcripts.benchmarks;
+
+import net.dv8tion.jda.api.entities.*;
+import net.dv8tion.jda.api.entities.channel.unions.GuildMessageChannelUnion;
+import net.dv8tion.jda.api.entities.channel.unions.MessageChannelUnion;
+import net.dv8tion.jda.api.utils.TimeUtil;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Synthetic messages backed by in-memory JDA stubs, so benchmarks run without a Discord connection
+ */
+public final class Fixtures {
+
+    public static final String PLAIN = "Hello there, could you take a look at my order? It has been stuck since yesterday.";
+    public static final String MARKDOWN = "**Order** `#1234` is *still* ~~pending~~ __stuck__, see [the status page](https://status.example.com/orders) "
+            + "||internal note||\n> quoted from the customer\n```java\nSystem.out.println(\"hello\");\n```";
+    public static final String NESTED;
+
+    static {
+        StringBuilder nested = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            nested.append("**a *b __c ~~d ||e ");
+        }
+        for (int i = 0; i < 200; i++) {
+            nested.append("e|| d~~ c__ b* a** ");
+        }
+        NESTED = nested.toString();
+    }
+
+    private static final long DISCORD_EPOCH = 1420070400000L;
+
+    private Fixtures() {
+    }
+
+    /**
+     * Build a channel of synthetic messages, the same count always gives the same messages
+     *
+     * @param count the amount of messages
+     * @return the messages in random order, like a collection handed in by a caller
+     */
+    public static List<Message> messages(int count) {
+        Random random = new Random(count);
+        Guild guild = stub(Guild.class, Map.of(
+                "getName", "Benchmark Guild",
+                "getIdLong", 1L,
+                "getIconUrl", "https://cdn.discordapp.com/icons/1/icon.png",
+                "getMember", (Function<Object[], Object>) args -> null));
+        MessageChannelUnion channel = stub(MessageChannelUnion.class, Map.of(
+                "getName", "ticket-0001",
+                "getIdLong", 2L,
+                "getGuild", guild,
+                "asGuildMessageChannel", Self.INSTANCE), GuildMessageChannelUnion.class);
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            users.add(stub(User.class, Map.of(
+                    "getIdLong", 100L + i,
+                    "getId", String.valueOf(100 + i),
+                    "getName", "user" + i,
+                    "getGlobalName", "User " + i,
+                    "isBot", i == 2,
+                    "getEffectiveAvatarUrl", "https://cdn.discordapp.com/avatars/" + (100 + i) + "/avatar.png")));
+        }
+
+        List<Message> messages = new ArrayList<>(count);
+        long time = 1_700_000_000_000L;
+        for (int i = 0; i < count; i++) {
+            time += 1000 + random.nextInt(120_000);
+            long id = (time - DISCORD_EPOCH) << 22 | i & 0xfff;
+
+            Map<String, Object> values = new HashMap<>();
+            values.put("getIdLong", id);
+            values.put("getId", Long.toUnsignedString(id));
+            values.put("getTimeCreated", TimeUtil.getTimeCreated(id));
+            values.put("getChannel", channel);
+            values.put("getAuthor", users.get(random.nextInt(10) < 7 ? i / 4 % 2 : 2));
+            values.put("getContentDisplay", random.nextInt(4) == 0 ? MARKDOWN : PLAIN);
+            if (i % 10 == 3) {
+                values.put("getAttachments", List.of(attachment(i, random.nextBoolean() ? "png" : "zip")));
+            }
+            if (i % 15 == 7) {
+                values.put("getEmbeds", List.of(embed(i)));
+            }
+            if (i % 20 == 11) {
+                values.put("getReferencedMessage", messages.get(i - 1));
+            }
+            messages.add(stub(Message.class, values));
+        }
+        Collections.shuffle(messages, random);
+        return messages;
+    }
+
+    private static Message.Attachment attachment(int index, String extension) {
+        String name = "file-" + index + "." + extension;
+        return new Message.Attachment(index, "https://cdn.discordapp.com/attachments/2/" + index + "/" + name,
+                "https://media.discordapp.net/attachments/2/" + index + "/" + name, name,
+                extension.equals("png") ? "image/png" : "application/zip", null, 10_000 + index, 100, 100,
+                false, null, 0, null);
+    }
+
+    private static MessageEmbed embed(int index) {
+        return new MessageEmbed("https://example.com/tickets/" + index, "Ticket **#" + index + "**",
+                "The ticket was *claimed* by a `moderator`.", EmbedType.RICH, OffsetDateTime.parse("2023-11-14T22:13:20Z"),
+                0x5865f2, new MessageEmbed.Thumbnail("https://example.com/thumb.png", null, 80, 80), null,
+                new MessageEmbed.AuthorInfo("Ticket Bot", "https://example.com", "https://example.com/bot.png", null), null,
+                new MessageEmbed.Footer("Ticket system", "https://example.com/footer.png", null),
+                new MessageEmbed.ImageInfo("https://example.com/image.png", null, 400, 200),
+                List.of(new MessageEmbed.Field("Status", "**open**", true), new MessageEmbed.Field("Priority", "high", true)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, Map<String, Object> values, Class<?>... extraTypes) {
+        Class<?>[] types = new Class<?>[extraTypes.length + 1];
+        types[0] = type;
+        System.arraycopy(extraTypes, 0, types, 1, extraTypes.length);
+        return (T) Proxy.newProxyInstance(Fixtures.class.getClassLoader(), types, (proxy, method, args) -> {
+            Object value = values.get(method.getName());
+            if (value == Self.INSTANCE) {
+                return proxy;
+            }
+            if (value instanceof Function<?, ?> function) {
+                return ((Function<Object[], Object>) function).apply(args);
+            }
+            if (value != null) {
+                return value;
+            }
+            return defaultValue(proxy, method, args);
+        });
+    }
+
+    private static Object defaultValue(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "Stub";
+        }
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == List.class) {
+            return List.of();
+        }
+        return null;
+    }
+
+    private enum Self {
+        INSTANCE
+    }
+}
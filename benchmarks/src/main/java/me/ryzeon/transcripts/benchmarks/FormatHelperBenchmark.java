@@ -0,0 +1,47 @@
+package me.ryzeon.transcripts.benchmarks;
+
+import me.ryzeon.transcripts.utils.format.AttachmentClassifier;
+import me.ryzeon.transcripts.utils.format.IFormatHelper;
+import me.ryzeon.transcripts.utils.format.MediaKind;
+import me.ryzeon.transcripts.utils.format.impl.AudioFormat;
+import me.ryzeon.transcripts.utils.format.impl.ImageFormat;
+import me.ryzeon.transcripts.utils.format.impl.VideoFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Attachment classification: the chained format helpers against the map-backed classifier
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatHelperBenchmark {
+
+    @Param({"png", "PNG", "mp4", "flac", "zip"})
+    public String extension;
+
+    private final IFormatHelper imageFormats = new ImageFormat();
+    private final IFormatHelper videoFormats = new VideoFormat();
+    private final IFormatHelper audioFormats = new AudioFormat();
+
+    @Benchmark
+    public int isFormat() {
+        if (imageFormats.isFormat(extension)) {
+            return 1;
+        } else if (videoFormats.isFormat(extension)) {
+            return 2;
+        } else if (audioFormats.isFormat(extension)) {
+            return 3;
+        }
+        return 0;
+    }
+
+    @Benchmark
+    public MediaKind classify() {
+        return AttachmentClassifier.DEFAULT.classify(null, extension);
+    }
+}
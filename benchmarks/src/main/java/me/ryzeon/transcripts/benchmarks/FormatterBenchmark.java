@@ -0,0 +1,42 @@
+package me.ryzeon.transcripts.benchmarks;
+
+import me.ryzeon.transcripts.Formatter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Markdown rendering and byte formatting of {@link Formatter}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatterBenchmark {
+
+    @Param({"plain", "markdown", "nested"})
+    public String input;
+
+    private String text;
+
+    @Setup
+    public void setup() {
+        text = switch (input) {
+            case "plain" -> Fixtures.PLAIN;
+            case "markdown" -> Fixtures.MARKDOWN;
+            default -> Fixtures.NESTED;
+        };
+    }
+
+    @Benchmark
+    public String format() {
+        return Formatter.format(text);
+    }
+
+    @Benchmark
+    public String formatBytes() {
+        return Formatter.formatBytes(123_456_789L);
+    }
+}
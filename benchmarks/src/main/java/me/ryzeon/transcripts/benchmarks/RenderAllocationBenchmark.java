@@ -0,0 +1,43 @@
+package me.ryzeon.transcripts.benchmarks;
+
+import me.ryzeon.transcripts.DiscordHtmlTranscripts;
+import me.ryzeon.transcripts.TranscriptOptions;
+import me.ryzeon.transcripts.TranscriptStats;
+import net.dv8tion.jda.api.entities.Message;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single threaded renders with every score counted per message, run with {@code -prof gc} so
+ * {@code gc.alloc.rate.norm} tells the bytes allocated to render one message, output included
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@OperationsPerInvocation(RenderAllocationBenchmark.MESSAGES)
+public class RenderAllocationBenchmark {
+
+    static final int MESSAGES = 1000;
+
+    private final DiscordHtmlTranscripts transcripts = new DiscordHtmlTranscripts();
+    private List<Message> messages;
+    private TranscriptOptions options;
+
+    @Setup
+    public void setup() {
+        messages = Fixtures.messages(MESSAGES);
+        options = TranscriptOptions.DEFAULT;
+    }
+
+    @Benchmark
+    public TranscriptStats renderMessage() throws IOException {
+        return transcripts.writeTranscript(messages, OutputStream.nullOutputStream(), options);
+    }
+}
@@ -0,0 +1,61 @@
+package me.ryzeon.transcripts.benchmarks;
+
+import me.ryzeon.transcripts.DiscordHtmlTranscripts;
+import me.ryzeon.transcripts.TranscriptOptions;
+import me.ryzeon.transcripts.TranscriptStats;
+import net.dv8tion.jda.api.entities.Message;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full transcript renders of synthetic channels with embeds, attachments and replies.
+ * The output is discarded, its size is reported as the {@code outputBytes} counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class TranscriptBenchmark {
+
+    @Param({"100", "10000", "50000", "100000"})
+    public int messageCount;
+
+    /**
+     * Message group window in minutes, 0 renders every message as its own group
+     */
+    @Param({"0", "7"})
+    public int groupWindow;
+
+    private final DiscordHtmlTranscripts transcripts = new DiscordHtmlTranscripts();
+    private List<Message> messages;
+    private TranscriptOptions options;
+
+    @Setup
+    public void setup() {
+        messages = Fixtures.messages(messageCount);
+        options = TranscriptOptions.builder()
+                .groupWindow(groupWindow > 0 ? Duration.ofMinutes(groupWindow) : null)
+                .build();
+    }
+
+    @Benchmark
+    public TranscriptStats generateFromMessages(OutputSize outputSize) throws IOException {
+        TranscriptStats stats = transcripts.writeTranscript(messages, OutputStream.nullOutputStream(), options);
+        outputSize.outputBytes = stats.outputBytes();
+        return stats;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class OutputSize {
+
+        public long outputBytes;
+    }
+}
@@ -0,0 +1,106 @@
+package me.ryzeon.transcripts;
+
+import me.ryzeon.transcripts.assets.Asset;
+import me.ryzeon.transcripts.assets.AssetCache;
+import me.ryzeon.transcripts.assets.AssetFetcher;
+import me.ryzeon.transcripts.assets.AssetMode;
+import me.ryzeon.transcripts.assets.HttpAssetFetcher;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Downloads the assets of one render and maps their urls to where the transcript takes them from
+ */
+class AssetResolver implements AutoCloseable {
+
+    private final AssetMode mode;
+    private final AssetFetcher fetcher;
+    private final AssetCache cache;
+    private final long maxBytes;
+    private final ExecutorService downloads;
+    private final Map<String, String> rewrites = new ConcurrentHashMap<>();
+    private final Map<String, Asset> bundle = Collections.synchronizedMap(new TreeMap<>());
+
+    AssetResolver(TranscriptOptions options) {
+        this.mode = options.getAssetMode();
+        this.fetcher = options.getAssetFetcher() != null ? options.getAssetFetcher() : HttpAssetFetcher.shared();
+        this.cache = options.getAssetCache();
+        this.maxBytes = options.getMaxAssetBytes();
+        this.downloads = Executors.newFixedThreadPool(Math.max(1, options.getAssetConcurrency()), runnable -> {
+            Thread thread = new Thread(runnable, "transcript-assets");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Download every asset not seen before by this render, with at most {@link TranscriptOptions#getAssetConcurrency()}
+     * downloads at once. Assets that fail to download keep their url.
+     *
+     * @param urls the urls of the assets, null entries are skipped
+     */
+    void resolve(Collection<String> urls) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (String url : new LinkedHashSet<>(urls)) {
+            if (url == null || rewrites.putIfAbsent(url, url) != null) {
+                continue;
+            }
+            futures.add(downloads.submit(() -> {
+                download(url);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(pending -> pending.cancel(true));
+                return;
+            } catch (ExecutionException ignored) {
+                // the asset keeps its url
+            }
+        }
+    }
+
+    private void download(String url) throws IOException {
+        Asset asset = cache != null ? cache.get(url, maxBytes, fetcher) : fetcher.fetch(url, maxBytes);
+        if (asset.data().length > maxBytes) {
+            return;
+        }
+        if (mode == AssetMode.INLINE) {
+            rewrites.put(url, asset.dataUri());
+        } else {
+            String entryName = "assets/" + asset.hash() + "." + asset.fileExtension(url);
+            bundle.putIfAbsent(entryName, asset);
+            rewrites.put(url, entryName);
+        }
+    }
+
+    /**
+     * @param url the url of an asset
+     * @return where the transcript takes the asset from, the url itself if it was not downloaded
+     */
+    String rewrite(String url) {
+        if (url == null) {
+            return null;
+        }
+        return rewrites.getOrDefault(url, url);
+    }
+
+    /**
+     * @return the assets to store next to the html, sorted by entry name, empty unless assets are bundled
+     */
+    Map<String, Asset> bundle() {
+        synchronized (bundle) {
+            return new TreeMap<>(bundle);
+        }
+    }
+
+    @Override
+    public void close() {
+        downloads.shutdownNow();
+    }
+}
@@ -0,0 +1,246 @@
+package me.ryzeon.transcripts;
+
+import me.ryzeon.transcripts.author.AuthorProfile;
+import me.ryzeon.transcripts.model.TranscriptMessage;
+import me.ryzeon.transcripts.utils.io.Varints;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Avatars, embed colours and role colours of a transcript, written once at the end of the page and referred to by short ids and
+ * class names, see {@link TranscriptOptions#isAssetTables()}.
+ * <p>
+ * Entries are added in transcript order before their messages are rendered, so ids do not depend on the executor.
+ * Chunks may look ids up concurrently.
+ */
+final class AssetTables {
+
+    private static final String SUFFIX = ".tables";
+    private static final int MAGIC = 0x44485441; // DHTA
+    private static final int VERSION = 2;
+
+    private static volatile byte[] resolver;
+
+    private final Map<String, String> avatarIds = new ConcurrentHashMap<>();
+    private final List<String> avatarUrls = new ArrayList<>();
+    /**
+     * Where the page takes each avatar from, null for avatars added by this render until it is written
+     */
+    private final List<String> avatarSources = new ArrayList<>();
+    private final Set<Integer> embedColors = new LinkedHashSet<>();
+    private final Set<Integer> roleColors = new LinkedHashSet<>();
+
+    /**
+     * @param transcript the transcript file
+     * @return where the tables of the transcript are stored
+     */
+    static Path pathOf(Path transcript) {
+        return transcript.resolveSibling(transcript.getFileName() + SUFFIX);
+    }
+
+    /**
+     * @return the script that sets the avatars of the page, including those of lazily loaded chunks
+     */
+    static byte[] resolver() {
+        byte[] script = resolver;
+        if (script == null) {
+            try (InputStream inputStream = AssetTables.class.getClassLoader().getResourceAsStream("asset-tables.html")) {
+                if (inputStream == null) {
+                    throw new IllegalArgumentException("file is not found: " + "asset-tables.html");
+                }
+                resolver = script = inputStream.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return script;
+    }
+
+    /**
+     * Read the tables of a transcript that is appended to, its avatars keep their ids and sources
+     *
+     * @param transcript the transcript file
+     * @return the tables
+     */
+    static AssetTables read(Path transcript) throws IOException {
+        Path path = pathOf(transcript);
+        if (!Files.exists(path)) {
+            throw new IllegalArgumentException("The transcript was written without asset tables");
+        }
+        AssetTables tables = new AssetTables();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            long version;
+            if (in.readInt() != MAGIC || (version = Varints.read(in)) < 1 || version > VERSION) {
+                throw new IOException("Malformed asset tables " + path);
+            }
+            for (long i = Varints.read(in); i > 0; i--) {
+                tables.addAvatar(readString(in), readString(in));
+            }
+            for (long i = Varints.read(in); i > 0; i--) {
+                tables.embedColors.add((int) Varints.read(in));
+            }
+            // role colours were shown inline before version 2
+            for (long i = version >= 2 ? Varints.read(in) : 0; i > 0; i--) {
+                tables.roleColors.add((int) Varints.read(in));
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Add the avatars, embed colours and role colours of messages about to be rendered. The role colours of every
+     * author are added since replies preview the messages they refer to with the colour of their author.
+     *
+     * @param messages   the messages, in transcript order
+     * @param references the messages replies are previewed from, the copies replies came with are only read for
+     *                   messages not in the transcript
+     */
+    void add(List<TranscriptMessage> messages, ReferenceIndex references) {
+        for (TranscriptMessage message : messages) {
+            String avatarUrl = message.author() != null ? message.author().avatarUrl() : null;
+            if (avatarUrl != null && !avatarIds.containsKey(avatarUrl)) {
+                addAvatar(avatarUrl, null);
+            }
+            addRoleColor(message.author());
+            TranscriptMessage referenced = message.isReply() && references.preview(message.referenceId()) == null
+                    ? message.reference()
+                    : null;
+            String referencedAvatarUrl = referenced != null && referenced.author() != null ? referenced.author().avatarUrl() : null;
+            if (referencedAvatarUrl != null && !avatarIds.containsKey(referencedAvatarUrl)) {
+                addAvatar(referencedAvatarUrl, null);
+            }
+            if (referenced != null) {
+                addRoleColor(referenced.author());
+            }
+            for (MessageEmbed embed : message.embeds()) {
+                if (embed.getColor() != null) {
+                    embedColors.add(embed.getColorRaw() & 0xFFFFFF);
+                }
+            }
+        }
+    }
+
+    private void addAvatar(String url, String source) {
+        avatarIds.put(url, Integer.toString(avatarUrls.size(), 36));
+        avatarUrls.add(url);
+        avatarSources.add(source);
+    }
+
+    private void addRoleColor(AuthorProfile author) {
+        if (author != null && author.colorHex() != null) {
+            roleColors.add(Integer.parseInt(author.colorHex(), 16));
+        }
+    }
+
+    /**
+     * @param url the avatar url of an author
+     * @return the id the page refers to the avatar by, null if it was not added
+     */
+    String avatarId(String url) {
+        return url != null ? avatarIds.get(url) : null;
+    }
+
+    /**
+     * Append the class of an embed colour, e.g. {@code ec-5865f2}
+     */
+    static void embedColorClass(int rgb, StringBuilder html) {
+        hex(rgb, html.append("ec-"));
+    }
+
+    /**
+     * Append the class of a role colour given as six hex digits, e.g. {@code rc-5865f2}
+     */
+    static void roleColorClass(String colorHex, StringBuilder html) {
+        hex(Integer.parseInt(colorHex, 16), html.append("rc-"));
+    }
+
+    private static void hex(int rgb, StringBuilder html) {
+        for (int shift = 20; shift >= 0; shift -= 4) {
+            html.append(Character.forDigit(rgb >> shift & 0xf, 16));
+        }
+    }
+
+    /**
+     * Write the colour classes and the avatar sources into the page
+     *
+     * @param asset where the page takes the avatars added by this render from
+     */
+    void writeScript(OutputStream out, UnaryOperator<String> asset) throws IOException {
+        StringBuilder html = new StringBuilder(256 + avatarUrls.size() * 128);
+        html.append("<style>");
+        for (int rgb : embedColors) {
+            html.append('.');
+            embedColorClass(rgb, html);
+            hex(rgb, html.append("{background-color:#"));
+            html.append('}');
+        }
+        for (int rgb : roleColors) {
+            hex(rgb, html.append(".rc-"));
+            hex(rgb, html.append("{color:#"));
+            html.append('}');
+        }
+        html.append("</style>\n<script type=\"application/json\" id=\"chatlog-avatars\">[");
+        for (int i = 0; i < avatarUrls.size(); i++) {
+            if (i > 0) {
+                html.append(',');
+            }
+            LazyChunks.jsonString(source(i, asset), html);
+        }
+        html.append("]</script>\n");
+        out.write(html.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Store the tables next to a transcript so appends keep the ids, the previous ones are replaced atomically
+     *
+     * @param transcript the transcript file
+     * @param asset      where the page takes the avatars added by this render from
+     */
+    void write(Path transcript, UnaryOperator<String> asset) throws IOException {
+        Path path = pathOf(transcript);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            Varints.write(out, VERSION);
+            Varints.write(out, avatarUrls.size());
+            for (int i = 0; i < avatarUrls.size(); i++) {
+                writeString(out, avatarUrls.get(i));
+                writeString(out, source(i, asset));
+            }
+            Varints.write(out, embedColors.size());
+            for (int rgb : embedColors) {
+                Varints.write(out, rgb);
+            }
+            Varints.write(out, roleColors.size());
+            for (int rgb : roleColors) {
+                Varints.write(out, rgb);
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private String source(int avatar, UnaryOperator<String> asset) {
+        String source = avatarSources.get(avatar);
+        return source != null ? source : asset.apply(avatarUrls.get(avatar));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        Varints.write(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[Math.toIntExact(Varints.read(in))];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
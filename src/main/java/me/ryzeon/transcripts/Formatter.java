@@ -1,10 +1,9 @@
 package me.ryzeon.transcripts;
 
 import lombok.experimental.UtilityClass;
+import me.ryzeon.transcripts.utils.markdown.MarkdownRenderer;
 
 import java.awt.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Created by Ryzeon
@@ -16,95 +15,61 @@ import java.util.regex.Pattern;
 @UtilityClass
 public class Formatter {
 
-    private final Pattern STRONG = Pattern.compile("\\*\\*(.+?)\\*\\*");
-    private final Pattern EM = Pattern.compile("\\*(.+?)\\*");
-    private final Pattern S = Pattern.compile("~~(.+?)~~");
-    private final Pattern U = Pattern.compile("__(.+?)__");
-    private final Pattern CODE = Pattern.compile("```(.+?)```");
-    private final Pattern CODE_1 = Pattern.compile("`(.+?)`");
-    private final Pattern QUOTE = Pattern.compile("^>{1,3} (.*)$");
-    private final Pattern LINK = Pattern.compile("\\[([^\\[]+)\\](\\((www|http:|https:)+[^\\s]+[\\w]\\))");
-    private final Pattern NEW_LINE = Pattern.compile("\\n");
+    private final ThreadLocal<MarkdownRenderer> MARKDOWN = ThreadLocal.withInitial(MarkdownRenderer::new);
 
     public String formatBytes(long bytes) {
+        StringBuilder builder = new StringBuilder(10);
+        formatBytes(bytes, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Format a size with one decimal and a binary unit, e.g. {@code 120.6 KB}
+     *
+     * @param bytes   the size in bytes
+     * @param builder the builder the size is appended to
+     */
+    public void formatBytes(long bytes, StringBuilder builder) {
         int unit = 1024;
-        if (bytes < unit)
-            return bytes + " B";
+        if (bytes < unit) {
+            builder.append(bytes).append(" B");
+            return;
+        }
         int exp = (int) (Math.log(bytes) / Math.log(unit));
-        String pre = String.valueOf("KMGTPE".charAt(exp - 1));
-        return String.format("%.1f %sB", bytes / Math.pow(unit, exp), pre);
+        long tenths = Math.round(bytes / Math.pow(unit, exp) * 10);
+        builder.append(tenths / 10).append('.').append(tenths % 10)
+                .append(' ').append("KMGTPE".charAt(exp - 1)).append('B');
     }
 
     public String format(String originalText) {
-        Matcher matcher = STRONG.matcher(originalText);
-        String newText = originalText;
-        while (matcher.find()) {
-            String group = matcher.group();
-            newText = newText.replace(group,
-                    "<strong>" + group.replace("**", "") + "</strong>");
-        }
-        matcher = EM.matcher(newText);
-        while (matcher.find()) {
-            String group = matcher.group();
-            newText = newText.replace(group,
-                    "<em>" + group.replace("*", "") + "</em>");
-        }
-        matcher = S.matcher(newText);
-        while (matcher.find()) {
-            String group = matcher.group();
-            newText = newText.replace(group,
-                    "<s>" + group.replace("~~", "") + "</s>");
-        }
-        matcher = U.matcher(newText);
-        while (matcher.find()) {
-            String group = matcher.group();
-            newText = newText.replace(group,
-                    "<u>" + group.replace("__", "") + "</u>");
-        }
-        matcher = QUOTE.matcher(newText);
-        while (matcher.find()) {
-            String group = matcher.group();
-            newText = newText.replace(group,
-                    "<span class=\"quote\">" + group.replaceFirst(">>>", "").replaceFirst(">", "") + "</span>");
-        }
-        matcher = LINK.matcher(newText);
-        while (matcher.find()) {
-            String group = matcher.group(1);
-            String link = matcher.group(2);
-            String raw = "[" + group + "]" + link;
-
-            newText = newText.replace(raw, "<a href=\"" + link.replace("(", "").replace(")", "") + "\">" + group + "</a>");
-        }
+        StringBuilder builder = new StringBuilder(originalText.length() + 16);
+        format(originalText, builder);
+        return builder.toString();
+    }
 
-        matcher = CODE.matcher(newText);
-        boolean findCode = false;
-        while (matcher.find()) {
-            String group = matcher.group();
-            newText = newText.replace(group,
-                    "<div class=\"pre pre--multiline nohighlight\">"
-                            + group.replace("```", "").substring(3, -3) + "</div>");
-            findCode = true;
-        }
-        if (!findCode) {
-            matcher = CODE_1.matcher(newText);
-            while (matcher.find()) {
-                String group = matcher.group();
-                newText = newText.replace(group,
-                        "<span class=\"pre pre--inline\">" + group.replace("`", "") + "</span>");
-            }
-        }
-        matcher = NEW_LINE.matcher(newText);
-        while (matcher.find()) {
-            newText = newText.replace(matcher.group(), "<br />");
-        }
-        return newText;
+    /**
+     * Render discord markdown as html, in a single pass over the text
+     *
+     * @param originalText the markdown text
+     * @param builder      the builder the html is appended to
+     */
+    public void format(CharSequence originalText, StringBuilder builder) {
+        MARKDOWN.get().render(originalText, builder);
     }
 
     public String toHex(Color color) {
-        String hex = Integer.toHexString(color.getRGB() & 0xffffff);
-        while (hex.length() < 6) {
-            hex = "0" + hex;
+        StringBuilder builder = new StringBuilder(6);
+        toHex(color, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Append the rgb value of a color as six lowercase hex digits
+     */
+    public void toHex(Color color, StringBuilder builder) {
+        int rgb = color.getRGB();
+        for (int shift = 20; shift >= 0; shift -= 4) {
+            builder.append(Character.forDigit(rgb >> shift & 0xf, 16));
         }
-        return hex;
     }
 }
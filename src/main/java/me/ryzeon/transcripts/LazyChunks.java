@@ -0,0 +1,84 @@
+package me.ryzeon.transcripts;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Encoding of message groups that are loaded on scroll, see {@link TranscriptOptions#isLazyLoading()}
+ */
+final class LazyChunks {
+
+    private static volatile byte[] loader;
+
+    private LazyChunks() {
+    }
+
+    /**
+     * @return the script that loads chunks on scroll and lets {@code scrollToMessage} jump into unloaded chunks
+     */
+    static byte[] loader() {
+        byte[] script = loader;
+        if (script == null) {
+            try (InputStream inputStream = LazyChunks.class.getClassLoader().getResourceAsStream("lazy-loader.html")) {
+                if (inputStream == null) {
+                    throw new IllegalArgumentException("file is not found: " + "lazy-loader.html");
+                }
+                loader = script = inputStream.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return script;
+    }
+
+    /**
+     * Wrap rendered message groups into a script element the browser neither runs nor turns into elements
+     *
+     * @param html           the message groups
+     * @param firstMessageId the id of the first message in them
+     * @param lastMessageId  the id of the last message in them
+     * @param script         the builder the script element is appended to
+     * @return the builder
+     */
+    static StringBuilder wrap(CharSequence html, String firstMessageId, String lastMessageId, StringBuilder script) {
+        script.ensureCapacity(script.length() + html.length() + html.length() / 8 + 128);
+        script.append("<script type=\"application/json\" class=\"chatlog__chunk-data\" data-first=\"")
+                .append(firstMessageId)
+                .append("\" data-last=\"")
+                .append(lastMessageId)
+                .append("\">");
+        jsonString(html, script);
+        return script.append("</script>\n");
+    }
+
+    /**
+     * Append a text as a json string that can be embedded into a script element
+     *
+     * @param text the text
+     * @param json the builder the string is appended to
+     */
+    static void jsonString(CharSequence text, StringBuilder json) {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                // keeps </script> and <!-- inside the string from ending the element
+                case '<' -> json.append("\\u003c");
+                default -> {
+                    if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,20 @@
+package me.ryzeon.transcripts;
+
+/**
+ * Renders the markdown of message contents, embed descriptions and field values as html.
+ * Formatters are called by every thread rendering a chunk, so they must be thread safe.
+ */
+@FunctionalInterface
+public interface MarkdownFormatter {
+
+    /**
+     * Discord markdown, see {@link Formatter#format(CharSequence, StringBuilder)}
+     */
+    MarkdownFormatter DISCORD = Formatter::format;
+
+    /**
+     * @param markdown the markdown text
+     * @param html     the builder the html is appended to
+     */
+    void format(CharSequence markdown, StringBuilder html);
+}
@@ -0,0 +1,137 @@
+package me.ryzeon.transcripts;
+
+import net.dv8tion.jda.api.entities.Message;
+
+import java.util.*;
+import java.util.function.ToLongFunction;
+
+/**
+ * Puts messages in transcript order, oldest first, by their snowflake ids.
+ * <p>
+ * Message lists usually come ordered already, a channel history is newest first and pages are oldest first.
+ * Ordered input is used as it is or reversed, only unordered input is sorted.
+ */
+public final class MessageOrder {
+
+    private MessageOrder() {
+    }
+
+    /**
+     * @param messages the messages in any order
+     * @return the messages oldest first, the list itself if it already is
+     */
+    public static List<Message> ascending(Collection<Message> messages) {
+        List<Message> list = messages instanceof List<Message> l && l instanceof RandomAccess ? l : new ArrayList<>(messages);
+        if (order(list, Message::getIdLong) > 0) {
+            return list;
+        }
+        List<Message> sorted = list == messages ? new ArrayList<>(list) : list;
+        sort(sorted, Message::getIdLong);
+        return sorted;
+    }
+
+    /**
+     * Merge the messages of several sources, e.g. a thread and its parent channel, without sorting them all at once.
+     * Each source is walked in the order it has, oldest or newest first, and only sorted if it has none.
+     *
+     * @param sources the sources of messages, messages found in several of them are kept once
+     * @return the messages of every source, oldest first
+     */
+    public static List<Message> merge(Collection<? extends Collection<Message>> sources) {
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(Math.max(1, sources.size()), Comparator.comparingLong(cursor -> cursor.id));
+        int size = 0;
+        for (Collection<Message> source : sources) {
+            if (source.isEmpty()) {
+                continue;
+            }
+            List<Message> list = source instanceof List<Message> l && l instanceof RandomAccess ? l : new ArrayList<>(source);
+            int order = order(list, Message::getIdLong);
+            if (order == 0) {
+                list = list == source ? new ArrayList<>(list) : list;
+                sort(list, Message::getIdLong);
+                order = 1;
+            }
+            cursors.add(new Cursor(list, order));
+            size += list.size();
+        }
+
+        List<Message> merged = new ArrayList<>(size);
+        long last = 0;
+        while (!cursors.isEmpty()) {
+            Cursor cursor = cursors.poll();
+            if (merged.isEmpty() || cursor.id != last) {
+                merged.add(cursor.message());
+                last = cursor.id;
+            }
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Order messages oldest first in place, ordered lists are at most reversed
+     *
+     * @param messages the messages, a mutable list
+     * @param id       the id of a message
+     */
+    static <T> void sort(List<T> messages, ToLongFunction<? super T> id) {
+        int order = order(messages, id);
+        if (order < 0) {
+            Collections.reverse(messages);
+        } else if (order == 0) {
+            messages.sort(Comparator.comparingLong(id));
+        }
+    }
+
+    /**
+     * @return 1 if the ids ascend, -1 if they descend, 0 if they are unordered. Equal ids count as either.
+     */
+    private static <T> int order(List<T> messages, ToLongFunction<? super T> id) {
+        boolean ascending = true, descending = true;
+        Iterator<T> iterator = messages.iterator();
+        long previous = iterator.hasNext() ? id.applyAsLong(iterator.next()) : 0;
+        while (iterator.hasNext() && (ascending || descending)) {
+            long current = id.applyAsLong(iterator.next());
+            ascending &= previous <= current;
+            descending &= previous >= current;
+            previous = current;
+        }
+        return ascending ? 1 : descending ? -1 : 0;
+    }
+
+    /**
+     * Position in an ordered source, walked from its oldest message on
+     */
+    private static final class Cursor {
+
+        private final List<Message> messages;
+        private final int step;
+        private int index;
+        private long id;
+
+        private Cursor(List<Message> messages, int order) {
+            this.messages = messages;
+            this.step = order;
+            this.index = order > 0 ? 0 : messages.size() - 1;
+            this.id = messages.get(index).getIdLong();
+        }
+
+        Message message() {
+            return messages.get(index);
+        }
+
+        /**
+         * @return whether the source holds another message
+         */
+        boolean advance() {
+            index += step;
+            if (index < 0 || index >= messages.size()) {
+                return false;
+            }
+            id = messages.get(index).getIdLong();
+            return true;
+        }
+    }
+}
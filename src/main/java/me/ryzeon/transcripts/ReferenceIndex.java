@@ -0,0 +1,148 @@
+package me.ryzeon.transcripts;
+
+import me.ryzeon.transcripts.author.AuthorProfile;
+import me.ryzeon.transcripts.model.TranscriptMessage;
+
+import java.util.List;
+
+/**
+ * Positions of the messages of a render by id, so replies know whether the message they refer to is in the transcript.
+ * <p>
+ * Ids are kept in an open addressing table of primitive arrays. Messages are added in transcript order before they
+ * render, and the preview of every message a reply refers to is taken once, when the reply is added. The index is
+ * only read while chunks render, by any amount of threads.
+ */
+final class ReferenceIndex {
+
+    /**
+     * Characters of a message shown in the preview of a reply to it
+     */
+    static final int EXCERPT_LENGTH = 42;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    // position + 1, so 0 marks a free slot whatever the id
+    private int[] positions = new int[INITIAL_CAPACITY];
+    private Preview[] previews = new Preview[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Add messages about to be rendered and take the previews of the messages their replies refer to
+     *
+     * @param messages the messages, in transcript order
+     */
+    void add(List<TranscriptMessage> messages) {
+        int first = size;
+        for (TranscriptMessage message : messages) {
+            if (slot(message.id()) < 0) {
+                put(message.id(), size++);
+            }
+        }
+        for (TranscriptMessage message : messages) {
+            if (!message.isReply()) {
+                continue;
+            }
+            int slot = slot(message.referenceId());
+            if (slot < 0 || previews[slot] != null) {
+                continue;
+            }
+            // the message itself if it was added with this batch, the copy the reply came with otherwise
+            int position = positions[slot] - 1 - first;
+            TranscriptMessage referenced = position >= 0 && position < messages.size() && messages.get(position).id() == message.referenceId()
+                    ? messages.get(position)
+                    : message.reference();
+            previews[slot] = Preview.of(referenced);
+        }
+    }
+
+    /**
+     * @param id the id of a message
+     * @return the position of the message in the transcript, -1 if it is not in it
+     */
+    int position(long id) {
+        int slot = slot(id);
+        return slot >= 0 ? positions[slot] - 1 : -1;
+    }
+
+    /**
+     * @param id the id of a message a reply refers to
+     * @return the preview of the message, null if it is not in the transcript
+     */
+    Preview preview(long id) {
+        int slot = slot(id);
+        return slot >= 0 ? previews[slot] : null;
+    }
+
+    private int slot(long id) {
+        int mask = ids.length - 1;
+        for (int slot = hash(id) & mask; positions[slot] != 0; slot = slot + 1 & mask) {
+            if (ids[slot] == id) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void put(long id, int position) {
+        if ((size + 1) * 2 > ids.length) {
+            grow();
+        }
+        int mask = ids.length - 1;
+        int slot = hash(id) & mask;
+        while (positions[slot] != 0) {
+            slot = slot + 1 & mask;
+        }
+        ids[slot] = id;
+        positions[slot] = position + 1;
+    }
+
+    private void grow() {
+        long[] oldIds = ids;
+        int[] oldPositions = positions;
+        Preview[] oldPreviews = previews;
+        ids = new long[oldIds.length * 2];
+        positions = new int[oldIds.length * 2];
+        previews = new Preview[oldIds.length * 2];
+        int mask = ids.length - 1;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldPositions[i] == 0) {
+                continue;
+            }
+            int slot = hash(oldIds[i]) & mask;
+            while (positions[slot] != 0) {
+                slot = slot + 1 & mask;
+            }
+            ids[slot] = oldIds[i];
+            positions[slot] = oldPositions[i];
+            previews[slot] = oldPreviews[i];
+        }
+    }
+
+    private static int hash(long id) {
+        // the low bits of a snowflake count messages of the same millisecond and worker, mostly zero
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ mixed >>> 32);
+    }
+
+    /**
+     * What a reply shows of the message it refers to
+     *
+     * @param author  the author of the message, null if unknown
+     * @param excerpt the start of the content, null if the message only holds attachments or embeds
+     */
+    record Preview(AuthorProfile author, String excerpt) {
+
+        static Preview of(TranscriptMessage message) {
+            String content = message.content();
+            if (content.isEmpty()) {
+                return new Preview(message.author(), null);
+            }
+            if (content.length() <= EXCERPT_LENGTH) {
+                return new Preview(message.author(), content);
+            }
+            int end = Character.isHighSurrogate(content.charAt(EXCERPT_LENGTH - 1)) ? EXCERPT_LENGTH - 1 : EXCERPT_LENGTH;
+            return new Preview(message.author(), content.substring(0, end) + "...");
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package me.ryzeon.transcripts;
+
+import net.dv8tion.jda.api.utils.TimeUtil;
+
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Buffers of the message renderer, taken from a shared pool by every chunk and handed back once it is rendered.
+ * <p>
+ * Message groups are appended to {@link #html()} as markup, so rendering a chunk allocates little more than its output.
+ * The pool is not bound to threads, so executors of virtual threads reuse the contexts as well. It keeps as many
+ * contexts as there are processors, chunks rendered beyond that at once use contexts that are dropped afterwards.
+ */
+final class RenderContext {
+
+    private static final BlockingQueue<RenderContext> POOL = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Html escapes of the ascii characters, null for characters written as they are.
+     * The same escapes serve text and double quoted attribute values.
+     */
+    private static final String[] ESCAPES = new String[128];
+
+    /**
+     * Buffers grown past this many chars by a huge chunk are dropped instead of being kept for the thread
+     */
+    private static final int MAX_RETAINED_CHARS = 1 << 20;
+
+    static {
+        ESCAPES['&'] = "&amp;";
+        ESCAPES['<'] = "&lt;";
+        ESCAPES['>'] = "&gt;";
+        ESCAPES['"'] = "&quot;";
+    }
+
+    private StringBuilder html = new StringBuilder(1 << 16);
+    private StringBuilder scratch = new StringBuilder(1 << 16);
+    private byte[] bytes = new byte[1 << 16];
+    private int[] marks = new int[256];
+    private int markCount;
+
+    private RenderContext() {
+    }
+
+    /**
+     * Take a context of the pool, or a fresh one if every pooled context is in use
+     *
+     * @return the context, cleared, to be handed back with {@link #release()}
+     */
+    static RenderContext acquire() {
+        RenderContext context = POOL.poll();
+        if (context == null) {
+            context = new RenderContext();
+        }
+        context.html = reset(context.html);
+        context.scratch = reset(context.scratch);
+        context.markCount = 0;
+        return context;
+    }
+
+    /**
+     * Hand the context back to the pool, it must not be used afterwards
+     */
+    void release() {
+        POOL.offer(this);
+    }
+
+    private static StringBuilder reset(StringBuilder builder) {
+        if (builder.capacity() > MAX_RETAINED_CHARS) {
+            return new StringBuilder(1 << 16);
+        }
+        builder.setLength(0);
+        return builder;
+    }
+
+    /**
+     * @return the markup rendered so far
+     */
+    StringBuilder html() {
+        return html;
+    }
+
+    /**
+     * @return a second cleared buffer, e.g. to wrap the markup into
+     */
+    StringBuilder scratch() {
+        return scratch;
+    }
+
+    /**
+     * Remember the current end of {@link #html()}, e.g. where a message starts, see {@link #encodeMarked()}
+     */
+    void mark() {
+        if (markCount == marks.length) {
+            marks = Arrays.copyOf(marks, markCount * 2);
+        }
+        marks[markCount++] = html.length();
+    }
+
+    /**
+     * @return the marks set since the context was acquired, turned into byte offsets by {@link #encodeMarked()}
+     */
+    int[] marks() {
+        return marks;
+    }
+
+    int markCount() {
+        return markCount;
+    }
+
+    /**
+     * Append html escaped text, also usable inside a double quoted attribute value
+     *
+     * @param text the text, null appends nothing
+     * @return this context
+     */
+    RenderContext text(CharSequence text) {
+        return text != null ? text(text, 0, text.length()) : this;
+    }
+
+    /**
+     * Append a part of a text html escaped
+     *
+     * @param text  the text
+     * @param start the index of the first char
+     * @param end   the index after the last char
+     * @return this context
+     */
+    RenderContext text(CharSequence text, int start, int end) {
+        StringBuilder html = this.html;
+        int from = start;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            String escape = c < 128 ? ESCAPES[c] : null;
+            if (escape != null) {
+                html.append(text, from, i).append(escape);
+                from = i + 1;
+            }
+        }
+        html.append(text, from, end);
+        return this;
+    }
+
+    /**
+     * Append an attribute with an escaped value, nothing is appended for a null value
+     *
+     * @param name  the attribute name, e.g. {@code src}
+     * @param value the attribute value
+     * @return this context
+     */
+    RenderContext attribute(String name, String value) {
+        if (value == null) {
+            return this;
+        }
+        html.append(' ').append(name).append("=\"");
+        return text(value).append('"');
+    }
+
+    /**
+     * Append markup as it is
+     */
+    RenderContext append(String markup) {
+        html.append(markup);
+        return this;
+    }
+
+    RenderContext append(char markup) {
+        html.append(markup);
+        return this;
+    }
+
+    /**
+     * Append the {@code HH:mm:ss} time a snowflake was created at, in utc
+     *
+     * @param snowflake the id of e.g. a message
+     * @return this context
+     */
+    RenderContext time(long snowflake) {
+        long seconds = Math.floorDiv((snowflake >>> 22) + TimeUtil.DISCORD_EPOCH, 1000);
+        int secondOfDay = (int) Math.floorMod(seconds, 86400L);
+        return time(secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60);
+    }
+
+    /**
+     * Append the {@code HH:mm:ss} time of a timestamp, in its own offset
+     *
+     * @param timestamp e.g. the timestamp of an embed
+     * @return this context
+     */
+    RenderContext time(TemporalAccessor timestamp) {
+        return time(timestamp.get(ChronoField.HOUR_OF_DAY), timestamp.get(ChronoField.MINUTE_OF_HOUR),
+                timestamp.get(ChronoField.SECOND_OF_MINUTE));
+    }
+
+    private RenderContext time(int hours, int minutes, int seconds) {
+        twoDigits(hours).append(':');
+        twoDigits(minutes).append(':');
+        return twoDigits(seconds);
+    }
+
+    private RenderContext twoDigits(int value) {
+        html.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+        return this;
+    }
+
+    /**
+     * Encode chars as utf-8 through a reused buffer, unpaired surrogates become {@code ?} like in {@link String#getBytes}
+     *
+     * @param chars the chars to encode, e.g. {@link #html()}
+     * @return the encoded bytes
+     */
+    byte[] encode(CharSequence chars) {
+        return encode(chars, false);
+    }
+
+    /**
+     * Encode {@link #html()} like {@link #encode(CharSequence)} and replace every mark by the byte offset it ended up at
+     *
+     * @return the encoded bytes
+     */
+    byte[] encodeMarked() {
+        return encode(html, true);
+    }
+
+    private byte[] encode(CharSequence chars, boolean marked) {
+        int length = chars.length();
+        if (bytes.length < length * 3) {
+            bytes = new byte[Math.max(length * 3, bytes.length * 2)];
+        }
+        byte[] out = bytes;
+        int position = 0;
+        int mark = 0, nextMark = marked && markCount > 0 ? marks[0] : -1;
+        for (int i = 0; i < length; i++) {
+            // a mark between the chars of a surrogate pair ends up after the pair
+            while (nextMark >= 0 && nextMark <= i) {
+                marks[mark++] = position;
+                nextMark = mark < markCount ? marks[mark] : -1;
+            }
+            char c = chars.charAt(i);
+            if (c < 0x80) {
+                out[position++] = (byte) c;
+            } else if (c < 0x800) {
+                out[position++] = (byte) (0xc0 | c >> 6);
+                out[position++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                char low = i + 1 < length ? chars.charAt(i + 1) : 0;
+                if (Character.isHighSurrogate(c) && Character.isLowSurrogate(low)) {
+                    int codePoint = Character.toCodePoint(c, low);
+                    out[position++] = (byte) (0xf0 | codePoint >> 18);
+                    out[position++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                    out[position++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                    out[position++] = (byte) (0x80 | codePoint & 0x3f);
+                    i++;
+                } else {
+                    out[position++] = '?';
+                }
+            } else {
+                out[position++] = (byte) (0xe0 | c >> 12);
+                out[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+                out[position++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+        for (; marked && mark < markCount; mark++) {
+            marks[mark] = position;
+        }
+        byte[] encoded = Arrays.copyOf(out, position);
+        if (bytes.length > MAX_RETAINED_CHARS * 3) {
+            bytes = new byte[1 << 16];
+        }
+        return encoded;
+    }
+}
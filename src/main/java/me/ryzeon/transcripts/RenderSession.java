@@ -0,0 +1,363 @@
+package me.ryzeon.transcripts;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import me.ryzeon.transcripts.assets.Asset;
+import me.ryzeon.transcripts.assets.AssetMode;
+import me.ryzeon.transcripts.author.AuthorProfile;
+import me.ryzeon.transcripts.author.AuthorProfileCache;
+import me.ryzeon.transcripts.metrics.RenderSummary;
+import me.ryzeon.transcripts.metrics.TranscriptMetrics;
+import me.ryzeon.transcripts.model.TranscriptAttachment;
+import me.ryzeon.transcripts.model.TranscriptChannel;
+import me.ryzeon.transcripts.model.TranscriptMessage;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildChannel;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * State of a single transcript render, shared by every chunk of it
+ */
+@Getter
+class RenderSession implements AutoCloseable {
+
+    private final TranscriptChannel channel;
+    @Getter(AccessLevel.NONE)
+    private final Guild guild;
+    private final TranscriptOptions options;
+    @Getter(AccessLevel.NONE)
+    private final MarkdownFormatter markdownFormatter;
+    private final Map<Long, AuthorProfile> authors = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final AssetResolver assets;
+    @Getter(AccessLevel.NONE)
+    private SearchIndexBuilder search;
+    @Getter(AccessLevel.NONE)
+    private AssetTables tables;
+    @Getter(AccessLevel.NONE)
+    private final Map<Long, List<ThreadBlock>> threads = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final ReferenceIndex references = new ReferenceIndex();
+
+    private final TranscriptMetrics metrics;
+    private final boolean measuring;
+    @Getter(AccessLevel.NONE)
+    private final LongAdder[] phaseNanos = new LongAdder[TranscriptMetrics.Phase.values().length];
+    @Getter(AccessLevel.NONE)
+    private final LongAdder embeds = new LongAdder(), attachments = new LongAdder(),
+            markdownCalls = new LongAdder(), allocatedBytes = new LongAdder();
+    @Getter(AccessLevel.NONE)
+    private volatile boolean allocationsUnknown;
+
+    RenderSession(GuildChannel channel, TranscriptOptions options, MarkdownFormatter markdownFormatter) {
+        this(TranscriptChannel.of(channel), channel.getGuild(), options, markdownFormatter);
+    }
+
+    /**
+     * @param guild             the guild authors are resolved in, null if messages come with their author profiles
+     * @param markdownFormatter the formatter of the engine, used unless the options set one
+     */
+    RenderSession(TranscriptChannel channel, Guild guild, TranscriptOptions options, MarkdownFormatter markdownFormatter) {
+        this.channel = channel;
+        this.guild = guild;
+        this.options = options;
+        this.markdownFormatter = options.getMarkdownFormatter() != null ? options.getMarkdownFormatter() : markdownFormatter;
+        this.assets = options.getAssetMode() != AssetMode.LINK ? new AssetResolver(options) : null;
+        this.search = options.isSearchIndex() ? new SearchIndexBuilder() : null;
+        this.tables = options.isAssetTables() ? new AssetTables() : null;
+        this.metrics = options.getMetrics() != null ? options.getMetrics() : TranscriptMetrics.NOOP;
+        this.measuring = metrics.enabled();
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Get the profile of an author, each author is resolved once per render
+     *
+     * @param user the author
+     * @return the profile
+     */
+    AuthorProfile author(User user) {
+        AuthorProfile profile = authors.get(user.getIdLong());
+        if (profile == null) {
+            AuthorProfileCache cache = options.getAuthorCache();
+            profile = cache != null
+                    ? cache.get(guild, user)
+                    : AuthorProfile.resolve(guild, user);
+            authors.put(user.getIdLong(), profile);
+        }
+        return profile;
+    }
+
+    /**
+     * Take what the transcript shows of received messages, resolving their authors
+     *
+     * @param messages the messages
+     * @return the messages, in the same order
+     */
+    List<TranscriptMessage> adapt(Collection<Message> messages) {
+        List<TranscriptMessage> adapted = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            adapted.add(TranscriptMessage.of(message, this::author));
+        }
+        return adapted;
+    }
+
+    /**
+     * Download the guild icon and the avatars, attachments and embed images of messages about to be rendered,
+     * nothing is downloaded when assets are linked. Their avatars and embed colours are added to the asset tables, and
+     * the messages to the index replies are rendered from.
+     *
+     * @param messages the messages, in transcript order
+     */
+    void prepareAssets(List<TranscriptMessage> messages) {
+        references.add(messages);
+        if (tables != null) {
+            tables.add(messages, references);
+        }
+        if (assets == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<String> urls = new ArrayList<>();
+        urls.add(channel.guildIconUrl());
+        for (TranscriptMessage message : messages) {
+            if (message.author() != null) {
+                urls.add(message.author().avatarUrl());
+            }
+            // replies to messages in the transcript show the avatar of that message
+            TranscriptMessage referenced = message.isReply() && references.preview(message.referenceId()) == null
+                    ? message.reference()
+                    : null;
+            if (referenced != null && referenced.author() != null) {
+                urls.add(referenced.author().avatarUrl());
+            }
+            for (TranscriptAttachment attachment : message.attachments()) {
+                if (attachment.size() <= options.getMaxAssetBytes()) {
+                    urls.add(attachment.url());
+                }
+            }
+            for (MessageEmbed embed : message.embeds()) {
+                if (embed.getAuthor() != null) {
+                    urls.add(embed.getAuthor().getIconUrl());
+                }
+                if (embed.getThumbnail() != null) {
+                    urls.add(embed.getThumbnail().getUrl());
+                }
+                if (embed.getImage() != null) {
+                    urls.add(embed.getImage().getUrl());
+                }
+                if (embed.getFooter() != null) {
+                    urls.add(embed.getFooter().getIconUrl());
+                }
+            }
+        }
+        assets.resolve(urls);
+        addTime(TranscriptMetrics.Phase.ASSETS, System.nanoTime() - start);
+    }
+
+    /**
+     * Add written message groups to the search index, nothing is indexed unless {@link TranscriptOptions#isSearchIndex()}
+     *
+     * @param groups the message groups, in transcript order
+     */
+    void indexForSearch(List<List<TranscriptMessage>> groups) {
+        if (search == null) {
+            return;
+        }
+        for (List<TranscriptMessage> group : groups) {
+            for (TranscriptMessage message : group) {
+                search.add(message);
+                for (ThreadBlock thread : threads(message.id())) {
+                    indexForSearch(thread.groups());
+                }
+            }
+        }
+    }
+
+    /**
+     * Show a thread below a message, blocks are added before rendering starts
+     *
+     * @param messageId the id of the message the block is rendered below
+     * @param thread    the rendered thread
+     */
+    void addThread(long messageId, ThreadBlock thread) {
+        threads.computeIfAbsent(messageId, ignored -> new ArrayList<>(1)).add(thread);
+    }
+
+    /**
+     * @param messageId the id of a message
+     * @return the threads shown below the message, in the order they were added
+     */
+    List<ThreadBlock> threads(long messageId) {
+        return threads.isEmpty() ? List.of() : threads.getOrDefault(messageId, List.of());
+    }
+
+    /**
+     * Continue the search index of a transcript that is appended to
+     *
+     * @param index the index of the messages already in the transcript
+     */
+    void continueSearchIndex(TranscriptSearchIndex index) {
+        search = new SearchIndexBuilder(index);
+    }
+
+    /**
+     * @return the search index of the render, null unless {@link TranscriptOptions#isSearchIndex()}
+     */
+    SearchIndexBuilder searchIndex() {
+        return search;
+    }
+
+    /**
+     * Continue the asset tables of a transcript that is appended to
+     *
+     * @param tables the tables of the messages already in the transcript
+     */
+    void continueAssetTables(AssetTables tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * @return the asset tables of the render, null unless {@link TranscriptOptions#isAssetTables()}
+     */
+    AssetTables assetTables() {
+        return tables;
+    }
+
+    /**
+     * @param messageId the id of the message a reply refers to
+     * @return what the reply shows of the message, null if the message is not in the transcript
+     */
+    ReferenceIndex.Preview referencePreview(long messageId) {
+        return references.preview(messageId);
+    }
+
+    /**
+     * @param url the url of an asset
+     * @return where the transcript takes the asset from
+     */
+    String asset(String url) {
+        return assets != null ? assets.rewrite(url) : url;
+    }
+
+    /**
+     * @return the assets to bundle with the html, by entry name
+     */
+    Map<String, Asset> bundledAssets() {
+        return assets != null ? assets.bundle() : Map.of();
+    }
+
+    @Override
+    public void close() {
+        if (assets != null) {
+            assets.close();
+        }
+    }
+
+    /**
+     * Render markdown to html, timed when measuring
+     *
+     * @param markdown the markdown text
+     * @param html     the builder the html is appended to
+     */
+    void format(String markdown, StringBuilder html) {
+        if (!measuring) {
+            markdownFormatter.format(markdown, html);
+            return;
+        }
+        long start = System.nanoTime();
+        markdownFormatter.format(markdown, html);
+        long nanos = System.nanoTime() - start;
+        markdownCalls.increment();
+        phaseNanos[TranscriptMetrics.Phase.MARKDOWN.ordinal()].add(nanos);
+        metrics.markdown(markdown, nanos);
+    }
+
+    /**
+     * @return whether the render reports to a {@link TranscriptMetrics}, nothing needs to be measured otherwise
+     */
+    boolean isMeasuring() {
+        return measuring;
+    }
+
+    void addTime(TranscriptMetrics.Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()].add(nanos);
+    }
+
+    void countMessage(TranscriptMessage message) {
+        embeds.add(message.embeds().size());
+        attachments.add(message.attachments().size());
+    }
+
+    /**
+     * @param before what {@link #threadAllocatedBytes()} returned before rendering
+     * @param after  what it returned after
+     */
+    void addAllocatedBytes(long before, long after) {
+        if (before < 0 || after < 0) {
+            allocationsUnknown = true;
+        } else {
+            allocatedBytes.add(after - before);
+        }
+    }
+
+    /**
+     * Report a finished render to the metrics listener
+     */
+    void report(TranscriptStats stats) {
+        if (!measuring) {
+            return;
+        }
+        long[] nanos = new long[phaseNanos.length];
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = phaseNanos[i].sum();
+        }
+        long allocated = allocationsUnknown || AllocationCounter.THREADS == null ? -1 : allocatedBytes.sum();
+        metrics.rendered(new RenderSummary(stats, nanos, embeds.sum(), attachments.sum(), markdownCalls.sum(), allocated));
+    }
+
+    /**
+     * Only call this when measuring, the first call looks the counter up
+     *
+     * @return the bytes the current thread allocated so far, -1 if the jvm does not tell
+     */
+    static long threadAllocatedBytes() {
+        return AllocationCounter.THREADS != null ? AllocationCounter.THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * The allocation counter of the jvm, looked up by the first measured render. Whether it counts is left to the
+     * host, a counter turned off makes renders report -1.
+     */
+    private static final class AllocationCounter {
+
+        private static final com.sun.management.ThreadMXBean THREADS = lookUp();
+
+        private static com.sun.management.ThreadMXBean lookUp() {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            return threads instanceof com.sun.management.ThreadMXBean counter && counter.isThreadAllocatedMemorySupported()
+                    ? counter
+                    : null;
+        }
+    }
+
+    /**
+     * A thread as shown below a message of the transcript
+     *
+     * @param html   the rendered block
+     * @param groups the message groups inside the block, indexed for search after the message. Empty if the thread is
+     *               only linked.
+     */
+    record ThreadBlock(String html, List<List<TranscriptMessage>> groups) {
+    }
+}
@@ -0,0 +1,209 @@
+package me.ryzeon.transcripts;
+
+import me.ryzeon.transcripts.model.TranscriptAttachment;
+import me.ryzeon.transcripts.model.TranscriptMessage;
+import me.ryzeon.transcripts.utils.io.Varints;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Collects the words of messages as they are written into a transcript, see {@link TranscriptSearchIndex}.
+ * Messages must be added in transcript order, by a single thread.
+ */
+final class SearchIndexBuilder {
+
+    private static volatile byte[] searchBox;
+
+    private long[] messageIds = new long[1024];
+    private int messageCount;
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    SearchIndexBuilder() {
+    }
+
+    /**
+     * Continue the index of a transcript that is appended to
+     *
+     * @param index the index of the messages already in the transcript
+     */
+    SearchIndexBuilder(TranscriptSearchIndex index) {
+        long[] ids = index.messageIds();
+        messageIds = Arrays.copyOf(ids, Math.max(1024, ids.length * 2));
+        messageCount = ids.length;
+        String[] terms = index.terms();
+        for (int i = 0; i < terms.length; i++) {
+            int[] ordinals = index.postings()[i];
+            postings.put(terms[i], new Postings(Arrays.copyOf(ordinals, Math.max(4, ordinals.length)), ordinals.length));
+        }
+    }
+
+    /**
+     * @return the search box that queries the data written by {@link #writeScript(OutputStream)}
+     */
+    static byte[] searchBox() {
+        byte[] script = searchBox;
+        if (script == null) {
+            try (InputStream inputStream = SearchIndexBuilder.class.getClassLoader().getResourceAsStream("search-box.html")) {
+                if (inputStream == null) {
+                    throw new IllegalArgumentException("file is not found: " + "search-box.html");
+                }
+                searchBox = script = inputStream.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return script;
+    }
+
+    void add(TranscriptMessage message) {
+        if (messageCount == messageIds.length) {
+            messageIds = Arrays.copyOf(messageIds, messageCount * 2);
+        }
+        int ordinal = messageCount;
+        messageIds[messageCount++] = message.id();
+
+        addText(message.content(), ordinal);
+        if (message.author() != null) {
+            addText(message.author().name(), ordinal);
+            addText(message.author().displayName(), ordinal);
+        }
+        for (TranscriptAttachment attachment : message.attachments()) {
+            addText(attachment.fileName(), ordinal);
+        }
+        for (MessageEmbed embed : message.embeds()) {
+            addText(embed.getTitle(), ordinal);
+            addText(embed.getDescription(), ordinal);
+            if (embed.getAuthor() != null) {
+                addText(embed.getAuthor().getName(), ordinal);
+            }
+            for (MessageEmbed.Field field : embed.getFields()) {
+                addText(field.getName(), ordinal);
+                addText(field.getValue(), ordinal);
+            }
+            if (embed.getFooter() != null) {
+                addText(embed.getFooter().getText(), ordinal);
+            }
+        }
+    }
+
+    private void addText(String text, int ordinal) {
+        TranscriptSearchIndex.forEachTerm(text, TranscriptSearchIndex.MIN_TERM_LENGTH,
+                term -> postings.computeIfAbsent(term, ignored -> new Postings(new int[4], 0)).add(ordinal));
+    }
+
+    /**
+     * Write the index into the page for the search box, as json that the browser does not parse until the first search.
+     * <p>
+     * Message ids are hex deltas to the previous one, as snowflakes do not fit into javascript numbers. Deltas wrap
+     * around 64 bits, thread blocks put later messages before earlier ones. Terms are
+     * sorted and separated by spaces, each with its message numbers as base 36 deltas.
+     */
+    void writeScript(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        writer.write("<script type=\"application/json\" id=\"chatlog-search-data\">{\"ids\":\"");
+        for (int i = 0; i < messageCount; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(Long.toHexString(messageIds[i] - (i > 0 ? messageIds[i - 1] : 0)));
+        }
+
+        String[] terms = sortedTerms();
+        writer.write("\",\"terms\":\"");
+        writer.write(String.join(" ", terms));
+        writer.write("\",\"postings\":\"");
+        for (int i = 0; i < terms.length; i++) {
+            if (i > 0) {
+                writer.write(' ');
+            }
+            Postings term = postings.get(terms[i]);
+            for (int j = 0; j < term.size; j++) {
+                if (j > 0) {
+                    writer.write(',');
+                }
+                writer.write(Integer.toString(term.ordinals[j] - (j > 0 ? term.ordinals[j - 1] : 0), 36));
+            }
+        }
+        writer.write("\"}</script>\n");
+        writer.flush();
+    }
+
+    /**
+     * Store the index next to a transcript, the previous one is replaced atomically
+     *
+     * @param transcript the transcript file
+     */
+    void write(Path transcript) throws IOException {
+        Path path = TranscriptSearchIndex.pathOf(transcript);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(TranscriptSearchIndex.MAGIC);
+            Varints.write(out, TranscriptSearchIndex.VERSION);
+            Varints.write(out, messageCount);
+            for (int i = 0; i < messageCount; i++) {
+                Varints.write(out, messageIds[i] - (i > 0 ? messageIds[i - 1] : 0));
+            }
+
+            String[] terms = sortedTerms();
+            Varints.write(out, terms.length);
+            String previous = "";
+            for (String term : terms) {
+                int shared = 0, max = Math.min(previous.length(), term.length());
+                while (shared < max && previous.charAt(shared) == term.charAt(shared)) {
+                    shared++;
+                }
+                if (shared > 0 && Character.isHighSurrogate(term.charAt(shared - 1))) {
+                    shared--;
+                }
+                byte[] suffix = term.substring(shared).getBytes(StandardCharsets.UTF_8);
+                Varints.write(out, shared);
+                Varints.write(out, suffix.length);
+                out.write(suffix);
+
+                Postings ordinals = postings.get(term);
+                Varints.write(out, ordinals.size);
+                for (int j = 0; j < ordinals.size; j++) {
+                    Varints.write(out, ordinals.ordinals[j] - (j > 0 ? ordinals.ordinals[j - 1] : 0));
+                }
+                previous = term;
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private String[] sortedTerms() {
+        String[] terms = postings.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        return terms;
+    }
+
+    /**
+     * Message numbers holding a term, ascending
+     */
+    private static final class Postings {
+
+        private int[] ordinals;
+        private int size;
+
+        private Postings(int[] ordinals, int size) {
+            this.ordinals = ordinals;
+            this.size = size;
+        }
+
+        void add(int ordinal) {
+            if (size > 0 && ordinals[size - 1] == ordinal) {
+                return;
+            }
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+    }
+}
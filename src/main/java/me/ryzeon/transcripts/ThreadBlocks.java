@@ -0,0 +1,44 @@
+package me.ryzeon.transcripts;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Threads shown below the message they were started from, see {@link TranscriptEngine#createThreadedTranscriptAsync}
+ */
+final class ThreadBlocks {
+
+    private static volatile byte[] script;
+
+    private ThreadBlocks() {
+    }
+
+    /**
+     * @return the styles of thread blocks and the script that opens a thread before {@code scrollToMessage} jumps into it
+     */
+    static byte[] script() {
+        byte[] threads = script;
+        if (threads == null) {
+            try (InputStream inputStream = ThreadBlocks.class.getClassLoader().getResourceAsStream("threads.html")) {
+                if (inputStream == null) {
+                    throw new IllegalArgumentException("file is not found: " + "threads.html");
+                }
+                script = threads = inputStream.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return threads;
+    }
+
+    /**
+     * @param baseName  the file name of the transcript without its extension
+     * @param threadId  the id of the thread
+     * @param extension the extension of the transcript, e.g. {@code .html}
+     * @return the file name of the transcript of a thread, e.g. {@code ticket-thread-123.html}
+     */
+    static String fileName(String baseName, long threadId, String extension) {
+        return baseName + "-thread-" + Long.toUnsignedString(threadId) + extension;
+    }
+}
@@ -0,0 +1,17 @@
+package me.ryzeon.transcripts;
+
+/**
+ * Where the messages of a thread are shown, see {@link TranscriptEngine#createThreadedTranscriptAsync}
+ */
+public enum ThreadMode {
+
+    /**
+     * Below the message the thread was started from, collapsed until opened
+     */
+    INLINE,
+
+    /**
+     * In a transcript of its own, linked from the message the thread was started from
+     */
+    SEPARATE
+}
@@ -0,0 +1,92 @@
+package me.ryzeon.transcripts;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * How a transcript is encoded while it is written, the uncompressed html is never buffered as a whole
+ */
+public enum TranscriptCompression {
+
+    /**
+     * Plain html
+     */
+    NONE("transcript.html") {
+        @Override
+        OutputStream open(OutputStream out, int level, String entryName) {
+            return new FilterOutputStream(out) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+            };
+        }
+    },
+
+    /**
+     * Gzip compressed html, served as is by browsers with {@code Content-Encoding: gzip}
+     */
+    GZIP("transcript.html.gz") {
+        @Override
+        OutputStream open(OutputStream out, int level, String entryName) throws IOException {
+            return new GZIPOutputStream(out, 1 << 16) {
+                {
+                    def.setLevel(level);
+                }
+            };
+        }
+    },
+
+    /**
+     * Zip archive, the transcript and any additional parts are entries of it
+     */
+    ZIP("transcript.zip") {
+        @Override
+        OutputStream open(OutputStream out, int level, String entryName) throws IOException {
+            ZipOutputStream zip = new ZipOutputStream(out);
+            zip.setLevel(level);
+            zip.putNextEntry(new ZipEntry(entryName));
+            return zip;
+        }
+    };
+
+    private final String defaultFileName;
+
+    TranscriptCompression(String defaultFileName) {
+        this.defaultFileName = defaultFileName;
+    }
+
+    /**
+     * @return the file name used when none is given
+     */
+    public String getDefaultFileName() {
+        return defaultFileName;
+    }
+
+    /**
+     * Wrap a stream so everything written to it is encoded
+     *
+     * @param out       the target stream, it is not closed by {@link #finish(OutputStream)}
+     * @param level     the deflate level, from 0 to 9 or -1 for the default
+     * @param entryName the name of the html inside an archive
+     * @return the encoding stream
+     */
+    abstract OutputStream open(OutputStream out, int level, String entryName) throws IOException;
+
+    /**
+     * Write the trailer of an encoding stream without closing the target stream
+     *
+     * @param encoder the stream returned by {@link #open(OutputStream, int, String)}
+     */
+    void finish(OutputStream encoder) throws IOException {
+        if (encoder instanceof DeflaterOutputStream deflater) {
+            deflater.finish();
+        }
+        encoder.flush();
+    }
+}
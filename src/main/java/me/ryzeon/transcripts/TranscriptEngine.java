@@ -0,0 +1,1852 @@
+package me.ryzeon.transcripts;
+
+import lombok.Getter;
+import me.ryzeon.transcripts.assets.Asset;
+import me.ryzeon.transcripts.assets.AssetCache;
+import me.ryzeon.transcripts.assets.AssetMode;
+import me.ryzeon.transcripts.author.AuthorProfile;
+import me.ryzeon.transcripts.author.AuthorProfileCache;
+import me.ryzeon.transcripts.fetch.MessagePageSource;
+import me.ryzeon.transcripts.metrics.TranscriptMetrics;
+import me.ryzeon.transcripts.fetch.PagePipeline;
+import me.ryzeon.transcripts.fetch.ThreadFetcher;
+import me.ryzeon.transcripts.model.TranscriptAttachment;
+import me.ryzeon.transcripts.model.TranscriptChannel;
+import me.ryzeon.transcripts.model.TranscriptMessage;
+import me.ryzeon.transcripts.snapshot.SnapshotReader;
+import me.ryzeon.transcripts.snapshot.SnapshotWriter;
+import me.ryzeon.transcripts.template.TranscriptTemplate;
+import me.ryzeon.transcripts.utils.format.AttachmentClassifier;
+import me.ryzeon.transcripts.utils.io.CountingOutputStream;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.*;
+import net.dv8tion.jda.api.entities.channel.attribute.IThreadContainer;
+import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildChannel;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildMessageChannel;
+import net.dv8tion.jda.api.utils.FileUpload;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+
+/**
+ * Renders transcripts. Engines are immutable and safe to use from many threads at once, one engine usually serves a
+ * whole application.
+ * <p>
+ * The template, the markdown formatter and the default options are fixed when the engine is built. Building an engine
+ * also warms it up, the template and page scripts are loaded and a small transcript is rendered, so the first
+ * transcript after startup renders as fast as later ones.
+ */
+@Getter
+public final class TranscriptEngine {
+
+    private static final int WARM_UP_MESSAGES = 256;
+    private static final int WARM_UP_ROUNDS = 4;
+
+    /**
+     * The template of renders whose options set none
+     */
+    private final TranscriptTemplate template;
+
+    /**
+     * The markdown formatter of renders whose options set none
+     */
+    private final MarkdownFormatter markdownFormatter;
+
+    /**
+     * The options of renders that are given none
+     */
+    private final TranscriptOptions defaults;
+
+    private TranscriptEngine(Builder builder) {
+        this.template = builder.template != null ? builder.template : TranscriptTemplate.defaultTemplate();
+        this.markdownFormatter = builder.markdownFormatter;
+        this.defaults = builder.defaults;
+        if (builder.warmUp) {
+            warmUp();
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return a builder of an engine like this one, not warmed up again unless asked to
+     */
+    public Builder toBuilder() {
+        return new Builder()
+                .template(template)
+                .markdownFormatter(markdownFormatter)
+                .defaults(defaults)
+                .warmUp(false);
+    }
+
+    private void handleFooter(RenderSession session, RenderContext context, MessageEmbed embed) {
+        MessageEmbed.Footer footer = Objects.requireNonNull(embed.getFooter());
+        context.append("<div class=\"chatlog__embed-footer\">\n");
+
+        if (footer.getIconUrl() != null) {
+            context.append("<img class=\"chatlog__embed-footer-icon\"")
+                    .attribute("src", session.asset(footer.getIconUrl()))
+                    .append(" alt=\"Footer icon\" loading=\"lazy\">");
+        }
+
+        context.append("<span class=\"chatlog__embed-footer-text\">").text(footer.getText());
+        if (embed.getTimestamp() != null) {
+            context.append(" • ").time(embed.getTimestamp());
+        }
+        context.append("</span>\n</div>\n");
+    }
+
+    private void handleEmbedImage(RenderSession session, RenderContext context, MessageEmbed embed) {
+        context.append("<div class=\"chatlog__embed-image-container\">\n<a class=\"chatlog__embed-image-link\"")
+                .attribute("href", embed.getImage().getUrl())
+                .append("><img class=\"chatlog__embed-image\"")
+                .attribute("src", session.asset(embed.getImage().getUrl()))
+                .append(" alt=\"Image\" loading=\"lazy\"></a>\n</div>\n");
+    }
+
+    private void handleEmbedThumbnail(RenderSession session, RenderContext context, MessageEmbed embed) {
+        context.append("<div class=\"chatlog__embed-thumbnail-container\">\n<a class=\"chatlog__embed-thumbnail-link\"")
+                .attribute("href", embed.getThumbnail().getUrl())
+                .append("><img class=\"chatlog__embed-thumbnail\"")
+                .attribute("src", session.asset(embed.getThumbnail().getUrl()))
+                .append(" alt=\"Thumbnail\" loading=\"lazy\"></a>\n</div>\n");
+    }
+
+    private void handleEmbedFields(RenderSession session, RenderContext context, MessageEmbed embed) {
+        context.append("<div class=\"chatlog__embed-fields\">\n");
+
+        for (MessageEmbed.Field field : embed.getFields()) {
+            context.append("<div class=\"chatlog__embed-field\">\n");
+
+            // Field name
+            context.append("<div class=\"chatlog__embed-field-name\">\n<div class=\"markdown preserve-whitespace\">")
+                    .text(field.getName())
+                    .append("</div>\n</div>\n");
+
+            // Field value
+            context.append("<div class=\"chatlog__embed-field-value\">\n<div class=\"markdown preserve-whitespace\">");
+            session.format(field.getValue(), context.html());
+            context.append("</div>\n</div>\n");
+
+            context.append("</div>\n");
+        }
+
+        context.append("</div>\n");
+    }
+
+    private void handleEmbedDescription(RenderSession session, RenderContext context, MessageEmbed embed) {
+        context.append("<div class=\"chatlog__embed-description\">\n<div class=\"markdown preserve-whitespace\">");
+        session.format(embed.getDescription(), context.html());
+        context.append("</div>\n</div>\n");
+    }
+
+    private void handleEmbedTitle(RenderSession session, RenderContext context, MessageEmbed embed) {
+        context.append("<div class=\"chatlog__embed-title\">\n");
+
+        if (embed.getUrl() != null) {
+            context.append("<a class=\"chatlog__embed-title-link\"").attribute("href", embed.getUrl()).append('>');
+        }
+        context.append("<div class=\"markdown preserve-whitespace\">");
+        session.format(embed.getTitle(), context.html());
+        context.append("</div>");
+        if (embed.getUrl() != null) {
+            context.append("</a>");
+        }
+
+        context.append("\n</div>\n");
+    }
+
+    private void handleEmbedAuthor(RenderSession session, RenderContext context, MessageEmbed embed) {
+        MessageEmbed.AuthorInfo author = embed.getAuthor();
+        context.append("<div class=\"chatlog__embed-author\">\n");
+
+        if (author.getIconUrl() != null) {
+            context.append("<img class=\"chatlog__embed-author-icon\"")
+                    .attribute("src", session.asset(author.getIconUrl()))
+                    .append(" alt=\"Author icon\" loading=\"lazy\">");
+        }
+
+        context.append("<span class=\"chatlog__embed-author-name\">");
+        if (author.getUrl() != null) {
+            context.append("<a class=\"chatlog__embed-author-name-link\"")
+                    .attribute("href", author.getUrl())
+                    .append('>')
+                    .text(author.getName())
+                    .append("</a>");
+        } else {
+            context.text(author.getName());
+        }
+        context.append("</span>\n</div>\n");
+    }
+
+    private void handleUnknownAttachmentTypes(RenderSession session, RenderContext context, TranscriptAttachment attach) {
+        context.append("<div class=\"chatlog__attachment-generic\">\n"
+                + "<svg class=\"chatlog__attachment-generic-icon\">\n<use xlink:href=\"#icon-attachment\"></use>\n</svg>\n"
+                + "<div class=\"chatlog__attachment-generic-name\">\n<a");
+
+        String href = session.asset(attach.url());
+        context.attribute("href", href);
+        if (!href.equals(attach.url())) {
+            context.attribute("download", attach.fileName()); // browsers do not open data uris
+        }
+        context.append('>').text(attach.fileName()).append("</a>\n</div>\n");
+
+        context.append("<div class=\"chatlog__attachment-generic-size\">");
+        Formatter.formatBytes(attach.size(), context.html());
+        context.append("</div>\n</div>\n");
+    }
+
+    private void handleDocuments(RenderSession session, RenderContext context, TranscriptAttachment attach) {
+        context.append("<object class=\"chatlog__attachment-media\"")
+                .attribute("data", session.asset(attach.url()))
+                .attribute("type", attach.contentType());
+        attachmentTitle(context, "Document: ", attach).append(">\n");
+
+        // shown by browsers that cannot preview the document
+        handleUnknownAttachmentTypes(session, context, attach);
+        context.append("</object>\n");
+    }
+
+    private void handleAudios(RenderSession session, RenderContext context, TranscriptAttachment attach) {
+        context.append("<audio class=\"chatlog__attachment-media\"")
+                .attribute("src", session.asset(attach.url()))
+                .append(" alt=\"Audio attachment\" controls");
+        attachmentTitle(context, "Audio: ", attach).append("></audio>\n");
+    }
+
+    private void handleVideos(RenderSession session, RenderContext context, TranscriptAttachment attach) {
+        context.append("<video class=\"chatlog__attachment-media\"")
+                .attribute("src", session.asset(attach.url()))
+                .append(" alt=\"Video attachment\" controls");
+        attachmentTitle(context, "Video: ", attach).append("></video>\n");
+    }
+
+    private void handleImages(RenderSession session, RenderContext context, TranscriptAttachment attach) {
+        context.append("<a><img class=\"chatlog__attachment-media\"")
+                .attribute("src", session.asset(attach.url()))
+                .append(" alt=\"Image attachment\" loading=\"lazy\"");
+        attachmentTitle(context, "Image: ", attach).append("></a>\n");
+    }
+
+    /**
+     * Append the title attribute of an attachment, e.g. {@code title="Image: cat.png120.6 KB"}
+     */
+    private RenderContext attachmentTitle(RenderContext context, String kind, TranscriptAttachment attach) {
+        context.append(" title=\"").append(kind).text(attach.fileName());
+        Formatter.formatBytes(attach.size(), context.html());
+        return context.append('"');
+    }
+
+    /**
+     * Render what a reply shows of the message it refers to. Messages in the transcript are previewed from the
+     * {@link ReferenceIndex} and linked, others from the copy the reply came with.
+     */
+    private void handleMessageReferences(RenderSession session, RenderContext context, TranscriptMessage message) {
+        ReferenceIndex.Preview preview = session.referencePreview(message.referenceId());
+        boolean linked = preview != null;
+        if (!linked) {
+            preview = ReferenceIndex.Preview.of(message.reference());
+        }
+
+        context.append("<div class=\"chatlog__reference-symbol\"></div>\n<div class=\"chatlog__reference\">\n");
+        AuthorProfile author = preview.author();
+        if (author != null) {
+            context.append("<img class=\"chatlog__reference-avatar\" alt=\"Avatar\" loading=\"lazy\"");
+            String avatarId = session.assetTables() != null ? session.assetTables().avatarId(author.avatarUrl()) : null;
+            if (avatarId != null) {
+                context.append(" data-avatar=\"").append(avatarId).append('"');
+            } else {
+                context.attribute("src", session.asset(author.avatarUrl()));
+            }
+            context.append(">\n<span class=\"chatlog__reference-name");
+            if (author.colorHex() != null && session.assetTables() != null) {
+                AssetTables.roleColorClass(author.colorHex(), context.append(' ').html());
+            }
+            context.append('"').attribute("title", author.displayName());
+            if (author.colorHex() != null && session.assetTables() == null) {
+                context.attribute("style", "color: #" + author.colorHex());
+            }
+            context.append('>').text(author.name()).append("</span>\n");
+        }
+
+        context.append("<div class=\"chatlog__reference-content\">\n<span class=\"chatlog__reference-link\"");
+        if (linked) {
+            context.append(" onclick=\"scrollToMessage(event, '").append(Long.toUnsignedString(message.referenceId())).append("')\"");
+        }
+        context.append("><em>");
+        if (preview.excerpt() != null) {
+            context.text(preview.excerpt());
+        } else {
+            context.append("Click to see attachment");
+        }
+        context.append("</em></span>\n</div>\n</div>\n");
+    }
+
+    public FileUpload createTranscript(GuildMessageChannel channel) throws IOException {
+        return createTranscript(channel, null);
+    }
+
+    public FileUpload createTranscript(GuildMessageChannel channel, String fileName) throws IOException {
+        return createTranscript(channel, fileName, defaults);
+    }
+
+    public FileUpload createTranscript(GuildMessageChannel channel, String fileName, TranscriptOptions options) throws IOException {
+        long start = System.nanoTime();
+        List<Message> messages = channel.getIterableHistory().stream().collect(Collectors.toList());
+        long fetchNanos = System.nanoTime() - start;
+
+        TranscriptOutputStream outputStream = new TranscriptOutputStream();
+        writeTranscript(messages, outputStream, options, fetchNanos);
+        return FileUpload.fromData(outputStream.toInputStream(),
+                fileName != null ? fileName : options.getCompression().getDefaultFileName());
+    }
+
+    /**
+     * Fetch and render a channel without blocking, see {@link #writeTranscriptAsync(GuildChannel, MessagePageSource, OutputStream, TranscriptOptions)}
+     *
+     * @param channel the channel to render
+     * @return the transcript, once every page was rendered
+     */
+    public CompletableFuture<FileUpload> createTranscriptAsync(GuildMessageChannel channel) {
+        return createTranscriptAsync(channel, null, defaults);
+    }
+
+    public CompletableFuture<FileUpload> createTranscriptAsync(GuildMessageChannel channel, String fileName) {
+        return createTranscriptAsync(channel, fileName, defaults);
+    }
+
+    public CompletableFuture<FileUpload> createTranscriptAsync(GuildMessageChannel channel, String fileName, TranscriptOptions options) {
+        TranscriptOutputStream outputStream = new TranscriptOutputStream();
+        MessagePageSource pages = MessagePageSource.of(channel.getIterableHistory(), options.getPageSize());
+        return writeTranscriptAsync(channel, pages, outputStream, options)
+                .thenApply(stats -> FileUpload.fromData(outputStream.toInputStream(),
+                        fileName != null ? fileName : options.getCompression().getDefaultFileName()));
+    }
+
+    /**
+     * Fetch and render a channel together with its threads, or every post of a forum channel.
+     * <p>
+     * Threads are fetched {@link TranscriptOptions#getThreadConcurrency()} at a time and render concurrently on
+     * {@link TranscriptOptions#getExecutor()}, or the common pool, each on a single thread. A thread is shown below the
+     * message it was started from, as a collapsed block of its messages or as a link to a transcript of its own.
+     * A forum channel holds no messages itself, its transcript shows the first message of every post. Threads whose
+     * first message is not in the transcript are shown below its last message.
+     *
+     * @param channel  the channel with threads, e.g. a text or forum channel
+     * @param fileName the file name of the transcript, transcripts of threads are named after it, e.g. {@code ticket.html}
+     *                 gives {@code ticket-thread-123.html}. Null uses the default of the compression.
+     * @param mode     whether threads are rendered into the transcript or into transcripts of their own
+     * @param options  the render options
+     * @return a future of the transcript, followed by the transcripts of the threads with {@link ThreadMode#SEPARATE}
+     */
+    public CompletableFuture<List<FileUpload>> createThreadedTranscriptAsync(IThreadContainer channel, String fileName, ThreadMode mode,
+                                                                            TranscriptOptions options) {
+        Objects.requireNonNull(mode, "mode");
+        Executor executor = options.getExecutor() != null ? options.getExecutor() : ForkJoinPool.commonPool();
+        long start = System.nanoTime();
+        CompletableFuture<List<Message>> history = channel instanceof GuildMessageChannel messageChannel
+                ? MessagePageSource.of(messageChannel.getIterableHistory(), options.getPageSize()).collect()
+                : CompletableFuture.completedFuture(List.of());
+        return ThreadFetcher.threads(channel)
+                .thenCompose(threads -> ThreadFetcher.histories(threads, options.getPageSize(), options.getThreadConcurrency()))
+                .thenCombine(history, (threads, messages) -> {
+                    List<Message> shown = new ArrayList<>(messages);
+                    Map<ThreadChannel, List<Message>> threadMessages = new LinkedHashMap<>();
+                    for (Map.Entry<ThreadChannel, List<Message>> thread : threads.entrySet()) {
+                        long threadId = thread.getKey().getIdLong();
+                        List<Message> replies = thread.getValue();
+                        if (!(channel instanceof GuildMessageChannel)) {
+                            // a post starts with a message of its own id, which stands for it in the forum transcript
+                            for (Message message : replies) {
+                                if (message.getIdLong() == threadId) {
+                                    shown.add(message);
+                                }
+                            }
+                            if (mode == ThreadMode.INLINE) {
+                                replies = replies.stream().filter(message -> message.getIdLong() != threadId).toList();
+                            }
+                        }
+                        threadMessages.put(thread.getKey(), replies);
+                    }
+                    if (shown.isEmpty()) {
+                        throw new IllegalArgumentException("No messages to generate a transcript from");
+                    }
+                    return new ThreadedMessages(shown, threadMessages, System.nanoTime() - start);
+                })
+                .thenCompose(fetched -> mode == ThreadMode.INLINE
+                        ? renderInlineThreads(channel, fetched, fileName, options, executor)
+                        : renderSeparateThreads(channel, fetched, fileName, options, executor));
+    }
+
+    /**
+     * Render the blocks of every thread concurrently, then the transcript with the blocks below their messages
+     */
+    private CompletableFuture<List<FileUpload>> renderInlineThreads(IThreadContainer channel, ThreadedMessages fetched, String fileName,
+                                                                    TranscriptOptions options, Executor executor) {
+        ThreadFiles files = new ThreadFiles(fileName, options);
+        RenderSession session = new RenderSession(channel, options.toBuilder().executor(null).build(), markdownFormatter);
+        try {
+            session.addTime(TranscriptMetrics.Phase.FETCH, fetched.fetchNanos());
+            List<TranscriptMessage> sorted = sortMessages(session, fetched.messages());
+            session.prepareAssets(sorted);
+            int messageCount = sorted.size();
+            List<Long> startedFrom = new ArrayList<>(fetched.threads().size());
+            List<CompletableFuture<RenderSession.ThreadBlock>> blocks = new ArrayList<>(fetched.threads().size());
+            for (Map.Entry<ThreadChannel, List<Message>> thread : fetched.threads().entrySet()) {
+                List<TranscriptMessage> replies = sortMessages(session, thread.getValue());
+                session.prepareAssets(replies);
+                messageCount += replies.size();
+                startedFrom.add(startedFrom(sorted, thread.getKey().getIdLong()));
+                blocks.add(CompletableFuture.supplyAsync(
+                        () -> renderThreadBlock(session, thread.getKey(), replies.size(), replies, null), executor));
+            }
+            int totalMessages = messageCount;
+            return CompletableFuture.allOf(blocks.toArray(CompletableFuture[]::new))
+                    .thenApplyAsync(ignored -> {
+                        for (int i = 0; i < blocks.size(); i++) {
+                            session.addThread(startedFrom.get(i), blocks.get(i).join());
+                        }
+                        try {
+                            return List.of(writeThreadedPage(session, sorted, totalMessages, files.fileName(), files.htmlName(), true));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, executor)
+                    .whenComplete((uploads, error) -> session.close());
+        } catch (RuntimeException e) {
+            session.close();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Render the transcript with links to the threads and the transcript of every thread concurrently
+     */
+    private CompletableFuture<List<FileUpload>> renderSeparateThreads(IThreadContainer channel, ThreadedMessages fetched, String fileName,
+                                                                      TranscriptOptions options, Executor executor) {
+        ThreadFiles files = new ThreadFiles(fileName, options);
+        TranscriptOptions threadOptions = options.toBuilder().executor(null).build();
+        List<CompletableFuture<FileUpload>> uploads = new ArrayList<>(fetched.threads().size() + 1);
+        uploads.add(CompletableFuture.supplyAsync(() -> {
+            try (RenderSession session = new RenderSession(channel, threadOptions, markdownFormatter)) {
+                session.addTime(TranscriptMetrics.Phase.FETCH, fetched.fetchNanos());
+                List<TranscriptMessage> sorted = sortMessages(session, fetched.messages());
+                session.prepareAssets(sorted);
+                for (Map.Entry<ThreadChannel, List<Message>> thread : fetched.threads().entrySet()) {
+                    long threadId = thread.getKey().getIdLong();
+                    String href = thread.getValue().isEmpty() ? null : files.threadHtmlName(threadId);
+                    session.addThread(startedFrom(sorted, threadId),
+                            renderThreadBlock(session, thread.getKey(), thread.getValue().size(), null, href));
+                }
+                return writeThreadedPage(session, sorted, sorted.size(), files.fileName(), files.htmlName(), true);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor));
+
+        for (Map.Entry<ThreadChannel, List<Message>> thread : fetched.threads().entrySet()) {
+            if (thread.getValue().isEmpty()) {
+                continue;
+            }
+            long threadId = thread.getKey().getIdLong();
+            uploads.add(CompletableFuture.supplyAsync(() -> {
+                try (RenderSession session = new RenderSession(thread.getKey(), threadOptions, markdownFormatter)) {
+                    List<TranscriptMessage> sorted = sortMessages(session, thread.getValue());
+                    session.prepareAssets(sorted);
+                    return writeThreadedPage(session, sorted, sorted.size(), files.threadFileName(threadId),
+                            files.threadHtmlName(threadId), false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor));
+        }
+        return CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> uploads.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Render one page of a threaded transcript, the threads shown below its messages were added to the session
+     *
+     * @param htmlName the name of the html inside a zip
+     * @param threads  whether the page shows threads
+     */
+    private FileUpload writeThreadedPage(RenderSession session, List<TranscriptMessage> sorted, int messageCount, String fileName,
+                                         String htmlName, boolean threads) throws IOException {
+        TranscriptOptions options = session.getOptions();
+        TranscriptTemplate template = template(options);
+        TranscriptOutputStream outputStream = new TranscriptOutputStream();
+        TranscriptSink sink = new TranscriptSink(outputStream, options, htmlName);
+        Function<TranscriptTemplate.Slot, String> slots = slotValues(session, messageCount);
+        template.writeHead(sink.html(), slots);
+        writeScripts(sink.html(), options, threads);
+        writeChatlog(sink.html(), session, sorted, true);
+        writePageData(sink.html(), session);
+        template.writeTail(sink.html(), slots);
+        writeBundle(sink, session);
+        session.report(sink.finish(messageCount));
+        return FileUpload.fromData(outputStream.toInputStream(), fileName);
+    }
+
+    /**
+     * Render a thread as shown below the message it was started from
+     *
+     * @param messageCount the amount of messages in the thread
+     * @param messages     the messages of the thread to render into a collapsed block, null if the thread is linked
+     * @param href         the transcript of a linked thread, null if it has none
+     */
+    private RenderSession.ThreadBlock renderThreadBlock(RenderSession session, ThreadChannel thread, int messageCount,
+                                                        List<TranscriptMessage> messages, String href) {
+        List<List<TranscriptMessage>> groups = messages != null
+                ? groupMessages(messages, session.getOptions().getGroupWindow())
+                : List.of();
+        RenderContext context = RenderContext.acquire();
+        try {
+            String threadId = Long.toUnsignedString(thread.getIdLong());
+            if (messages != null) {
+                context.append("<details class=\"chatlog__thread\" id=\"thread-").append(threadId)
+                        .append("\">\n<summary class=\"chatlog__thread-summary\"><span class=\"chatlog__thread-name\">");
+            } else if (href != null) {
+                context.append("<div class=\"chatlog__thread\" id=\"thread-").append(threadId)
+                        .append("\">\n<a class=\"chatlog__thread-name\"").attribute("href", href).append('>');
+            } else {
+                context.append("<div class=\"chatlog__thread\" id=\"thread-").append(threadId)
+                        .append("\">\n<span class=\"chatlog__thread-name\">");
+            }
+            context.text(thread.getName()).append(href != null ? "</a>" : "</span>")
+                    .append("<span class=\"chatlog__thread-count\">")
+                    .append(messageCount == 1 ? "1 message" : messageCount + " messages")
+                    .append("</span>");
+
+            if (messages != null) {
+                context.append("</summary>\n<div class=\"chatlog__thread-messages\">\n");
+                for (List<TranscriptMessage> group : groups) {
+                    renderMessageGroup(session, context, group);
+                }
+                context.append("</div>\n</details>\n");
+            } else {
+                context.append("\n</div>\n");
+            }
+            return new RenderSession.ThreadBlock(context.html().toString(), groups);
+        } finally {
+            context.release();
+        }
+    }
+
+    /**
+     * @param sorted   the messages of a transcript, sorted
+     * @param threadId the id of a thread, which is the id of the message it was started from
+     * @return the id of the message the thread is shown below, the last message if the thread was not started from one
+     */
+    private long startedFrom(List<TranscriptMessage> sorted, long threadId) {
+        int low = 0, high = sorted.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long id = sorted.get(middle).id();
+            if (id < threadId) {
+                low = middle + 1;
+            } else if (id > threadId) {
+                high = middle - 1;
+            } else {
+                return id;
+            }
+        }
+        return sorted.get(sorted.size() - 1).id();
+    }
+
+    /**
+     * Fetch a channel and render it into parts, see {@link #generateShardsFromMessages(Collection, String, TranscriptSharding, TranscriptOptions)}
+     */
+    public List<FileUpload> createShardedTranscript(GuildMessageChannel channel, String fileName, TranscriptSharding sharding,
+                                                    TranscriptOptions options) throws IOException {
+        List<Message> messages = channel.getIterableHistory().stream().collect(Collectors.toList());
+        return generateShardsFromMessages(messages, fileName, sharding, options);
+    }
+
+    /**
+     * Fetch and render a channel into parts without blocking, see
+     * {@link #createShardedTranscriptAsync(GuildChannel, MessagePageSource, String, TranscriptSharding, TranscriptOptions)}
+     */
+    public CompletableFuture<List<FileUpload>> createShardedTranscriptAsync(GuildMessageChannel channel, String fileName,
+                                                                           TranscriptSharding sharding, TranscriptOptions options) {
+        MessagePageSource pages = MessagePageSource.of(channel.getIterableHistory(), options.getPageSize());
+        return createShardedTranscriptAsync(channel, pages, fileName, sharding, options);
+    }
+
+    /**
+     * Render a channel history into parts page by page while the next page is being fetched, like
+     * {@link #writeTranscriptAsync(GuildChannel, MessagePageSource, OutputStream, TranscriptOptions)}.
+     * Only the part being written and the fetched pages are held besides the finished parts.
+     *
+     * @param channel  the channel the messages belong to
+     * @param pages    the history, oldest page first
+     * @param fileName the file name parts are numbered after, e.g. {@code ticket.html} gives {@code ticket-1.html},
+     *                 null uses the default of the compression
+     * @param sharding how the transcript is split
+     * @param options  the render options
+     * @return a future of the parts in order followed by the index page
+     */
+    public CompletableFuture<List<FileUpload>> createShardedTranscriptAsync(GuildChannel channel, MessagePageSource pages, String fileName,
+                                                                           TranscriptSharding sharding, TranscriptOptions options) {
+        RenderSession session = new RenderSession(channel, options, markdownFormatter);
+        TranscriptShards shards;
+        try {
+            requireShardableAssets(options);
+            shards = newShards(session, fileName, sharding);
+        } catch (IOException | RuntimeException e) {
+            session.close();
+            return CompletableFuture.failedFuture(e);
+        }
+        Executor executor = options.getExecutor() != null ? options.getExecutor() : ForkJoinPool.commonPool();
+        return new PagePipeline(pages, options.getPrefetchPages(), executor, page -> {
+            List<TranscriptMessage> messages = session.adapt(page);
+            session.prepareAssets(messages);
+            for (List<TranscriptMessage> group : groupMessages(messages, options.getGroupWindow())) {
+                shards.append(group, renderChunk(session, List.of(group), false));
+            }
+        })
+                .start()
+                .thenApply(ignored -> {
+                    try {
+                        List<FileUpload> uploads = shards.finish();
+                        session.report(shards.stats());
+                        return uploads;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .whenComplete((uploads, error) -> session.close());
+    }
+
+    /**
+     * Render messages into several self-contained transcripts, e.g. to stay below the upload limit of a guild.
+     * <p>
+     * Message groups are streamed into the current part and every part is encoded once, as it is written.
+     * Each part links to the previous and next part and to an index page listing every part with its time span.
+     * Parts are rendered without lazy loading.
+     *
+     * @param messages the messages to render
+     * @param fileName the file name parts are numbered after, e.g. {@code ticket.html} gives {@code ticket-1.html}
+     *                 and {@code ticket-index.html}, null uses the default of the compression
+     * @param sharding how the transcript is split
+     * @param options  the render options, assets cannot be bundled
+     * @return the parts in order, followed by the index page
+     */
+    public List<FileUpload> generateShardsFromMessages(Collection<Message> messages, String fileName, TranscriptSharding sharding,
+                                                       TranscriptOptions options) throws IOException {
+        if (messages.isEmpty()) {
+            throw new IllegalArgumentException("No messages to generate a transcript from");
+        }
+        requireShardableAssets(options);
+
+        GuildChannel channel = messages.iterator().next().getChannel().asGuildMessageChannel();
+        try (RenderSession session = new RenderSession(channel, options, markdownFormatter)) {
+            List<TranscriptMessage> sorted = sortMessages(session, messages);
+            session.prepareAssets(sorted);
+            TranscriptShards shards = newShards(session, fileName, sharding);
+            writeShards(shards, session, sorted);
+            List<FileUpload> uploads = shards.finish();
+            session.report(shards.stats());
+            return uploads;
+        }
+    }
+
+    private TranscriptShards newShards(RenderSession session, String fileName, TranscriptSharding sharding) throws IOException {
+        TranscriptOptions options = session.getOptions();
+        TranscriptTemplate template = template(options);
+        return new TranscriptShards(options, template, Objects.requireNonNull(sharding, "sharding"),
+                title -> slotValues(session, title), session.getChannel().name(), fileName);
+    }
+
+    /**
+     * Render a channel history page by page while the next page is being fetched.
+     * <p>
+     * At most {@link TranscriptOptions#getPrefetchPages()} pages wait to be rendered, every other message is
+     * already written and released. Pages render on {@link TranscriptOptions#getExecutor()}, or the common pool.
+     * The message count is unknown up front, so the title only holds the channel name.
+     *
+     * @param channel      the channel the messages belong to
+     * @param pages        the history, oldest page first
+     * @param outputStream the stream to write the html to, it is flushed but not closed
+     * @param options      the render options
+     * @return a future completed with the figures of the render once the whole transcript was written
+     */
+    public CompletableFuture<TranscriptStats> writeTranscriptAsync(GuildChannel channel, MessagePageSource pages,
+                                                                   OutputStream outputStream, TranscriptOptions options) {
+        TranscriptTemplate template = template(options);
+        Executor executor = options.getExecutor() != null ? options.getExecutor() : ForkJoinPool.commonPool();
+
+        TranscriptSink sink;
+        try {
+            sink = new TranscriptSink(outputStream, options);
+        } catch (IOException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        RenderSession session = new RenderSession(channel, options, markdownFormatter);
+        Function<TranscriptTemplate.Slot, String> slots = slotValues(session, -1);
+        long[] messageCount = {0};
+        MessagePageSource source = !session.isMeasuring() ? pages : () -> {
+            long start = System.nanoTime();
+            return pages.nextPage().whenComplete((page, error) ->
+                    session.addTime(TranscriptMetrics.Phase.FETCH, System.nanoTime() - start));
+        };
+        PagePipeline pipeline = new PagePipeline(source, options.getPrefetchPages(), executor, page -> {
+            List<TranscriptMessage> messages = session.adapt(page);
+            session.prepareAssets(messages);
+            boolean lazy = options.isLazyLoading() && messageCount[0] > 0;
+            List<List<TranscriptMessage>> groups = groupMessages(messages, options.getGroupWindow());
+            sink.html().write(renderChunk(session, groups, lazy));
+            session.indexForSearch(groups);
+            messageCount[0] += page.size();
+        });
+        return CompletableFuture
+                .runAsync(() -> {
+                    session.prepareAssets(List.of());
+                    try {
+                        template.writeHead(sink.html(), slots);
+                        writeScripts(sink.html(), options);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executor)
+                .thenCompose(ignored -> pipeline.start())
+                .thenApply(ignored -> {
+                    try {
+                        writePageData(sink.html(), session);
+                        template.writeTail(sink.html(), slots);
+                        writeBundle(sink, session);
+                        TranscriptStats stats = sink.finish(messageCount[0]);
+                        session.report(stats);
+                        return stats;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .whenComplete((stats, error) -> session.close());
+    }
+
+    public InputStream generateFromMessages(Collection<Message> messages) throws IOException {
+        return generateFromMessages(messages, defaults);
+    }
+
+    public InputStream generateFromMessages(Collection<Message> messages, TranscriptOptions options) throws IOException {
+        TranscriptOutputStream outputStream = new TranscriptOutputStream();
+        writeTranscript(messages, outputStream, options);
+        return outputStream.toInputStream();
+    }
+
+    public InputStream generateFromMessages(SnapshotReader snapshot) throws IOException {
+        return generateFromMessages(snapshot, defaults);
+    }
+
+    /**
+     * Render a transcript from a snapshot taken with {@link SnapshotWriter}, no JDA instance is needed
+     *
+     * @param snapshot the snapshot, read to its end but not closed
+     * @param options  the render options
+     */
+    public InputStream generateFromMessages(SnapshotReader snapshot, TranscriptOptions options) throws IOException {
+        TranscriptOutputStream outputStream = new TranscriptOutputStream();
+        writeTranscript(snapshot, outputStream, options);
+        return outputStream.toInputStream();
+    }
+
+    /**
+     * Render a snapshot into the given stream, see {@link #writeTranscript(Collection, OutputStream, TranscriptOptions)}.
+     * <p>
+     * Messages are read in batches of as many messages as the chunks rendered ahead hold, so only those are kept in
+     * memory. Batches end between chunks, so the output is the same as from the messages the snapshot was taken of.
+     *
+     * @param snapshot     the snapshot, read to its end but not closed
+     * @param outputStream the stream to write the html to, it is flushed but not closed
+     * @param options      the render options
+     * @return the figures of the render
+     */
+    public TranscriptStats writeTranscript(SnapshotReader snapshot, OutputStream outputStream, TranscriptOptions options) throws IOException {
+        if (!snapshot.hasNext()) {
+            throw new IllegalArgumentException("No messages to generate a transcript from");
+        }
+
+        TranscriptTemplate template = template(options);
+        int chunkSize = Math.max(1, options.getChunkSize());
+        int batchSize = chunkSize * Math.max(1, options.getMaxPendingChunks());
+
+        TranscriptSink sink = new TranscriptSink(outputStream, options);
+        try (RenderSession session = new RenderSession(snapshot.channel(), null, options, markdownFormatter)) {
+            Function<TranscriptTemplate.Slot, String> slots = slotValues(session, (int) snapshot.messageCount());
+            session.prepareAssets(List.of());
+            template.writeHead(sink.html(), slots);
+            writeScripts(sink.html(), options);
+
+            List<TranscriptMessage> batch = new ArrayList<>();
+            long messageCount = 0;
+            boolean firstBatch = true;
+            while (snapshot.hasNext()) {
+                batch.add(snapshot.next());
+                messageCount++;
+                if (batch.size() < batchSize && snapshot.hasNext()) {
+                    continue;
+                }
+                List<List<TranscriptMessage>> groups = groupMessages(batch, options.getGroupWindow());
+                int end = groups.size(), rendered = batch.size();
+                if (snapshot.hasNext()) {
+                    // the last group may go on in the next batch, and chunks end where they would in a single pass
+                    end = 0;
+                    rendered = 0;
+                    for (int i = 0, messages = 0; i < groups.size() - 1; i++) {
+                        messages += groups.get(i).size();
+                        if (messages >= chunkSize) {
+                            end = i + 1;
+                            rendered += messages;
+                            messages = 0;
+                        }
+                    }
+                    if (end == 0) {
+                        continue;
+                    }
+                }
+                session.prepareAssets(batch.subList(0, rendered));
+                writeGroups(sink.html(), session, groups.subList(0, end), firstBatch);
+                firstBatch = false;
+                batch = new ArrayList<>(batch.subList(rendered, batch.size()));
+            }
+            writePageData(sink.html(), session);
+            template.writeTail(sink.html(), slots);
+            writeBundle(sink, session);
+            TranscriptStats stats = sink.finish(messageCount);
+            session.report(stats);
+            return stats;
+        }
+    }
+
+    /**
+     * Render a transcript straight into a channel, see {@link #writeTranscript(Collection, OutputStream)}
+     *
+     * @param messages the messages to render
+     * @param channel  the channel to write the html to, it is not closed
+     */
+    public void writeTranscript(Collection<Message> messages, WritableByteChannel channel) throws IOException {
+        writeTranscript(messages, Channels.newOutputStream(channel), defaults);
+    }
+
+    public void writeTranscript(Collection<Message> messages, OutputStream outputStream) throws IOException {
+        writeTranscript(messages, outputStream, defaults);
+    }
+
+    /**
+     * Render a transcript message group by message group into the given stream.
+     * The compiled template is written around the chatlog, so no document holding every message is ever built.
+     * <p>
+     * Messages are rendered in chunks, on {@link TranscriptOptions#getExecutor()} when one is set,
+     * and the chunks are written back in order, so the output does not depend on the executor.
+     *
+     * @param messages     the messages to render
+     * @param outputStream the stream to write the html to, it is flushed but not closed
+     * @param options      the render options, including the {@link TranscriptCompression} of the output
+     * @return the figures of the render, e.g. the output size and throughput
+     */
+    public TranscriptStats writeTranscript(Collection<Message> messages, OutputStream outputStream, TranscriptOptions options) throws IOException {
+        return writeTranscript(messages, outputStream, options, 0);
+    }
+
+    private TranscriptStats writeTranscript(Collection<Message> messages, OutputStream outputStream, TranscriptOptions options,
+                                            long fetchNanos) throws IOException {
+        if (messages.isEmpty()) {
+            throw new IllegalArgumentException("No messages to generate a transcript from");
+        }
+
+        GuildChannel channel = messages.iterator().next().getChannel().asGuildMessageChannel();
+        TranscriptTemplate template = template(options);
+
+        TranscriptSink sink = new TranscriptSink(outputStream, options);
+        try (RenderSession session = new RenderSession(channel, options, markdownFormatter)) {
+            session.addTime(TranscriptMetrics.Phase.FETCH, fetchNanos);
+            List<TranscriptMessage> sorted = sortMessages(session, messages);
+            Function<TranscriptTemplate.Slot, String> slots = slotValues(session, messages.size());
+            session.prepareAssets(sorted);
+            template.writeHead(sink.html(), slots);
+            writeScripts(sink.html(), options);
+            writeChatlog(sink.html(), session, sorted, true);
+            writePageData(sink.html(), session);
+            template.writeTail(sink.html(), slots);
+            writeBundle(sink, session);
+            TranscriptStats stats = sink.finish(messages.size());
+            session.report(stats);
+            return stats;
+        }
+    }
+
+    /**
+     * Render a transcript into a file that can be extended later with {@link #appendToTranscript(Path, Collection, TranscriptOptions)}.
+     * A {@link TranscriptSidecar} is stored next to it. The title only holds the channel name since it is not rewritten by appends.
+     *
+     * @param messages the messages to render
+     * @param file     the file to write, it is replaced if it exists
+     * @param options  the render options
+     */
+    public void writeTranscript(Collection<Message> messages, Path file, TranscriptOptions options) throws IOException {
+        if (messages.isEmpty()) {
+            throw new IllegalArgumentException("No messages to generate a transcript from");
+        }
+
+        requireAppendableAssets(options);
+        requireIndexableMessages(options);
+
+        GuildChannel channel = messages.iterator().next().getChannel().asGuildMessageChannel();
+        TranscriptTemplate template = template(options);
+        long start = System.nanoTime();
+
+        try (RenderSession session = new RenderSession(channel, options, markdownFormatter)) {
+            List<TranscriptMessage> sorted = sortMessages(session, messages);
+            long chatlogEnd, size;
+            try (CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+                Function<TranscriptTemplate.Slot, String> slots = slotValues(session, -1);
+                session.prepareAssets(sorted);
+                template.writeHead(out, slots);
+                writeScripts(out, options);
+                if (options.isMessageIndex()) {
+                    try (TranscriptIndex.Writer index = new TranscriptIndex.Writer(file, 0)) {
+                        writeIndexedChatlog(out, session, sorted, index);
+                        index.commit();
+                    }
+                } else {
+                    Files.deleteIfExists(TranscriptIndex.pathOf(file));
+                    writeChatlog(out, session, sorted, true);
+                }
+                chatlogEnd = out.getCount();
+                writePageData(out, session);
+                template.writeTail(out, slots);
+                size = out.getCount();
+            }
+            writeSearchIndex(file, session);
+            writeAssetTables(file, session);
+            new TranscriptSidecar(sorted.get(sorted.size() - 1).id(), chatlogEnd, sorted.size()).write(file);
+            session.report(new TranscriptStats(sorted.size(), size, size, System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Add messages to a transcript written by {@link #writeTranscript(Collection, Path, TranscriptOptions)}.
+     * <p>
+     * Messages the transcript already holds are skipped, the rest is rendered and spliced in at the end of the chatlog.
+     * Earlier message groups are neither read nor rendered again, so the cost only depends on the new messages.
+     * The file and its index are only changed once the new messages rendered, the sidecar is replaced last.
+     *
+     * @param file     the transcript file
+     * @param messages the messages to add
+     * @param options  the render options
+     * @return the amount of messages added
+     */
+    public int appendToTranscript(Path file, Collection<Message> messages, TranscriptOptions options) throws IOException {
+        requireAppendableAssets(options);
+        requireIndexableMessages(options);
+        TranscriptSidecar sidecar = readAppendableSidecar(file);
+        List<Message> unseen = unseenMessages(messages, sidecar.lastMessageId());
+        if (unseen.isEmpty()) {
+            return 0;
+        }
+
+        try (TranscriptAppend append = new TranscriptAppend(file, sidecar, unseen.get(0).getChannel().asGuildMessageChannel(), options)) {
+            append.add(unseen);
+            return append.commit();
+        }
+    }
+
+    /**
+     * Fetch the messages sent after the newest message of a transcript and append them, see
+     * {@link #appendToTranscript(Path, Collection, TranscriptOptions)}
+     * <p>
+     * Every page is rendered into the same pending end of the transcript as it arrives, the file, its index, search
+     * index, asset tables and sidecar are only changed once after the last page. If a page fails, the transcript is
+     * left as it was and the future completes with the failure once nothing is rendered anymore. Updating again starts
+     * over from the newest message of the transcript.
+     *
+     * @param channel the channel the transcript was rendered from
+     * @param file    the transcript file
+     * @param options the render options
+     * @return a future completed with the amount of messages added
+     */
+    public CompletableFuture<Integer> updateTranscript(GuildMessageChannel channel, Path file, TranscriptOptions options) {
+        TranscriptSidecar sidecar;
+        try {
+            requireAppendableAssets(options);
+            requireIndexableMessages(options);
+            sidecar = readAppendableSidecar(file);
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        MessagePageSource pages = MessagePageSource.of(channel.getIterableHistory(), options.getPageSize(), sidecar.lastMessageId());
+        Executor executor = options.getExecutor() != null ? options.getExecutor() : ForkJoinPool.commonPool();
+
+        // opened with the first new message, so nothing is touched when there is none
+        TranscriptAppend[] append = {null};
+        return new PagePipeline(pages, options.getPrefetchPages(), executor, page -> {
+            List<Message> unseen = unseenMessages(page, append[0] != null ? append[0].lastMessageId() : sidecar.lastMessageId());
+            if (unseen.isEmpty()) {
+                return;
+            }
+            if (append[0] == null) {
+                append[0] = new TranscriptAppend(file, sidecar, unseen.get(0).getChannel().asGuildMessageChannel(), options);
+            }
+            append[0].add(unseen);
+        })
+                .start()
+                .thenApply(ignored -> {
+                    try {
+                        return append[0] != null ? append[0].commit() : 0;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .whenComplete((added, error) -> {
+                    if (append[0] != null) {
+                        try {
+                            append[0].close();
+                        } catch (IOException ignored) {
+                            // only the pending files are left behind
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Read the sidecar of a transcript that messages are appended to
+     */
+    private TranscriptSidecar readAppendableSidecar(Path file) throws IOException {
+        TranscriptSidecar sidecar = TranscriptSidecar.read(file);
+        if (Files.size(file) < sidecar.chatlogEnd()) {
+            throw new IOException("The transcript " + file + " ends before the chatlog end of its sidecar");
+        }
+        return sidecar;
+    }
+
+    /**
+     * @return the messages newer than the newest message of a transcript
+     */
+    private List<Message> unseenMessages(Collection<Message> messages, long lastMessageId) {
+        return messages.stream()
+                .filter(message -> Long.compareUnsigned(message.getIdLong(), lastMessageId) > 0)
+                .toList();
+    }
+
+    /**
+     * Take what the transcript shows of messages, oldest first. Ordered input such as a channel history is at most
+     * reversed, see {@link MessageOrder}.
+     */
+    private List<TranscriptMessage> sortMessages(RenderSession session, Collection<Message> messages) {
+        List<TranscriptMessage> adapted = session.adapt(messages);
+        long start = System.nanoTime();
+        MessageOrder.sort(adapted, TranscriptMessage::id);
+        session.addTime(TranscriptMetrics.Phase.SORT, System.nanoTime() - start);
+        return adapted;
+    }
+
+    /**
+     * Render the message groups of already sorted messages, chunk by chunk
+     *
+     * @param firstChunkShown whether the first chunk is rendered as elements when chunks are loaded lazily,
+     *                        false for chunks appended to a transcript
+     */
+    private void writeChatlog(OutputStream out, RenderSession session, List<TranscriptMessage> sorted, boolean firstChunkShown) throws IOException {
+        writeGroups(out, session, groupMessages(sorted, session.getOptions().getGroupWindow()), firstChunkShown);
+    }
+
+    private void writeGroups(OutputStream out, RenderSession session, List<List<TranscriptMessage>> groups, boolean firstChunkShown) throws IOException {
+        TranscriptOptions options = session.getOptions();
+        renderInChunks(session, groups, (chunk, index) -> {
+            boolean lazy = options.isLazyLoading() && (index > 0 || !firstChunkShown);
+            return renderChunk(session, chunk, lazy);
+        }, (chunk, html) -> {
+            out.write(html);
+            session.indexForSearch(chunk);
+        });
+    }
+
+    /**
+     * Render the message groups of already sorted messages like {@link #writeChatlog}, adding the byte ranges of
+     * every message and its group to an index
+     *
+     * @param out counts the bytes written to the transcript file so far
+     */
+    private void writeIndexedChatlog(CountingOutputStream out, RenderSession session, List<TranscriptMessage> sorted,
+                                     TranscriptIndex.Writer index) throws IOException {
+        renderInChunks(session, groupMessages(sorted, session.getOptions().getGroupWindow()),
+                (chunk, chunkIndex) -> renderChunk(session, chunk, false, true), (chunk, rendered) -> {
+                    long start = out.getCount();
+                    out.write(rendered.html());
+                    // every group has a mark at its start and end, and every message one before and after it
+                    int[] marks = rendered.marks();
+                    int mark = 0;
+                    for (List<TranscriptMessage> group : chunk) {
+                        long groupStart = start + marks[mark], groupEnd = start + marks[mark + 1 + 2 * group.size()];
+                        for (int m = 0; m < group.size(); m++) {
+                            index.add(group.get(m).id(), start + marks[mark + 1 + 2 * m], start + marks[mark + 2 + 2 * m],
+                                    groupStart, groupEnd);
+                        }
+                        mark += 2 + 2 * group.size();
+                    }
+                    session.indexForSearch(chunk);
+                });
+    }
+
+    /**
+     * Render message groups into the parts of a sharded transcript, each group on its own so parts can end after any
+     * of them
+     */
+    private void writeShards(TranscriptShards shards, RenderSession session, List<TranscriptMessage> sorted) throws IOException {
+        renderInChunks(session, groupMessages(sorted, session.getOptions().getGroupWindow()), (chunk, index) -> {
+            List<byte[]> html = new ArrayList<>(chunk.size());
+            for (List<TranscriptMessage> group : chunk) {
+                html.add(renderChunk(session, List.of(group), false));
+            }
+            return html;
+        }, (chunk, html) -> {
+            for (int i = 0; i < chunk.size(); i++) {
+                shards.append(chunk.get(i), html.get(i));
+            }
+        });
+    }
+
+    /**
+     * Split message groups into chunks of about {@link TranscriptOptions#getChunkSize()} messages and render them,
+     * on {@link TranscriptOptions#getExecutor()} when one is set. Rendered chunks are handed to the writer in order.
+     *
+     * @param renderer renders a chunk, given its index
+     * @param writer   receives every chunk with its rendered form
+     */
+    private <T> void renderInChunks(RenderSession session, List<List<TranscriptMessage>> groups,
+                                    BiFunction<List<List<TranscriptMessage>>, Integer, T> renderer, ChunkWriter<T> writer) throws IOException {
+        TranscriptOptions options = session.getOptions();
+        int chunkSize = Math.max(1, options.getChunkSize());
+
+        Deque<Map.Entry<List<List<TranscriptMessage>>, CompletableFuture<T>>> pending = new ArrayDeque<>();
+        try {
+            int from = 0, messages = 0, chunks = 0;
+            for (int i = 0; i < groups.size(); i++) {
+                messages += groups.get(i).size();
+                if (messages < chunkSize && i < groups.size() - 1) {
+                    continue;
+                }
+                List<List<TranscriptMessage>> chunk = groups.subList(from, i + 1);
+                from = i + 1;
+                messages = 0;
+                int index = chunks++;
+                if (options.getExecutor() == null) {
+                    writer.write(chunk, renderer.apply(chunk, index));
+                    continue;
+                }
+                pending.add(Map.entry(chunk, CompletableFuture.supplyAsync(() -> renderer.apply(chunk, index), options.getExecutor())));
+                if (pending.size() >= Math.max(1, options.getMaxPendingChunks())) {
+                    Map.Entry<List<List<TranscriptMessage>>, CompletableFuture<T>> next = pending.poll();
+                    writer.write(next.getKey(), awaitChunk(next.getValue()));
+                }
+            }
+            while (!pending.isEmpty()) {
+                Map.Entry<List<List<TranscriptMessage>>, CompletableFuture<T>> next = pending.poll();
+                writer.write(next.getKey(), awaitChunk(next.getValue()));
+            }
+        } finally {
+            pending.forEach(entry -> entry.getValue().cancel(false));
+        }
+    }
+
+    /**
+     * Write the scripts of the page features in use, the lazy chunk loader, the avatar resolver and the search box
+     */
+    private void writeScripts(OutputStream out, TranscriptOptions options) throws IOException {
+        writeScripts(out, options, false);
+    }
+
+    /**
+     * @param threads whether the page shows threads, their script wraps {@code scrollToMessage} before the lazy chunk
+     *                loader does, so chunks are loaded before a thread in them is opened
+     */
+    private void writeScripts(OutputStream out, TranscriptOptions options, boolean threads) throws IOException {
+        if (threads) {
+            out.write(ThreadBlocks.script());
+        }
+        if (options.isLazyLoading()) {
+            out.write(LazyChunks.loader());
+        }
+        if (options.isAssetTables()) {
+            out.write(AssetTables.resolver());
+        }
+        if (options.isSearchIndex()) {
+            out.write(SearchIndexBuilder.searchBox());
+        }
+    }
+
+    /**
+     * Write the asset tables and the search index of the messages written so far at the end of the chatlog, nothing
+     * is written unless {@link TranscriptOptions#isAssetTables()} or {@link TranscriptOptions#isSearchIndex()}
+     */
+    private void writePageData(OutputStream out, RenderSession session) throws IOException {
+        if (session.assetTables() != null) {
+            session.assetTables().writeScript(out, session::asset);
+        }
+        if (session.searchIndex() != null) {
+            session.searchIndex().writeScript(out);
+        }
+    }
+
+    private void requireAppendableAssets(TranscriptOptions options) {
+        if (options.getAssetMode() == AssetMode.BUNDLE) {
+            throw new IllegalArgumentException("Appendable transcripts cannot bundle assets, use AssetMode.INLINE");
+        }
+    }
+
+    private void requireIndexableMessages(TranscriptOptions options) {
+        if (options.isMessageIndex() && options.isLazyLoading()) {
+            throw new IllegalArgumentException("Message indexes need eagerly rendered messages, disable lazyLoading");
+        }
+        if (options.isMessageIndex() && options.isAssetTables()) {
+            throw new IllegalArgumentException("Message indexes need self-contained messages, disable assetTables");
+        }
+    }
+
+    private void requireShardableAssets(TranscriptOptions options) {
+        if (options.getAssetMode() == AssetMode.BUNDLE) {
+            throw new IllegalArgumentException("Sharded transcripts cannot bundle assets, use AssetMode.INLINE");
+        }
+        if (options.isSearchIndex()) {
+            throw new IllegalArgumentException("Sharded transcripts cannot embed a search index");
+        }
+        if (options.isAssetTables()) {
+            throw new IllegalArgumentException("Sharded transcripts cannot use asset tables");
+        }
+    }
+
+    /**
+     * Store the asset tables of a transcript file next to it, or remove stale ones
+     */
+    private void writeAssetTables(Path file, RenderSession session) throws IOException {
+        if (session.assetTables() != null) {
+            session.assetTables().write(file, session::asset);
+        } else {
+            Files.deleteIfExists(AssetTables.pathOf(file));
+        }
+    }
+
+    /**
+     * Store the search index of a transcript file next to it, or remove a stale one
+     */
+    private void writeSearchIndex(Path file, RenderSession session) throws IOException {
+        if (session.searchIndex() != null) {
+            session.searchIndex().write(file);
+        } else {
+            Files.deleteIfExists(TranscriptSearchIndex.pathOf(file));
+        }
+    }
+
+    /**
+     * Store the bundled assets of a render next to the html, nothing is written unless assets are bundled
+     */
+    private void writeBundle(TranscriptSink sink, RenderSession session) throws IOException {
+        for (Map.Entry<String, Asset> entry : session.bundledAssets().entrySet()) {
+            sink.addEntry(entry.getKey(), entry.getValue().data());
+        }
+    }
+
+    private TranscriptTemplate template(TranscriptOptions options) {
+        return options.getTemplate() != null ? options.getTemplate() : template;
+    }
+
+    private Function<TranscriptTemplate.Slot, String> slotValues(RenderSession session, int messageCount) {
+        String channelName = session.getChannel().name();
+        return slotValues(session, messageCount < 0
+                ? "#" + channelName
+                : "#" + channelName + " | " + messageCount + " messages");
+    }
+
+    private Function<TranscriptTemplate.Slot, String> slotValues(RenderSession session, String title) {
+        TranscriptChannel channel = session.getChannel();
+        return slot -> switch (slot) {
+            case GUILD_ICON -> session.asset(channel.guildIconUrl());
+            case TITLE -> title;
+            case GUILD_NAME -> channel.guildName();
+            case CHANNEL_NAME -> "#" + channel.name();
+            case CHATLOG -> null;
+        };
+    }
+
+    /**
+     * Split sorted messages into message groups. With a group window, consecutive messages of the same author sent
+     * within the window share one group, like in the Discord client. Replies always start a group of their own.
+     */
+    private List<List<TranscriptMessage>> groupMessages(List<TranscriptMessage> sorted, Duration window) {
+        List<List<TranscriptMessage>> groups = new ArrayList<>();
+        if (window == null || window.isZero() || window.isNegative()) {
+            for (TranscriptMessage message : sorted) {
+                groups.add(List.of(message));
+            }
+            return groups;
+        }
+
+        long windowMillis = window.toMillis();
+        int start = 0;
+        for (int i = 1; i <= sorted.size(); i++) {
+            if (i == sorted.size() || !continuesGroup(sorted.get(i - 1), sorted.get(i), windowMillis)) {
+                groups.add(sorted.subList(start, i));
+                start = i;
+            }
+        }
+        return groups;
+    }
+
+    private boolean continuesGroup(TranscriptMessage previous, TranscriptMessage message, long windowMillis) {
+        if (message.isReply() || previous.author() == null || message.author() == null) {
+            return false;
+        }
+        // the creation time is stored in the upper bits of a snowflake
+        long elapsedMillis = (message.id() >>> 22) - (previous.id() >>> 22);
+        return previous.author().id() == message.author().id() && elapsedMillis <= windowMillis;
+    }
+
+    /**
+     * Render consecutive message groups into one html fragment, every chunk renders into its own {@link RenderContext}
+     * so chunks can render concurrently
+     *
+     * @param lazy whether to store the fragment as a string that is turned into elements once scrolled to
+     */
+    private byte[] renderChunk(RenderSession session, List<List<TranscriptMessage>> groups, boolean lazy) {
+        return renderChunk(session, groups, lazy, false).html();
+    }
+
+    /**
+     * @param marked whether the marks of the chunk are turned into byte offsets, see {@link RenderContext#mark()}
+     */
+    private RenderedChunk renderChunk(RenderSession session, List<List<TranscriptMessage>> groups, boolean lazy, boolean marked) {
+        boolean measuring = session.isMeasuring();
+        long start = measuring ? System.nanoTime() : 0;
+        long allocated = measuring ? RenderSession.threadAllocatedBytes() : -1;
+
+        RenderContext context = RenderContext.acquire();
+        try {
+            for (List<TranscriptMessage> group : groups) {
+                renderMessageGroup(session, context, group);
+            }
+            long serializeStart = measuring ? System.nanoTime() : 0;
+            byte[] bytes;
+            int[] marks = null;
+            if (marked) {
+                bytes = context.encodeMarked();
+                marks = Arrays.copyOf(context.marks(), context.markCount());
+            } else if (lazy) {
+                List<TranscriptMessage> last = groups.get(groups.size() - 1);
+                bytes = context.encode(LazyChunks.wrap(context.html(), groups.get(0).get(0).idString(),
+                        last.get(last.size() - 1).idString(), context.scratch()));
+            } else {
+                bytes = context.encode(context.html());
+            }
+
+            if (measuring) {
+                long end = System.nanoTime();
+                session.addTime(TranscriptMetrics.Phase.SERIALIZE, end - serializeStart);
+                session.addTime(TranscriptMetrics.Phase.RENDER, end - start);
+                session.addAllocatedBytes(allocated, RenderSession.threadAllocatedBytes());
+            }
+            return new RenderedChunk(bytes, marks);
+        } finally {
+            context.release();
+        }
+    }
+
+    private <T> T awaitChunk(CompletableFuture<T> chunk) throws IOException {
+        try {
+            return chunk.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Failed to render transcript chunk", e.getCause());
+        }
+    }
+
+    private void renderMessageGroup(RenderSession session, RenderContext context, List<TranscriptMessage> group) {
+        TranscriptMessage message = group.get(0);
+
+        // create message group
+        context.mark();
+        context.append("<div class=\"chatlog__message-group\">\n");
+
+        // message reference
+        if (message.isReply()) {
+            handleMessageReferences(session, context, message);
+        }
+
+        AuthorProfile author = message.author();
+
+        context.append("<div class=\"chatlog__author-avatar-container\">\n"
+                + "<img class=\"chatlog__author-avatar\" alt=\"Avatar\" loading=\"lazy\"");
+        String avatarId = session.assetTables() != null && author != null
+                ? session.assetTables().avatarId(author.avatarUrl())
+                : null;
+        if (avatarId != null) {
+            context.append(" data-avatar=\"").append(avatarId).append('"');
+        } else if (author != null) {
+            context.attribute("src", session.asset(author.avatarUrl()));
+        } else {
+            // Handle the case when author is null (e.g., when the message is from a bot)
+            context.append(" src=\"default_bot_avatar_url\""); // replace with your default bot avatar URL
+        }
+        context.append(">\n</div>\n");
+
+        // message content
+        context.append("<div class=\"chatlog__messages\">\n<span class=\"chatlog__author-name\"");
+        if (author != null) {
+            context.attribute("title", author.displayName())
+                    .append(" data-user-id=\"").append(Long.toUnsignedString(author.id())).append("\">")
+                    .text(author.name());
+        } else {
+            context.append(" title=\"Bot\" data-user-id=\"Bot\">Bot");
+        }
+        context.append("</span>");
+
+        if (author != null && author.bot()) {
+            context.append("<span class=\"chatlog__bot-tag\">BOT</span>");
+        }
+
+        // timestamp
+        context.append("<span class=\"chatlog__timestamp\">").time(message.id()).append("</span>\n");
+
+        for (TranscriptMessage groupMessage : group) {
+            context.mark();
+            renderMessage(session, context, groupMessage);
+            context.mark();
+        }
+
+        context.append("</div>\n</div>\n");
+        context.mark();
+    }
+
+    /**
+     * Render the content, attachments and embeds of a message, the group header is rendered by the first message only
+     */
+    private void renderMessage(RenderSession session, RenderContext context, TranscriptMessage message) {
+        if (session.isMeasuring()) {
+            session.countMessage(message);
+        }
+        StringBuilder html = context.html();
+        String id = message.idString();
+        html.append("<div class=\"chatlog__message\" data-message-id=\"").append(id)
+                .append("\" id=\"message-").append(id)
+                .append("\" title=\"Message sent: ");
+        context.time(message.id()).append("\">\n");
+
+        if (!message.content().isEmpty()) {
+            context.append("<div class=\"chatlog__content\">\n<div class=\"markdown\">\n<span class=\"preserve-whitespace\">");
+            session.format(message.content(), html);
+            context.append("</span>\n</div>\n</div>\n");
+        }
+
+        // messsage attachments
+        for (TranscriptAttachment attach : message.attachments()) {
+            context.append("<div class=\"chatlog__attachment\">\n");
+
+            switch (session.getOptions().getAttachmentClassifier().classify(attach.contentType(), attach.fileExtension())) {
+                case IMAGE -> handleImages(session, context, attach);
+                case VIDEO -> handleVideos(session, context, attach);
+                case AUDIO -> handleAudios(session, context, attach);
+                case DOCUMENT -> handleDocuments(session, context, attach);
+                default -> handleUnknownAttachmentTypes(session, context, attach);
+            }
+
+            context.append("</div>\n");
+        }
+
+        context.append("</div>\n");
+
+        if (!message.embeds().isEmpty()) {
+            long start = session.isMeasuring() ? System.nanoTime() : 0;
+            for (MessageEmbed embed : message.embeds()) {
+                context.append("<div class=\"chatlog__embed\">\n");
+
+                // embed color
+                if (embed.getColor() == null) {
+                    context.append("<div class=\"chatlog__embed-color-pill chatlog__embed-color-pill--default\"></div>\n");
+                } else if (session.assetTables() != null) {
+                    context.append("<div class=\"chatlog__embed-color-pill ");
+                    AssetTables.embedColorClass(embed.getColorRaw() & 0xFFFFFF, html);
+                    context.append("\"></div>\n");
+                } else {
+                    context.append("<div class=\"chatlog__embed-color-pill\" style=\"background-color: #");
+                    Formatter.toHex(embed.getColor(), html);
+                    context.append("\"></div>\n");
+                }
+
+                context.append("<div class=\"chatlog__embed-content-container\">\n"
+                        + "<div class=\"chatlog__embed-content\">\n<div class=\"chatlog__embed-text\">\n");
+
+                // embed author
+                if (embed.getAuthor() != null && embed.getAuthor().getName() != null) {
+                    handleEmbedAuthor(session, context, embed);
+                }
+
+                // embed title
+                if (embed.getTitle() != null) {
+                    handleEmbedTitle(session, context, embed);
+                }
+
+                // embed description
+                if (embed.getDescription() != null) {
+                    handleEmbedDescription(session, context, embed);
+                }
+
+                // embed fields
+                if (!embed.getFields().isEmpty()) {
+                    handleEmbedFields(session, context, embed);
+                }
+
+                context.append("</div>\n");
+
+                // embed thumbnail
+                if (embed.getThumbnail() != null) {
+                    handleEmbedThumbnail(session, context, embed);
+                }
+
+                context.append("</div>\n");
+
+                // embed image
+                if (embed.getImage() != null) {
+                    handleEmbedImage(session, context, embed);
+                }
+
+                // embed footer
+                if (embed.getFooter() != null) {
+                    handleFooter(session, context, embed);
+                }
+
+                context.append("</div>\n</div>\n");
+            }
+            if (session.isMeasuring()) {
+                session.addTime(TranscriptMetrics.Phase.EMBEDS, System.nanoTime() - start);
+            }
+        }
+
+        for (RenderSession.ThreadBlock thread : session.threads(message.id())) {
+            context.append(thread.html());
+        }
+    }
+
+    /**
+     * Render synthetic messages with the template of this engine a few times, so the renderer, the markdown parser and
+     * the page scripts are loaded and compiled before the first transcript. Nothing is downloaded or reported.
+     */
+    private void warmUp() {
+        TranscriptOptions options = TranscriptOptions.builder().template(template).markdownFormatter(markdownFormatter).build();
+        TranscriptChannel channel = new TranscriptChannel(0, "warm-up", 0, "warm-up", null);
+        List<TranscriptMessage> messages = new ArrayList<>(WARM_UP_MESSAGES);
+        AuthorProfile[] authors = {
+                new AuthorProfile(1, "alice", "Alice", "5865f2", "https://cdn.discordapp.com/embed/avatars/0.png", false),
+                new AuthorProfile(2, "bot", "Bot", null, "https://cdn.discordapp.com/embed/avatars/1.png", true)
+        };
+        MessageEmbed embed = new EmbedBuilder()
+                .setTitle("Ticket", "https://discord.com")
+                .setDescription("**Opened** by <@1>, see `#support`")
+                .setColor(0x5865f2)
+                .addField("Status", "*open*", true)
+                .setFooter("Support")
+                .build();
+        for (int i = 0; i < WARM_UP_MESSAGES; i++) {
+            long id = (long) (i + 1) << 22;
+            // replies refer to messages that are no replies themselves
+            TranscriptMessage reference = i % 16 == 1 ? messages.get(i - 1) : null;
+            List<TranscriptAttachment> attachments = i % 32 == 3
+                    ? List.of(new TranscriptAttachment(id, "https://cdn.discordapp.com/attachments/0/0/log.txt", "log.txt", 2048, "text/plain"))
+                    : List.of();
+            messages.add(new TranscriptMessage(id, authors[i % 5 == 0 ? 1 : 0],
+                    "Hello **world** " + i + ", _see_ ~~this~~ `code` and https://discord.com\n> quoted\n```java\nint x = " + i + ";\n```",
+                    attachments, i % 8 == 0 ? List.of(embed) : List.of(), reference));
+        }
+
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+            try (RenderSession session = new RenderSession(channel, null, options, markdownFormatter)) {
+                OutputStream out = OutputStream.nullOutputStream();
+                Function<TranscriptTemplate.Slot, String> slots = slotValues(session, messages.size());
+                session.prepareAssets(messages);
+                template.writeHead(out, slots);
+                writeScripts(out, options);
+                writeGroups(out, session, groupMessages(messages, Duration.ofMinutes(7)), true);
+                writePageData(out, session);
+                template.writeTail(out, slots);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * @param html  the encoded chunk
+     * @param marks the byte offsets of the marks set while rendering it, null unless asked for
+     */
+    private record RenderedChunk(byte[] html, int[] marks) {
+    }
+
+    /**
+     * @param messages   the messages shown in the transcript itself
+     * @param threads    the messages of every thread, oldest thread first
+     * @param fetchNanos the time taken to fetch them
+     */
+    private record ThreadedMessages(List<Message> messages, Map<ThreadChannel, List<Message>> threads, long fetchNanos) {
+    }
+
+    /**
+     * The file names of a threaded transcript, transcripts of threads are named after it like parts of a sharded one
+     */
+    private static final class ThreadFiles {
+
+        private final String fileName;
+        private final String baseName;
+        private final String extension;
+
+        private ThreadFiles(String fileName, TranscriptOptions options) {
+            String defaultName = options.getCompression().getDefaultFileName();
+            this.fileName = fileName != null ? fileName : defaultName;
+            this.extension = defaultName.substring(defaultName.indexOf('.'));
+            this.baseName = this.fileName.endsWith(extension)
+                    ? this.fileName.substring(0, this.fileName.length() - extension.length())
+                    : this.fileName;
+        }
+
+        String fileName() {
+            return fileName;
+        }
+
+        String htmlName() {
+            return baseName + ".html";
+        }
+
+        String threadFileName(long threadId) {
+            return ThreadBlocks.fileName(baseName, threadId, extension);
+        }
+
+        String threadHtmlName(long threadId) {
+            return ThreadBlocks.fileName(baseName, threadId, ".html");
+        }
+    }
+
+    /**
+     * Messages appended to a transcript file. They are rendered into a pending end of the transcript and only spliced
+     * into the file by {@link #commit()}, which also replaces its index, search index, asset tables and sidecar.
+     */
+    private final class TranscriptAppend implements Closeable {
+
+        private final Path file;
+        private final TranscriptSidecar sidecar;
+        private final TranscriptOptions options;
+        private final RenderSession session;
+        private final Path pending;
+        private final TranscriptIndex.Writer index;
+        private final CountingOutputStream out;
+        private final long start = System.nanoTime();
+        private long lastMessageId;
+        private int added;
+
+        private TranscriptAppend(Path file, TranscriptSidecar sidecar, GuildChannel channel, TranscriptOptions options) throws IOException {
+            this.file = file;
+            this.sidecar = sidecar;
+            this.options = options;
+            this.lastMessageId = sidecar.lastMessageId();
+            this.session = new RenderSession(channel, options, markdownFormatter);
+            this.pending = file.resolveSibling(file.getFileName() + ".tmp");
+            TranscriptIndex.Writer index = null;
+            try {
+                if (options.isSearchIndex()) {
+                    if (!Files.exists(TranscriptSearchIndex.pathOf(file))) {
+                        throw new IllegalArgumentException("The transcript was written without a search index");
+                    }
+                    session.continueSearchIndex(TranscriptSearchIndex.read(file));
+                }
+                if (options.isAssetTables()) {
+                    session.continueAssetTables(AssetTables.read(file));
+                }
+                index = options.isMessageIndex() ? new TranscriptIndex.Writer(file, sidecar.messageCount()) : null;
+                this.out = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(pending), 1 << 16), sidecar.chatlogEnd());
+            } catch (IOException | RuntimeException e) {
+                if (index != null) {
+                    index.close();
+                }
+                session.close();
+                throw e;
+            }
+            this.index = index;
+        }
+
+        /**
+         * @return the id of the newest message of the transcript, including the pending ones
+         */
+        long lastMessageId() {
+            return lastMessageId;
+        }
+
+        /**
+         * Render messages newer than every message added so far after them
+         */
+        void add(Collection<Message> messages) throws IOException {
+            List<TranscriptMessage> sorted = sortMessages(session, messages);
+            session.prepareAssets(sorted);
+            if (index != null) {
+                writeIndexedChatlog(out, session, sorted, index);
+            } else {
+                writeChatlog(out, session, sorted, false);
+            }
+            lastMessageId = sorted.get(sorted.size() - 1).id();
+            added += sorted.size();
+        }
+
+        /**
+         * Splice the pending end into the transcript and store what goes next to it, the sidecar last
+         *
+         * @return the amount of messages added
+         */
+        int commit() throws IOException {
+            long chatlogEnd = out.getCount();
+            writePageData(out, session);
+            template(options).writeTail(out, slotValues(session, -1));
+            long size = out.getCount() - sidecar.chatlogEnd();
+            out.close();
+            try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                fileChannel.truncate(sidecar.chatlogEnd());
+                fileChannel.position(sidecar.chatlogEnd());
+                Files.copy(pending, Channels.newOutputStream(fileChannel));
+            }
+            if (index != null) {
+                index.commit();
+            } else {
+                Files.deleteIfExists(TranscriptIndex.pathOf(file));
+            }
+            writeSearchIndex(file, session);
+            writeAssetTables(file, session);
+            new TranscriptSidecar(lastMessageId, chatlogEnd, sidecar.messageCount() + added).write(file);
+            session.report(new TranscriptStats(added, size, size, System.nanoTime() - start));
+            return added;
+        }
+
+        /**
+         * Drop whatever was not committed
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                out.close();
+                if (index != null) {
+                    index.close();
+                }
+                Files.deleteIfExists(pending);
+            } finally {
+                session.close();
+            }
+        }
+    }
+
+    /**
+     * Receives rendered chunks in order
+     */
+    @FunctionalInterface
+    private interface ChunkWriter<T> {
+
+        void write(List<List<TranscriptMessage>> chunk, T rendered) throws IOException;
+    }
+
+    public static final class Builder {
+
+        private TranscriptTemplate template;
+        private MarkdownFormatter markdownFormatter = MarkdownFormatter.DISCORD;
+        private TranscriptOptions defaults = TranscriptOptions.DEFAULT;
+        private boolean warmUp = true;
+
+        private Builder() {
+        }
+
+        /**
+         * @param template the template of renders whose options set none, null uses the bundled one
+         */
+        public Builder template(TranscriptTemplate template) {
+            this.template = template;
+            return this;
+        }
+
+        /**
+         * @param markdownFormatter renders the markdown of renders whose options set no formatter
+         */
+        public Builder markdownFormatter(MarkdownFormatter markdownFormatter) {
+            this.markdownFormatter = Objects.requireNonNull(markdownFormatter, "markdownFormatter");
+            return this;
+        }
+
+        /**
+         * @param defaults the options of renders that are given none
+         */
+        public Builder defaults(TranscriptOptions defaults) {
+            this.defaults = Objects.requireNonNull(defaults, "defaults");
+            return this;
+        }
+
+        /**
+         * @param attachmentClassifier the attachment classifier of the default options
+         */
+        public Builder attachmentClassifier(AttachmentClassifier attachmentClassifier) {
+            return defaults(defaults.toBuilder().attachmentClassifier(attachmentClassifier).build());
+        }
+
+        /**
+         * @param executor the executor of the default options, see {@link TranscriptOptions#getExecutor()}
+         */
+        public Builder executor(Executor executor) {
+            return defaults(defaults.toBuilder().executor(executor).build());
+        }
+
+        /**
+         * @param authorCache the author profiles shared by renders with the default options
+         */
+        public Builder authorCache(AuthorProfileCache authorCache) {
+            return defaults(defaults.toBuilder().authorCache(authorCache).build());
+        }
+
+        /**
+         * @param assetCache the assets shared by renders with the default options
+         */
+        public Builder assetCache(AssetCache assetCache) {
+            return defaults(defaults.toBuilder().assetCache(assetCache).build());
+        }
+
+        /**
+         * @param warmUp whether {@link #build()} renders a small transcript before it returns, true by default
+         */
+        public Builder warmUp(boolean warmUp) {
+            this.warmUp = warmUp;
+            return this;
+        }
+
+        public TranscriptEngine build() {
+            return new TranscriptEngine(this);
+        }
+    }
+
+    /**
+     * Output buffer that hands its bytes over to an input stream without copying them
+     */
+    static class TranscriptOutputStream extends ByteArrayOutputStream {
+
+        InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package me.ryzeon.transcripts;
+
+import net.dv8tion.jda.api.utils.TimeUtil;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+
+/**
+ * Serves the html of single messages and time ranges out of a transcript written with
+ * {@link TranscriptOptions#isMessageIndex()}, without reading or parsing the rest of it.
+ * <p>
+ * The transcript and its index are memory mapped, excerpts are read-only views of the mapped file.
+ * They stay valid until the index is closed and the transcript is replaced or appended to.
+ */
+public final class TranscriptIndex implements Closeable {
+
+    private static final String SUFFIX = ".idx";
+    private static final int MAGIC = 0x44485449; // DHTI
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+
+    /**
+     * Longs per entry: message id, message start and end, group start and end
+     */
+    private static final int ENTRY_LONGS = 5;
+    private static final int ENTRY_BYTES = ENTRY_LONGS * Long.BYTES;
+
+    private final FileChannel transcript;
+    private final ByteBuffer html;
+    private final LongBuffer entries;
+    private final int size;
+
+    private TranscriptIndex(FileChannel transcript, ByteBuffer html, LongBuffer entries) {
+        this.transcript = transcript;
+        this.html = html;
+        this.entries = entries;
+        this.size = entries.capacity() / ENTRY_LONGS;
+    }
+
+    /**
+     * @param transcript the transcript file
+     * @return where the index of the transcript is stored
+     */
+    public static Path pathOf(Path transcript) {
+        return transcript.resolveSibling(transcript.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Map a transcript and its index
+     *
+     * @param transcript the transcript file
+     * @return the index, to be closed once its excerpts are no longer used
+     */
+    public static TranscriptIndex open(Path transcript) throws IOException {
+        LongBuffer entries;
+        try (FileChannel index = FileChannel.open(pathOf(transcript), StandardOpenOption.READ)) {
+            ByteBuffer mapped = index.map(FileChannel.MapMode.READ_ONLY, 0, index.size());
+            if (mapped.capacity() < HEADER_BYTES || (mapped.capacity() - HEADER_BYTES) % ENTRY_BYTES != 0
+                    || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                throw new IOException("Malformed transcript index " + pathOf(transcript));
+            }
+            entries = mapped.position(HEADER_BYTES).slice().asLongBuffer();
+        }
+
+        FileChannel channel = FileChannel.open(transcript, StandardOpenOption.READ);
+        try {
+            // files past 2 GiB are mapped excerpt by excerpt
+            ByteBuffer html = channel.size() <= Integer.MAX_VALUE
+                    ? channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                    : null;
+            return new TranscriptIndex(channel, html, entries);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the amount of indexed messages
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the html of a single message, its embeds included, without the header of its message group
+     *
+     * @param messageId the message id
+     * @return the html of the message, null if the transcript does not hold it
+     */
+    public ByteBuffer message(long messageId) throws IOException {
+        int entry = search(messageId);
+        if (entry >= size || entries.get(entry * ENTRY_LONGS) != messageId) {
+            return null;
+        }
+        return slice(entries.get(entry * ENTRY_LONGS + 1), entries.get(entry * ENTRY_LONGS + 2));
+    }
+
+    /**
+     * Get the message groups holding messages sent within a time range, the groups may hold earlier or later
+     * messages as well
+     *
+     * @param from the first instant of the range
+     * @param to   the instant the range ends before
+     * @return the html of the message groups, empty if no message was sent within the range
+     */
+    public ByteBuffer range(OffsetDateTime from, OffsetDateTime to) throws IOException {
+        return range(TimeUtil.getDiscordTimestamp(from.toInstant().toEpochMilli()),
+                TimeUtil.getDiscordTimestamp(to.toInstant().toEpochMilli()));
+    }
+
+    /**
+     * Get the message groups holding messages with ids within a range, see {@link #range(OffsetDateTime, OffsetDateTime)}
+     *
+     * @param fromId the lowest message id of the range
+     * @param toId   the id the range ends before
+     * @return the html of the message groups, empty if no message id lies within the range
+     */
+    public ByteBuffer range(long fromId, long toId) throws IOException {
+        int first = search(fromId);
+        int last = search(toId) - 1;
+        if (first > last) {
+            return ByteBuffer.allocate(0).asReadOnlyBuffer();
+        }
+        return slice(entries.get(first * ENTRY_LONGS + 3), entries.get(last * ENTRY_LONGS + 4));
+    }
+
+    @Override
+    public void close() throws IOException {
+        transcript.close();
+    }
+
+    /**
+     * @return the first entry with a message id of at least the given one, {@link #size()} if there is none
+     */
+    private int search(long messageId) {
+        int low = 0, high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(entries.get(middle * ENTRY_LONGS), messageId) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private ByteBuffer slice(long start, long end) throws IOException {
+        if (html != null) {
+            return html.slice((int) start, (int) (end - start)).asReadOnlyBuffer();
+        }
+        return transcript.map(FileChannel.MapMode.READ_ONLY, start, end - start).asReadOnlyBuffer();
+    }
+
+    /**
+     * Writes the index of a transcript while it is rendered, entries must be added in message order.
+     * They are kept aside until {@link #commit()}, closing the writer without it leaves the index as it was.
+     */
+    static final class Writer implements Closeable {
+
+        private final Path path;
+        private final Path pending;
+        private final long keptEntries;
+        private final DataOutputStream out;
+        private boolean closed;
+
+        /**
+         * @param transcript  the transcript file
+         * @param keptEntries the amount of entries of an existing index that are kept, later ones are dropped.
+         *                    Zero starts a new index.
+         */
+        Writer(Path transcript, long keptEntries) throws IOException {
+            this.path = pathOf(transcript);
+            this.pending = path.resolveSibling(path.getFileName() + ".tmp");
+            this.keptEntries = keptEntries;
+            if (keptEntries > 0 && (!Files.exists(path) || Files.size(path) < HEADER_BYTES + keptEntries * ENTRY_BYTES)) {
+                throw new IllegalArgumentException("The transcript was written without a message index");
+            }
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(pending), 1 << 16));
+            if (keptEntries == 0) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+            }
+        }
+
+        /**
+         * Add the byte ranges of a message, offsets are counted from the start of the transcript
+         */
+        void add(long messageId, long messageStart, long messageEnd, long groupStart, long groupEnd) throws IOException {
+            out.writeLong(messageId);
+            out.writeLong(messageStart);
+            out.writeLong(messageEnd);
+            out.writeLong(groupStart);
+            out.writeLong(groupEnd);
+        }
+
+        /**
+         * Replace the index, or its entries past the kept ones, with the entries added
+         */
+        void commit() throws IOException {
+            closed = true;
+            out.close();
+            if (keptEntries == 0) {
+                Files.move(pending, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(HEADER_BYTES + keptEntries * ENTRY_BYTES);
+                channel.position(channel.size());
+                Files.copy(pending, Channels.newOutputStream(channel));
+            }
+            Files.delete(pending);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                out.close();
+            }
+            Files.deleteIfExists(pending);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package me.ryzeon.transcripts;
+
+import lombok.Builder;
+import lombok.Getter;
+import me.ryzeon.transcripts.assets.AssetCache;
+import me.ryzeon.transcripts.assets.AssetFetcher;
+import me.ryzeon.transcripts.assets.AssetMode;
+import me.ryzeon.transcripts.assets.HttpAssetFetcher;
+import me.ryzeon.transcripts.author.AuthorProfileCache;
+import me.ryzeon.transcripts.metrics.TranscriptMetrics;
+import me.ryzeon.transcripts.template.TranscriptTemplate;
+import me.ryzeon.transcripts.utils.format.AttachmentClassifier;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+
+/**
+ * Options of a single transcript render
+ */
+@Getter
+@Builder(toBuilder = true)
+public class TranscriptOptions {
+
+    /**
+     * Sequential render on the calling thread
+     */
+    public static final TranscriptOptions DEFAULT = TranscriptOptions.builder().build();
+
+    /**
+     * Template of this render, null uses the template of the {@link TranscriptEngine}
+     */
+    private final TranscriptTemplate template;
+
+    /**
+     * Renders the markdown of this render, null uses the formatter of the {@link TranscriptEngine}
+     */
+    private final MarkdownFormatter markdownFormatter;
+
+    /**
+     * Executor message chunks are rendered on, null renders on the calling thread.
+     * The output is the same either way.
+     */
+    private final Executor executor;
+
+    /**
+     * Amount of messages rendered per task
+     */
+    @Builder.Default
+    private final int chunkSize = 256;
+
+    /**
+     * Amount of rendered chunks that may wait to be written, bounds memory use of a parallel render
+     */
+    @Builder.Default
+    private final int maxPendingChunks = 64;
+
+    /**
+     * Amount of messages fetched per history page, at most 100
+     */
+    @Builder.Default
+    private final int pageSize = 100;
+
+    /**
+     * Amount of fetched history pages that may wait to be rendered
+     */
+    @Builder.Default
+    private final int prefetchPages = 2;
+
+    /**
+     * Amount of thread histories fetched at once, see {@link TranscriptEngine#createThreadedTranscriptAsync}
+     */
+    @Builder.Default
+    private final int threadConcurrency = 4;
+
+    /**
+     * Author profiles shared between renders, null resolves every author once per render
+     */
+    private final AuthorProfileCache authorCache;
+
+    /**
+     * Consecutive messages of the same author sent within this window share one message group with a single header,
+     * null gives every message its own group. Groups never span history pages or appends.
+     */
+    private final Duration groupWindow;
+
+    /**
+     * Encoding of the output, appendable transcripts written to a file are never compressed
+     */
+    @Builder.Default
+    private final TranscriptCompression compression = TranscriptCompression.NONE;
+
+    /**
+     * Deflate level of a compressed output, from 0 to 9 or -1 for the default
+     */
+    @Builder.Default
+    private final int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * Decides whether an attachment is shown as an image, video, audio, document preview or download link
+     */
+    @Builder.Default
+    private final AttachmentClassifier attachmentClassifier = AttachmentClassifier.DEFAULT;
+
+    /**
+     * Whether assets are linked, inlined as data uris or bundled into the zip, see {@link AssetMode}
+     */
+    @Builder.Default
+    private final AssetMode assetMode = AssetMode.LINK;
+
+    /**
+     * Downloads the assets of an inlined or bundled transcript, null uses {@link HttpAssetFetcher#shared()}
+     */
+    private final AssetFetcher assetFetcher;
+
+    /**
+     * Assets shared between renders, null downloads every asset once per render
+     */
+    private final AssetCache assetCache;
+
+    /**
+     * Amount of assets downloaded at once
+     */
+    @Builder.Default
+    private final int assetConcurrency = 8;
+
+    /**
+     * Largest asset that is inlined or bundled, bigger ones stay links
+     */
+    @Builder.Default
+    private final long maxAssetBytes = 8L << 20;
+
+    /**
+     * Listener of phase timings, counts and sizes of each render
+     */
+    @Builder.Default
+    private final TranscriptMetrics metrics = TranscriptMetrics.NOOP;
+
+    /**
+     * Only render the first {@link #getChunkSize()} messages as elements and store later chunks as html strings that
+     * are turned into elements once scrolled to, so huge transcripts open quickly. Appends must use the same setting.
+     */
+    private final boolean lazyLoading;
+
+    /**
+     * Store a {@link TranscriptIndex} next to a transcript written to a file, so single messages and time ranges can
+     * be served from it without parsing. Needs eagerly rendered messages, appends must use the same setting.
+     */
+    private final boolean messageIndex;
+
+    /**
+     * Embed a word index and a search box into the page, so messages are found without scanning the document, even
+     * while they are loaded lazily. Transcripts written to a file also store a {@link TranscriptSearchIndex} next to it.
+     * Appends must use the same setting.
+     */
+    private final boolean searchIndex;
+
+    /**
+     * Write every distinct avatar and embed colour once, at the end of the page, and refer to them by short ids and
+     * class names instead of repeating them in every message group. Avatars are then set by a script. Not available
+     * for sharded transcripts or with a message index, appends must use the same setting.
+     */
+    private final boolean assetTables;
+}
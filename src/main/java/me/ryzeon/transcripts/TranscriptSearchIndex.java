@@ -0,0 +1,162 @@
+package me.ryzeon.transcripts;
+
+import me.ryzeon.transcripts.utils.io.Varints;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Inverted index of the words in a transcript written with {@link TranscriptOptions#isSearchIndex()}, read from the
+ * file stored next to it.
+ * <p>
+ * Message content, author names, attachment file names and embed texts are split into lower case words of letters
+ * and digits. A query matches messages holding every one of its words, each as the start of a word of the message.
+ */
+public final class TranscriptSearchIndex {
+
+    private static final String SUFFIX = ".search";
+    static final int MAGIC = 0x44485458; // DHTX
+    static final int VERSION = 1;
+
+    /**
+     * Words outside these lengths are not indexed, longer ones are mostly links, hashes or encoded data
+     */
+    static final int MIN_TERM_LENGTH = 2, MAX_TERM_LENGTH = 64;
+
+    private final long[] messageIds;
+    private final String[] terms;
+    private final int[][] postings;
+
+    TranscriptSearchIndex(long[] messageIds, String[] terms, int[][] postings) {
+        this.messageIds = messageIds;
+        this.terms = terms;
+        this.postings = postings;
+    }
+
+    /**
+     * @param transcript the transcript file
+     * @return where the search index of the transcript is stored
+     */
+    public static Path pathOf(Path transcript) {
+        return transcript.resolveSibling(transcript.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Read the search index of a transcript
+     *
+     * @param transcript the transcript file
+     * @return the index
+     */
+    public static TranscriptSearchIndex read(Path transcript) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(pathOf(transcript)), 1 << 16))) {
+            if (in.readInt() != MAGIC || Varints.read(in) != VERSION) {
+                throw new IOException("Malformed search index " + pathOf(transcript));
+            }
+            long[] messageIds = new long[Math.toIntExact(Varints.read(in))];
+            for (int i = 0; i < messageIds.length; i++) {
+                messageIds[i] = (i > 0 ? messageIds[i - 1] : 0) + Varints.read(in);
+            }
+
+            String[] terms = new String[Math.toIntExact(Varints.read(in))];
+            int[][] postings = new int[terms.length][];
+            for (int i = 0; i < terms.length; i++) {
+                // terms are sorted, each shares a prefix with the one before
+                int shared = (int) Varints.read(in);
+                byte[] suffix = new byte[(int) Varints.read(in)];
+                in.readFully(suffix);
+                terms[i] = (i > 0 ? terms[i - 1].substring(0, shared) : "") + new String(suffix, StandardCharsets.UTF_8);
+
+                int[] ordinals = new int[(int) Varints.read(in)];
+                for (int j = 0; j < ordinals.length; j++) {
+                    ordinals[j] = (j > 0 ? ordinals[j - 1] : 0) + (int) Varints.read(in);
+                }
+                postings[i] = ordinals;
+            }
+            return new TranscriptSearchIndex(messageIds, terms, postings);
+        }
+    }
+
+    /**
+     * @return the amount of indexed messages
+     */
+    public int messageCount() {
+        return messageIds.length;
+    }
+
+    /**
+     * Find the messages matching a query
+     *
+     * @param query words, e.g. {@code refund paypal}
+     * @return the ids of the matching messages, oldest first. Empty if the query holds no word.
+     */
+    public long[] search(String query) {
+        List<String> words = new ArrayList<>();
+        forEachTerm(query, 1, words::add);
+        if (words.isEmpty()) {
+            return new long[0];
+        }
+
+        BitSet matches = null;
+        for (String word : words) {
+            BitSet messages = new BitSet(messageIds.length);
+            int term = Arrays.binarySearch(terms, word);
+            for (term = term < 0 ? -term - 1 : term; term < terms.length && terms[term].startsWith(word); term++) {
+                for (int ordinal : postings[term]) {
+                    messages.set(ordinal);
+                }
+            }
+            if (matches == null) {
+                matches = messages;
+            } else {
+                matches.and(messages);
+            }
+        }
+        return matches.stream().mapToLong(ordinal -> messageIds[ordinal]).toArray();
+    }
+
+    long[] messageIds() {
+        return messageIds;
+    }
+
+    String[] terms() {
+        return terms;
+    }
+
+    int[][] postings() {
+        return postings;
+    }
+
+    /**
+     * Split a text into lower case words of letters and digits, the way it is indexed
+     *
+     * @param text      the text, null holds no words
+     * @param minLength the shortest word passed on
+     * @param terms     receives the words
+     */
+    static void forEachTerm(CharSequence text, int minLength, Consumer<String> terms) {
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; ) {
+            int codePoint = i < length ? Character.codePointAt(text, i) : ' ';
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                int termLength = i - start;
+                if (termLength >= minLength && termLength <= MAX_TERM_LENGTH) {
+                    terms.accept(text.subSequence(start, i).toString().toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+            i += i < length ? Character.charCount(codePoint) : 1;
+        }
+    }
+}
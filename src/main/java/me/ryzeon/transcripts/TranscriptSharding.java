@@ -0,0 +1,106 @@
+package me.ryzeon.transcripts;
+
+import me.ryzeon.transcripts.model.TranscriptMessage;
+import net.dv8tion.jda.api.utils.TimeUtil;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * How a transcript is split into parts, e.g. to stay below the upload limit of a guild.
+ * <p>
+ * Message groups are never split, so a part may hold a single group that is larger than the limit.
+ */
+public final class TranscriptSharding {
+
+    private enum Kind {
+        SIZE, MESSAGES, DAY
+    }
+
+    private final Kind kind;
+    private final long limit;
+    private final ZoneId zone;
+
+    private TranscriptSharding(Kind kind, long limit, ZoneId zone) {
+        this.kind = kind;
+        this.limit = limit;
+        this.zone = zone;
+    }
+
+    /**
+     * Start a new part before the html of a part would grow past a size, page head and navigation included.
+     * Compressed parts end up smaller than that.
+     *
+     * @param maxBytes the largest html size of a part, e.g. the upload limit of a guild
+     */
+    public static TranscriptSharding bySize(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        return new TranscriptSharding(Kind.SIZE, maxBytes, null);
+    }
+
+    /**
+     * Start a new part before a part would hold more messages than given
+     *
+     * @param maxMessages the largest amount of messages in a part
+     */
+    public static TranscriptSharding byMessages(int maxMessages) {
+        if (maxMessages <= 0) {
+            throw new IllegalArgumentException("maxMessages must be positive");
+        }
+        return new TranscriptSharding(Kind.MESSAGES, maxMessages, null);
+    }
+
+    /**
+     * Start a new part with every calendar day, in utc
+     */
+    public static TranscriptSharding byDay() {
+        return byDay(ZoneOffset.UTC);
+    }
+
+    /**
+     * Start a new part with every calendar day
+     *
+     * @param zone the time zone days start in
+     */
+    public static TranscriptSharding byDay(ZoneId zone) {
+        return new TranscriptSharding(Kind.DAY, 0, Objects.requireNonNull(zone, "zone"));
+    }
+
+    /**
+     * Decide whether a message group starts a new part, an empty part always takes the group
+     *
+     * @param partBytes    the html size of the part so far
+     * @param partMessages the amount of messages in the part
+     * @param partDay      the day of the first message in the part, see {@link #day(long)}
+     * @param group        the message group
+     * @param groupBytes   the html size of the group, plus whatever a part needs after its last group
+     */
+    boolean startsPart(long partBytes, long partMessages, long partDay, List<TranscriptMessage> group, long groupBytes) {
+        if (partMessages == 0) {
+            return false;
+        }
+        return switch (kind) {
+            case SIZE -> partBytes + groupBytes > limit;
+            case MESSAGES -> partMessages + group.size() > limit;
+            case DAY -> day(group.get(0).id()) != partDay;
+        };
+    }
+
+    /**
+     * @param snowflake the id of a message
+     * @return the day the message was sent on, counted from the epoch in the time zone of the sharding
+     */
+    long day(long snowflake) {
+        if (zone == null) {
+            return 0;
+        }
+        long millis = (snowflake >>> 22) + TimeUtil.DISCORD_EPOCH;
+        int offset = zone.getRules().getOffset(Instant.ofEpochMilli(millis)).getTotalSeconds();
+        return Math.floorDiv(Math.floorDiv(millis, 1000) + offset, 86400L);
+    }
+}
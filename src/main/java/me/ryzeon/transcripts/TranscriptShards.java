@@ -0,0 +1,204 @@
+package me.ryzeon.transcripts;
+
+import me.ryzeon.transcripts.template.TranscriptTemplate;
+import me.ryzeon.transcripts.utils.io.CountingOutputStream;
+import me.ryzeon.transcripts.model.TranscriptMessage;
+import net.dv8tion.jda.api.utils.FileUpload;
+import net.dv8tion.jda.api.utils.TimeUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Writes rendered message groups into the parts of a sharded transcript, see {@link TranscriptSharding}.
+ * <p>
+ * Groups are streamed into the current part, which is encoded and handed over as an upload once the next group
+ * starts a new part. Every part links to its neighbours and to an index page written last.
+ */
+final class TranscriptShards {
+
+    /**
+     * Bytes kept free at the end of a part for the navigation written after its last group
+     */
+    private static final int NAV_RESERVE = 512;
+
+    private static final DateTimeFormatter INDEX_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final TranscriptOptions options;
+    private final TranscriptTemplate template;
+    private final TranscriptSharding sharding;
+    private final Function<String, Function<TranscriptTemplate.Slot, String>> slots;
+    private final String channelName;
+    private final String baseName;
+    private final String extension;
+    private final long tailBytes;
+    private final long start = System.nanoTime();
+
+    private final List<Part> parts = new ArrayList<>();
+    private final List<FileUpload> uploads = new ArrayList<>();
+    private long htmlBytes, outputBytes;
+
+    private TranscriptEngine.TranscriptOutputStream buffer;
+    private TranscriptSink sink;
+    private long partMessages, partDay, firstMessageId, lastMessageId;
+
+    /**
+     * @param slots       the slot values of a page, by page title
+     * @param channelName the name of the channel, without {@code #}
+     * @param fileName    the file name of the transcript, parts are numbered after it. Null uses the default of
+     *                    the compression.
+     */
+    TranscriptShards(TranscriptOptions options, TranscriptTemplate template, TranscriptSharding sharding,
+                     Function<String, Function<TranscriptTemplate.Slot, String>> slots, String channelName,
+                     String fileName) throws IOException {
+        this.options = options;
+        this.template = template;
+        this.sharding = sharding;
+        this.slots = slots;
+        this.channelName = channelName;
+
+        String defaultName = options.getCompression().getDefaultFileName();
+        this.extension = defaultName.substring(defaultName.indexOf('.'));
+        String name = fileName != null ? fileName : defaultName;
+        this.baseName = name.endsWith(extension) ? name.substring(0, name.length() - extension.length()) : name;
+
+        CountingOutputStream tail = new CountingOutputStream(OutputStream.nullOutputStream());
+        template.writeTail(tail, slots.apply(""));
+        this.tailBytes = tail.getCount() + NAV_RESERVE;
+    }
+
+    /**
+     * Write a message group into the current part, or into a new one if the sharding says so
+     *
+     * @param group the messages of the group
+     * @param html  the rendered group
+     */
+    void append(List<TranscriptMessage> group, byte[] html) throws IOException {
+        if (sink != null && sharding.startsPart(sink.htmlBytes(), partMessages, partDay, group, html.length + tailBytes)) {
+            closePart(true);
+        }
+        if (sink == null) {
+            openPart(group.get(0).id());
+        }
+        sink.html().write(html);
+        partMessages += group.size();
+        lastMessageId = group.get(group.size() - 1).id();
+    }
+
+    /**
+     * Close the last part and write the index page
+     *
+     * @return the parts in order, followed by the index page
+     */
+    List<FileUpload> finish() throws IOException {
+        if (sink != null) {
+            closePart(false);
+        }
+        if (parts.isEmpty()) {
+            throw new IllegalArgumentException("No messages to generate a transcript from");
+        }
+
+        long messages = parts.stream().mapToLong(Part::messageCount).sum();
+        RenderContext context = RenderContext.acquire();
+        try {
+            context.append("<ol class=\"chatlog__shard-index\">\n");
+            for (int i = 0; i < parts.size(); i++) {
+                Part part = parts.get(i);
+                context.append("<li><a").attribute("href", part.htmlName()).append(">Part ").append(String.valueOf(i + 1))
+                        .append("</a> · ").append(String.valueOf(part.messageCount())).append(" messages · ")
+                        .append(TimeUtil.getTimeCreated(part.firstMessageId()).format(INDEX_TIME)).append(" to ")
+                        .append(TimeUtil.getTimeCreated(part.lastMessageId()).format(INDEX_TIME)).append(" UTC</li>\n");
+            }
+            context.append("</ol>\n");
+
+            Function<TranscriptTemplate.Slot, String> values =
+                    slots.apply("#" + channelName + " | " + messages + " messages in " + parts.size() + " parts");
+            TranscriptEngine.TranscriptOutputStream index = new TranscriptEngine.TranscriptOutputStream();
+            TranscriptSink indexSink = new TranscriptSink(index, options, indexName());
+            template.writeHead(indexSink.html(), values);
+            indexSink.html().write(context.encode(context.html()));
+            template.writeTail(indexSink.html(), values);
+            count(indexSink.finish(0));
+            uploads.add(FileUpload.fromData(index.toInputStream(), baseName + "-index" + extension));
+        } finally {
+            context.release();
+        }
+        return uploads;
+    }
+
+    /**
+     * @return the figures of every part and the index page together
+     */
+    TranscriptStats stats() {
+        long messages = parts.stream().mapToLong(Part::messageCount).sum();
+        return new TranscriptStats(messages, htmlBytes, outputBytes, System.nanoTime() - start);
+    }
+
+    private void openPart(long messageId) throws IOException {
+        int number = parts.size() + 1;
+        buffer = new TranscriptEngine.TranscriptOutputStream();
+        sink = new TranscriptSink(buffer, options, htmlName(number));
+        partMessages = 0;
+        partDay = sharding.day(messageId);
+        firstMessageId = messageId;
+
+        template.writeHead(sink.html(), slots.apply("#" + channelName + " | part " + number));
+        writeNavigation(number, false);
+    }
+
+    private void closePart(boolean hasNext) throws IOException {
+        int number = parts.size() + 1;
+        writeNavigation(number, hasNext);
+        template.writeTail(sink.html(), slots.apply(""));
+        count(sink.finish(partMessages));
+
+        parts.add(new Part(htmlName(number), partMessages, firstMessageId, lastMessageId));
+        uploads.add(FileUpload.fromData(buffer.toInputStream(), baseName + "-" + number + extension));
+        buffer = null;
+        sink = null;
+    }
+
+    /**
+     * Write links to the previous part, the index page and, at the end of a part, the next part
+     */
+    private void writeNavigation(int number, boolean hasNext) throws IOException {
+        RenderContext context = RenderContext.acquire();
+        try {
+            context.append("<nav class=\"chatlog__shard-nav\">\n");
+            if (number > 1) {
+                context.append("<a").attribute("href", htmlName(number - 1)).append(">Previous part</a>\n");
+            }
+            context.append("<a").attribute("href", indexName()).append(">All parts</a>\n");
+            if (hasNext) {
+                context.append("<a").attribute("href", htmlName(number + 1)).append(">Next part</a>\n");
+            }
+            context.append("</nav>\n");
+            sink.html().write(context.encode(context.html()));
+        } finally {
+            context.release();
+        }
+    }
+
+    private void count(TranscriptStats stats) {
+        htmlBytes += stats.htmlBytes();
+        outputBytes += stats.outputBytes();
+    }
+
+    /**
+     * @return the name of the html of a part, which is also its name inside an archive or once decompressed
+     */
+    private String htmlName(int number) {
+        return baseName + "-" + number + ".html";
+    }
+
+    private String indexName() {
+        return baseName + "-index.html";
+    }
+
+    private record Part(String htmlName, long messageCount, long firstMessageId, long lastMessageId) {
+    }
+}
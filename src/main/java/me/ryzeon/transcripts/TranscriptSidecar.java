@@ -0,0 +1,69 @@
+package me.ryzeon.transcripts;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * State stored next to a rendered transcript so it can be extended later without rendering it again
+ *
+ * @param lastMessageId the id of the newest message in the transcript
+ * @param chatlogEnd    the byte offset the chatlog ends at, new message groups are written from here on
+ * @param messageCount  the amount of messages in the transcript
+ */
+public record TranscriptSidecar(long lastMessageId, long chatlogEnd, long messageCount) {
+
+    private static final String SUFFIX = ".meta";
+
+    /**
+     * @param transcript the transcript file
+     * @return where the sidecar of the transcript is stored
+     */
+    public static Path pathOf(Path transcript) {
+        return transcript.resolveSibling(transcript.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Read the sidecar of a transcript
+     *
+     * @param transcript the transcript file
+     * @return the sidecar
+     */
+    public static TranscriptSidecar read(Path transcript) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(pathOf(transcript))) {
+            properties.load(inputStream);
+        }
+        try {
+            return new TranscriptSidecar(
+                    Long.parseUnsignedLong(properties.getProperty("lastMessageId")),
+                    Long.parseLong(properties.getProperty("chatlogEnd")),
+                    Long.parseLong(properties.getProperty("messageCount")));
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed transcript sidecar " + pathOf(transcript), e);
+        }
+    }
+
+    /**
+     * Store this sidecar next to a transcript, the previous one is replaced atomically
+     *
+     * @param transcript the transcript file
+     */
+    public void write(Path transcript) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("lastMessageId", Long.toUnsignedString(lastMessageId));
+        properties.setProperty("chatlogEnd", Long.toString(chatlogEnd));
+        properties.setProperty("messageCount", Long.toString(messageCount));
+
+        Path path = pathOf(transcript);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream outputStream = Files.newOutputStream(temp)) {
+            properties.store(outputStream, "discord-html-transcripts");
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
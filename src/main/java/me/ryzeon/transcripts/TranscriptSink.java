@@ -0,0 +1,81 @@
+package me.ryzeon.transcripts;
+
+import me.ryzeon.transcripts.assets.AssetMode;
+import me.ryzeon.transcripts.utils.io.CountingOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Target of one render: buffers the html, encodes it as configured and counts both sides
+ */
+class TranscriptSink {
+
+    private final TranscriptCompression compression;
+    private final CountingOutputStream encoded;
+    private final OutputStream encoder;
+    private final CountingOutputStream html;
+    private final long start = System.nanoTime();
+
+    TranscriptSink(OutputStream target, TranscriptOptions options) throws IOException {
+        this(target, options, TranscriptCompression.NONE.getDefaultFileName());
+    }
+
+    /**
+     * @param entryName the name of the html inside an archive
+     */
+    TranscriptSink(OutputStream target, TranscriptOptions options, String entryName) throws IOException {
+        this.compression = options.getCompression();
+        if (options.getAssetMode() == AssetMode.BUNDLE && compression != TranscriptCompression.ZIP) {
+            throw new IllegalArgumentException("Bundled assets need TranscriptCompression.ZIP");
+        }
+        this.encoded = new CountingOutputStream(target);
+        this.encoder = compression.open(encoded, options.getCompressionLevel(), entryName);
+        this.html = new CountingOutputStream(new BufferedOutputStream(encoder, 1 << 16));
+    }
+
+    /**
+     * @return the stream the html is written to
+     */
+    OutputStream html() {
+        return html;
+    }
+
+    /**
+     * @return the size of the html written so far
+     */
+    long htmlBytes() {
+        return html.getCount();
+    }
+
+    /**
+     * Add an entry next to the html of a zip, after the html is complete
+     *
+     * @param name the entry name
+     * @param data the entry content
+     */
+    void addEntry(String name, byte[] data) throws IOException {
+        if (!(encoder instanceof ZipOutputStream zip)) {
+            throw new IllegalStateException("Only zip archives hold more than the html");
+        }
+        html.flush();
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(data);
+        zip.closeEntry();
+    }
+
+    /**
+     * Flush everything and finish the encoding, the target stream stays open
+     *
+     * @param messageCount the amount of messages rendered
+     * @return the figures of the render
+     */
+    TranscriptStats finish(long messageCount) throws IOException {
+        html.flush();
+        compression.finish(encoder);
+        return new TranscriptStats(messageCount, html.getCount(), encoded.getCount(), System.nanoTime() - start);
+    }
+}
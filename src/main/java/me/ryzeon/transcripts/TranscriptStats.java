@@ -0,0 +1,26 @@
+package me.ryzeon.transcripts;
+
+/**
+ * Figures of a finished render
+ *
+ * @param messageCount the amount of messages rendered
+ * @param htmlBytes    the size of the html before compression
+ * @param outputBytes  the amount of bytes written to the target
+ * @param elapsedNanos how long the render took
+ */
+public record TranscriptStats(long messageCount, long htmlBytes, long outputBytes, long elapsedNanos) {
+
+    /**
+     * @return how many times smaller the output is than the html
+     */
+    public double compressionRatio() {
+        return outputBytes == 0 ? 0 : (double) htmlBytes / outputBytes;
+    }
+
+    /**
+     * @return the html rendered per second, in megabytes
+     */
+    public double throughputMegabytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : htmlBytes / (elapsedNanos / 1e9) / (1024 * 1024);
+    }
+}
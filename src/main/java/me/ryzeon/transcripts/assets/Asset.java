@@ -0,0 +1,77 @@
+package me.ryzeon.transcripts.assets;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * A downloaded asset
+ *
+ * @param data        the content
+ * @param contentType the content type, null when unknown
+ */
+public record Asset(byte[] data, String contentType) {
+
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    /**
+     * @return the content as a {@code data:} uri
+     */
+    public String dataUri() {
+        return "data:" + (contentType != null ? contentType : DEFAULT_CONTENT_TYPE) + ";base64,"
+                + Base64.getEncoder().encodeToString(data);
+    }
+
+    /**
+     * @return the sha-256 of the content, in hex
+     */
+    public String hash() {
+        return sha256(data);
+    }
+
+    /**
+     * Pick a file extension for the asset, from the url path or else from the content type
+     *
+     * @param url the url the asset was fetched from
+     * @return the extension without the dot
+     */
+    public String fileExtension(String url) {
+        int end = url.length();
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        int dot = url.lastIndexOf('.', end);
+        if (dot > url.lastIndexOf('/', end) && end - dot > 1 && end - dot <= 6) {
+            String extension = url.substring(dot + 1, end);
+            if (extension.chars().allMatch(Character::isLetterOrDigit)) {
+                return extension.toLowerCase(Locale.ROOT);
+            }
+        }
+        if (contentType != null) {
+            int slash = contentType.indexOf('/');
+            int parameters = contentType.indexOf(';');
+            String subtype = contentType.substring(slash + 1, parameters >= 0 ? parameters : contentType.length()).trim();
+            if (subtype.equals("jpeg")) {
+                return "jpg";
+            }
+            if (!subtype.isEmpty() && subtype.chars().allMatch(Character::isLetterOrDigit)) {
+                return subtype.toLowerCase(Locale.ROOT);
+            }
+        }
+        return "bin";
+    }
+
+    static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // required on every java platform
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package me.ryzeon.transcripts.assets;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Content addressed asset store on disk, shared between renders and processes.
+ * <p>
+ * Asset contents are stored once per sha-256 under {@code blobs/}, urls point at them through small
+ * files under {@code urls/}, so the same avatar fetched for many transcripts takes the space of one.
+ * Once the contents grow past the size limit, the least recently used ones are deleted.
+ */
+public class AssetCache {
+
+    private final Path blobs;
+    private final Path urls;
+    private final long maxBytes;
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * @param directory the directory to store assets in, created if missing
+     * @param maxBytes  the size the stored contents are kept below
+     */
+    public AssetCache(Path directory, long maxBytes) throws IOException {
+        this.blobs = Files.createDirectories(directory.resolve("blobs"));
+        this.urls = Files.createDirectories(directory.resolve("urls"));
+        this.maxBytes = maxBytes;
+        this.size.set(measure());
+    }
+
+    /**
+     * Get an asset, fetching and storing it on a miss
+     *
+     * @param url      the url of the asset
+     * @param maxBytes the largest accepted size
+     * @param fetcher  fetches the asset on a miss
+     * @return the asset
+     */
+    public Asset get(String url, long maxBytes, AssetFetcher fetcher) throws IOException {
+        Asset cached = read(url);
+        if (cached != null) {
+            return cached;
+        }
+        Asset asset = fetcher.fetch(url, maxBytes);
+        store(url, asset);
+        return asset;
+    }
+
+    /**
+     * @return the size of the stored contents in bytes
+     */
+    public long size() {
+        return size.get();
+    }
+
+    private Asset read(String url) throws IOException {
+        Path reference = urls.resolve(Asset.sha256(url.getBytes(StandardCharsets.UTF_8)));
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(reference, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (lines.isEmpty()) {
+            return null;
+        }
+
+        Path blob = blobs.resolve(lines.get(0));
+        byte[] data;
+        try {
+            data = Files.readAllBytes(blob);
+            Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            Files.deleteIfExists(reference); // the content was evicted
+            return null;
+        }
+        return new Asset(data, lines.size() > 1 && !lines.get(1).isEmpty() ? lines.get(1) : null);
+    }
+
+    private void store(String url, Asset asset) throws IOException {
+        String hash = asset.hash();
+        Path blob = blobs.resolve(hash);
+        if (Files.notExists(blob)) {
+            Path temp = Files.createTempFile(blobs, hash, ".tmp");
+            Files.write(temp, asset.data());
+            try {
+                Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE);
+                size.addAndGet(asset.data().length);
+            } catch (FileAlreadyExistsException e) {
+                Files.deleteIfExists(temp); // stored by another render in the meantime
+            }
+        }
+
+        Path reference = urls.resolve(Asset.sha256(url.getBytes(StandardCharsets.UTF_8)));
+        Path temp = Files.createTempFile(urls, "url", ".tmp");
+        Files.writeString(temp, hash + "\n" + (asset.contentType() != null ? asset.contentType() : "") + "\n");
+        Files.move(temp, reference, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        if (size.get() > maxBytes) {
+            evict();
+        }
+    }
+
+    /**
+     * Delete the least recently used contents until the cache fits its size limit again
+     */
+    private synchronized void evict() throws IOException {
+        List<Content> contents = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(blobs)) {
+            for (Path path : stream) {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    if (!path.getFileName().toString().endsWith(".tmp")) {
+                        contents.add(new Content(path, attributes.size(), attributes.lastModifiedTime()));
+                    }
+                } catch (NoSuchFileException ignored) {
+                    // deleted by another process
+                }
+            }
+        }
+        contents.sort(Comparator.comparing(Content::lastModified));
+
+        long total = contents.stream().mapToLong(Content::size).sum();
+        for (Content content : contents) {
+            if (total <= maxBytes) {
+                break;
+            }
+            Files.deleteIfExists(content.path());
+            total -= content.size();
+        }
+        size.set(total);
+    }
+
+    private long measure() throws IOException {
+        try (Stream<Path> stream = Files.list(blobs)) {
+            return stream.mapToLong(path -> {
+                try {
+                    return Files.size(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).sum();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private record Content(Path path, long size, FileTime lastModified) {
+    }
+}
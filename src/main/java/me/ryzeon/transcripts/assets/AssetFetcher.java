@@ -0,0 +1,20 @@
+package me.ryzeon.transcripts.assets;
+
+import java.io.IOException;
+
+/**
+ * Downloads the assets a transcript refers to. Called from several threads at once.
+ */
+@FunctionalInterface
+public interface AssetFetcher {
+
+    /**
+     * Download an asset
+     *
+     * @param url      the url of the asset
+     * @param maxBytes the largest accepted size, bigger assets fail
+     * @return the asset
+     * @throws IOException when the asset cannot be downloaded or is too big
+     */
+    Asset fetch(String url, long maxBytes) throws IOException;
+}
@@ -0,0 +1,22 @@
+package me.ryzeon.transcripts.assets;
+
+/**
+ * Where a transcript takes its avatars, attachments, embed images and guild icon from
+ */
+public enum AssetMode {
+
+    /**
+     * Link to the Discord cdn, the links expire after a while
+     */
+    LINK,
+
+    /**
+     * Embed every asset into the html as a {@code data:} uri
+     */
+    INLINE,
+
+    /**
+     * Store every asset as an entry of the transcript zip, needs {@code TranscriptCompression.ZIP}
+     */
+    BUNDLE
+}
@@ -0,0 +1,82 @@
+package me.ryzeon.transcripts.assets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Fetches assets over http with the java http client
+ */
+public class HttpAssetFetcher implements AssetFetcher {
+
+    private final HttpClient client;
+    private final Duration timeout;
+
+    /**
+     * @return a fetcher with default timeouts, shared by every render that does not set its own
+     */
+    public static HttpAssetFetcher shared() {
+        return Holder.INSTANCE;
+    }
+
+    public HttpAssetFetcher() {
+        this(HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build(), Duration.ofSeconds(30));
+    }
+
+    /**
+     * @param client  the client requests are sent with
+     * @param timeout the timeout of a single request
+     */
+    public HttpAssetFetcher(HttpClient client, Duration timeout) {
+        this.client = client;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public Asset fetch(String url, long maxBytes) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .GET()
+                .build();
+        HttpResponse<InputStream> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + url, e);
+        }
+
+        try (InputStream body = response.body()) {
+            if (response.statusCode() / 100 != 2) {
+                throw new IOException("Fetching " + url + " failed with status " + response.statusCode());
+            }
+            long length = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+            if (length > maxBytes) {
+                throw new IOException(url + " is larger than " + maxBytes + " bytes");
+            }
+
+            ByteArrayOutputStream data = new ByteArrayOutputStream(length > 0 ? (int) length : 8192);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = body.read(buffer)) >= 0) {
+                if (data.size() + read > maxBytes) {
+                    throw new IOException(url + " is larger than " + maxBytes + " bytes");
+                }
+                data.write(buffer, 0, read);
+            }
+            return new Asset(data.toByteArray(), response.headers().firstValue("Content-Type").orElse(null));
+        }
+    }
+
+    private static final class Holder {
+        private static final HttpAssetFetcher INSTANCE = new HttpAssetFetcher();
+    }
+}
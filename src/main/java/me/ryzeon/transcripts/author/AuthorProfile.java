@@ -0,0 +1,39 @@
+package me.ryzeon.transcripts.author;
+
+import me.ryzeon.transcripts.Formatter;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.User;
+
+import java.awt.*;
+
+/**
+ * Everything a transcript shows about a message author, resolved once per author
+ *
+ * @param id          the user id
+ * @param name        the user name
+ * @param displayName the nickname, global name or user name, whichever is set first
+ * @param colorHex    the role colour as six hex digits, null when the author has no coloured role or left the guild
+ * @param avatarUrl   the effective avatar url
+ * @param bot         whether the author is a bot
+ */
+public record AuthorProfile(long id, String name, String displayName, String colorHex, String avatarUrl, boolean bot) {
+
+    /**
+     * Resolve the profile of a user, falling back to the plain user data when they are no longer a member
+     *
+     * @param guild the guild the transcript belongs to
+     * @param user  the author
+     * @return the profile
+     */
+    public static AuthorProfile resolve(Guild guild, User user) {
+        Member member = guild.getMember(user);
+        if (member == null) {
+            String displayName = user.getGlobalName() != null ? user.getGlobalName() : user.getName();
+            return new AuthorProfile(user.getIdLong(), user.getName(), displayName, null, user.getEffectiveAvatarUrl(), user.isBot());
+        }
+        Color color = member.getColor();
+        return new AuthorProfile(user.getIdLong(), user.getName(), member.getEffectiveName(),
+                color != null ? Formatter.toHex(color) : null, member.getEffectiveAvatarUrl(), user.isBot());
+    }
+}
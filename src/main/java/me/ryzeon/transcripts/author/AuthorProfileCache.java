@@ -0,0 +1,64 @@
+package me.ryzeon.transcripts.author;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.User;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least recently used cache of author profiles, shared between renders.
+ * <p>
+ * Profiles are kept per guild since role colours and nicknames differ between guilds.
+ * A profile is only as fresh as the render that resolved it, pick the size accordingly.
+ */
+public class AuthorProfileCache {
+
+    private final Map<Key, AuthorProfile> profiles;
+
+    /**
+     * @param maxSize the maximum amount of profiles kept
+     */
+    public AuthorProfileCache(int maxSize) {
+        this.profiles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, AuthorProfile> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get the cached profile of a user, resolving it on a miss
+     *
+     * @param guild the guild the transcript belongs to
+     * @param user  the author
+     * @return the profile
+     */
+    public AuthorProfile get(Guild guild, User user) {
+        Key key = new Key(guild.getIdLong(), user.getIdLong());
+        synchronized (profiles) {
+            AuthorProfile profile = profiles.get(key);
+            if (profile != null) {
+                return profile;
+            }
+        }
+        AuthorProfile profile = AuthorProfile.resolve(guild, user);
+        synchronized (profiles) {
+            profiles.put(key, profile);
+        }
+        return profile;
+    }
+
+    /**
+     * Drop every cached profile
+     */
+    public void clear() {
+        synchronized (profiles) {
+            profiles.clear();
+        }
+    }
+
+    private record Key(long guildId, long userId) {
+    }
+}
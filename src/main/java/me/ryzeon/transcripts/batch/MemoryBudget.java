@@ -0,0 +1,40 @@
+package me.ryzeon.transcripts.batch;
+
+/**
+ * Bytes transcripts of a batch may hold at once. A reservation bigger than the whole budget is granted
+ * once nothing else is reserved, so oversized transcripts run alone instead of never.
+ */
+class MemoryBudget {
+
+    private final long maxBytes;
+    private long reserved;
+
+    MemoryBudget(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Wait until the bytes fit the budget and reserve them
+     */
+    synchronized void reserve(long bytes) throws InterruptedException {
+        while (reserved > 0 && reserved + bytes > maxBytes) {
+            wait();
+        }
+        reserved += bytes;
+    }
+
+    /**
+     * Change a reservation to the actual size without waiting, the budget may be exceeded for a while
+     */
+    synchronized void adjust(long delta) {
+        reserved += delta;
+        if (delta < 0) {
+            notifyAll();
+        }
+    }
+
+    synchronized void release(long bytes) {
+        reserved -= bytes;
+        notifyAll();
+    }
+}
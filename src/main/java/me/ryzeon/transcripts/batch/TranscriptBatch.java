@@ -0,0 +1,308 @@
+package me.ryzeon.transcripts.batch;
+
+import me.ryzeon.transcripts.DiscordHtmlTranscripts;
+import me.ryzeon.transcripts.TranscriptEngine;
+import me.ryzeon.transcripts.TranscriptOptions;
+import me.ryzeon.transcripts.TranscriptStats;
+import me.ryzeon.transcripts.author.AuthorProfileCache;
+import me.ryzeon.transcripts.fetch.MessagePageSource;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Renders many transcripts at once, e.g. every ticket of a closed category.
+ * <p>
+ * Jobs start in the order they were submitted, as long as fewer than {@code concurrency} jobs run and their
+ * estimated size fits the memory budget. Message collections render on the worker pool, channel histories are
+ * fetched page by page while earlier pages render. Every job of a batch shares the template and author profiles,
+ * assets are shared through {@link TranscriptOptions#getAssetCache()}.
+ * <p>
+ * Instances are thread safe and can run several batches at once, which then share the limits.
+ */
+public class TranscriptBatch implements AutoCloseable {
+
+    private final TranscriptEngine engine;
+    private final TranscriptOptions options;
+    private final TranscriptOptions channelOptions;
+    private final ExecutorService ownedWorkers;
+    private final Executor workers;
+    private final Semaphore slots;
+    private final MemoryBudget budget;
+    private final long estimatedBytesPerMessage;
+    private final int estimatedChannelMessages;
+
+    private TranscriptBatch(Builder builder) {
+        this.engine = builder.engine;
+        if (builder.executor != null) {
+            this.ownedWorkers = null;
+            this.workers = builder.executor;
+        } else {
+            this.ownedWorkers = Executors.newFixedThreadPool(builder.workers, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "transcript-batch-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.workers = ownedWorkers;
+        }
+
+        TranscriptOptions.TranscriptOptionsBuilder shared = builder.options.toBuilder();
+        if (builder.options.getTemplate() == null) {
+            shared.template(engine.getTemplate());
+        }
+        if (builder.options.getAuthorCache() == null) {
+            shared.authorCache(new AuthorProfileCache(builder.authorCacheSize));
+        }
+        this.options = shared.build();
+        this.channelOptions = options.getExecutor() != null ? options : options.toBuilder().executor(workers).build();
+        this.slots = new Semaphore(builder.concurrency);
+        this.budget = new MemoryBudget(builder.memoryBudget);
+        this.estimatedBytesPerMessage = builder.estimatedBytesPerMessage;
+        this.estimatedChannelMessages = builder.estimatedChannelMessages;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Render transcripts in the background
+     *
+     * @param jobs     the transcripts to render
+     * @param callback receives each result as soon as its job finished, failed jobs included. It is called
+     *                 from the worker threads, possibly for several jobs at once. The memory of a transcript is
+     *                 counted against the budget until the callback returns.
+     * @return a future completed once every result was handed to the callback, or with the first callback failure
+     */
+    public CompletableFuture<Void> submit(Collection<TranscriptJob> jobs, Consumer<TranscriptResult> callback) {
+        List<TranscriptJob> queue = List.copyOf(jobs);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (queue.isEmpty()) {
+            done.complete(null);
+            return done;
+        }
+
+        Thread dispatcher = new Thread(() -> dispatch(queue, callback, done), "transcript-batch-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        return done;
+    }
+
+    /**
+     * Render transcripts and wait for them, see {@link #submit(Collection, Consumer)}
+     */
+    public void run(Collection<TranscriptJob> jobs, Consumer<TranscriptResult> callback) throws InterruptedException {
+        try {
+            submit(jobs, callback).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    private void dispatch(List<TranscriptJob> queue, Consumer<TranscriptResult> callback, CompletableFuture<Void> done) {
+        AtomicInteger remaining = new AtomicInteger(queue.size());
+        AtomicReference<Throwable> callbackError = new AtomicReference<>();
+        for (TranscriptJob job : queue) {
+            long estimate = estimate(job);
+            try {
+                slots.acquire();
+                try {
+                    budget.reserve(estimate);
+                } catch (InterruptedException e) {
+                    slots.release();
+                    throw e;
+                }
+            } catch (InterruptedException e) {
+                done.completeExceptionally(e);
+                return;
+            }
+
+            CompletableFuture<TranscriptResult> rendered;
+            try {
+                rendered = render(job);
+            } catch (RuntimeException e) {
+                // e.g. a worker pool shut down while the batch ran, the job still gets its result and frees its limits
+                rendered = CompletableFuture.completedFuture(new TranscriptResult(job, fileName(job), null, null, e));
+            }
+            rendered.whenComplete((result, error) -> {
+                long size = result.data() != null ? result.data().length : 0;
+                budget.adjust(size - estimate);
+                try {
+                    callback.accept(result);
+                } catch (Throwable e) {
+                    callbackError.compareAndSet(null, e);
+                } finally {
+                    budget.release(size);
+                    slots.release();
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    if (callbackError.get() != null) {
+                        done.completeExceptionally(callbackError.get());
+                    } else {
+                        done.complete(null);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * @return a future of the result, never completed exceptionally
+     */
+    private CompletableFuture<TranscriptResult> render(TranscriptJob job) {
+        String fileName = fileName(job);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        CompletableFuture<TranscriptStats> stats;
+        if (job.messages() != null) {
+            stats = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return engine.writeTranscript(job.messages(), outputStream, options);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, workers);
+        } else {
+            try {
+                MessagePageSource pages = MessagePageSource.of(job.channel().getIterableHistory(), options.getPageSize());
+                stats = engine.writeTranscriptAsync(job.channel(), pages, outputStream, channelOptions);
+            } catch (RuntimeException e) {
+                stats = CompletableFuture.failedFuture(e);
+            }
+        }
+        return stats.handle((figures, error) -> error == null
+                ? new TranscriptResult(job, fileName, outputStream.toByteArray(), figures, null)
+                : new TranscriptResult(job, fileName, null, null,
+                error instanceof CompletionException && error.getCause() != null ? error.getCause() : error));
+    }
+
+    private String fileName(TranscriptJob job) {
+        return job.fileName() != null ? job.fileName() : options.getCompression().getDefaultFileName();
+    }
+
+    private long estimate(TranscriptJob job) {
+        int messages = job.messages() != null ? job.messages().size() : estimatedChannelMessages;
+        return messages * estimatedBytesPerMessage;
+    }
+
+    /**
+     * Stop the worker pool, if this batch created it. Running jobs are not waited for.
+     */
+    @Override
+    public void close() {
+        if (ownedWorkers != null) {
+            ownedWorkers.shutdown();
+        }
+    }
+
+    public static final class Builder {
+
+        private TranscriptEngine engine = DiscordHtmlTranscripts.getInstance().getEngine();
+        private TranscriptOptions options = TranscriptOptions.DEFAULT;
+        private Executor executor;
+        private int workers = Runtime.getRuntime().availableProcessors();
+        private int concurrency = Runtime.getRuntime().availableProcessors() * 2;
+        private long memoryBudget = Runtime.getRuntime().maxMemory() / 4;
+        private long estimatedBytesPerMessage = 2048;
+        private int estimatedChannelMessages = 1000;
+        private int authorCacheSize = 10_000;
+
+        private Builder() {
+        }
+
+        /**
+         * @param engine the engine jobs render with, its template is used unless the options set one
+         */
+        public Builder engine(TranscriptEngine engine) {
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * @param transcripts the instance whose current engine jobs render with
+         */
+        public Builder transcripts(DiscordHtmlTranscripts transcripts) {
+            return engine(transcripts.getEngine());
+        }
+
+        /**
+         * @param options the options of every job of the batch
+         */
+        public Builder options(TranscriptOptions options) {
+            this.options = options;
+            return this;
+        }
+
+        /**
+         * @param executor the executor jobs render on, instead of a pool of {@link #workers(int)} threads
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * @param workers the amount of threads jobs render on
+         */
+        public Builder workers(int workers) {
+            this.workers = Math.max(1, workers);
+            return this;
+        }
+
+        /**
+         * @param concurrency the amount of jobs running at once, fetching included
+         */
+        public Builder concurrency(int concurrency) {
+            this.concurrency = Math.max(1, concurrency);
+            return this;
+        }
+
+        /**
+         * @param memoryBudget the bytes the transcripts of running jobs may take together
+         */
+        public Builder memoryBudget(long memoryBudget) {
+            this.memoryBudget = memoryBudget;
+            return this;
+        }
+
+        /**
+         * @param estimatedBytesPerMessage the size a message is expected to take in a transcript
+         */
+        public Builder estimatedBytesPerMessage(long estimatedBytesPerMessage) {
+            this.estimatedBytesPerMessage = estimatedBytesPerMessage;
+            return this;
+        }
+
+        /**
+         * @param estimatedChannelMessages the amount of messages a channel is expected to hold, its history is not counted up front
+         */
+        public Builder estimatedChannelMessages(int estimatedChannelMessages) {
+            this.estimatedChannelMessages = estimatedChannelMessages;
+            return this;
+        }
+
+        /**
+         * @param authorCacheSize the amount of author profiles shared by the jobs, unless the options set a cache
+         */
+        public Builder authorCacheSize(int authorCacheSize) {
+            this.authorCacheSize = authorCacheSize;
+            return this;
+        }
+
+        public TranscriptBatch build() {
+            return new TranscriptBatch(this);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package me.ryzeon.transcripts.batch;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildMessageChannel;
+
+import java.util.Collection;
+
+/**
+ * One transcript of a {@link TranscriptBatch}, rendered either from a channel history or from given messages
+ *
+ * @param name     identifies the job in its result, e.g. the channel name
+ * @param fileName the file name of the transcript, null uses the default of the compression
+ * @param channel  the channel whose history is fetched, null when messages are given
+ * @param messages the messages to render, null when the history is fetched
+ */
+public record TranscriptJob(String name, String fileName, GuildMessageChannel channel, Collection<Message> messages) {
+
+    /**
+     * @param channel the channel whose whole history is rendered
+     * @return the job
+     */
+    public static TranscriptJob of(GuildMessageChannel channel) {
+        return new TranscriptJob(channel.getName(), null, channel, null);
+    }
+
+    /**
+     * @param name     identifies the job in its result
+     * @param messages the messages to render
+     * @return the job
+     */
+    public static TranscriptJob of(String name, Collection<Message> messages) {
+        return new TranscriptJob(name, null, null, messages);
+    }
+
+    /**
+     * @param fileName the file name of the transcript
+     * @return a copy of this job with another file name
+     */
+    public TranscriptJob withFileName(String fileName) {
+        return new TranscriptJob(name, fileName, channel, messages);
+    }
+}
@@ -0,0 +1,36 @@
+package me.ryzeon.transcripts.batch;
+
+import me.ryzeon.transcripts.TranscriptStats;
+import net.dv8tion.jda.api.utils.FileUpload;
+
+import java.io.ByteArrayInputStream;
+
+/**
+ * Outcome of one {@link TranscriptJob}
+ *
+ * @param job      the job
+ * @param fileName the file name of the transcript
+ * @param data     the transcript, null if the job failed
+ * @param stats    the figures of the render, null if the job failed
+ * @param error    why the job failed, null if it succeeded
+ */
+public record TranscriptResult(TranscriptJob job, String fileName, byte[] data, TranscriptStats stats, Throwable error) {
+
+    /**
+     * @return whether the transcript was rendered
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * @return the transcript, ready to be sent
+     * @throws IllegalStateException if the job failed
+     */
+    public FileUpload toFileUpload() {
+        if (error != null) {
+            throw new IllegalStateException("The transcript of " + job.name() + " failed", error);
+        }
+        return FileUpload.fromData(new ByteArrayInputStream(data), fileName);
+    }
+}
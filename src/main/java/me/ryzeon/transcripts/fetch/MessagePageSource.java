@@ -0,0 +1,72 @@
+package me.ryzeon.transcripts.fetch;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.requests.restaction.pagination.MessagePaginationAction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Source of message history pages, oldest page first.
+ * <p>
+ * {@link #nextPage()} is never called again before the previous page completed,
+ * which is what a stateful paginator like {@link MessagePaginationAction} needs.
+ */
+@FunctionalInterface
+public interface MessagePageSource {
+
+    /**
+     * Fetch the next page
+     *
+     * @return the messages of the page in ascending order, an empty list once the history is exhausted
+     */
+    CompletableFuture<List<Message>> nextPage();
+
+    /**
+     * Fetch every remaining page
+     *
+     * @return the messages of every page, in ascending order
+     */
+    default CompletableFuture<List<Message>> collect() {
+        return collect(new ArrayList<>());
+    }
+
+    private CompletableFuture<List<Message>> collect(List<Message> messages) {
+        return nextPage().thenCompose(page -> {
+            if (page.isEmpty()) {
+                return CompletableFuture.completedFuture(messages);
+            }
+            messages.addAll(page);
+            return collect(messages);
+        });
+    }
+
+    /**
+     * Page through a channel history from its first message on
+     *
+     * @param action   the pagination action, e.g. {@code channel.getIterableHistory()}
+     * @param pageSize the amount of messages per page, at most 100
+     * @return the page source
+     */
+    static MessagePageSource of(MessagePaginationAction action, int pageSize) {
+        action.order(MessagePaginationAction.PaginationOrder.FORWARD)
+                .cache(false)
+                .limit(Math.min(pageSize, action.getMaxLimit()));
+        return action::submit;
+    }
+
+    /**
+     * Page through a channel history starting after the given message
+     *
+     * @param action    the pagination action, e.g. {@code channel.getIterableHistory()}
+     * @param pageSize  the amount of messages per page, at most 100
+     * @param messageId only messages sent after this one are fetched
+     * @return the page source
+     */
+    static MessagePageSource of(MessagePaginationAction action, int pageSize, long messageId) {
+        MessagePageSource source = of(action, pageSize);
+        action.skipTo(messageId);
+        return source;
+    }
+}
@@ -0,0 +1,135 @@
+package me.ryzeon.transcripts.fetch;
+
+import net.dv8tion.jda.api.entities.Message;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Fetches pages one after another while earlier pages are consumed.
+ * <p>
+ * At most {@code capacity} fetched pages wait to be consumed, so only a bounded amount of
+ * messages is alive at any time. Pages are consumed one at a time, in the order they were fetched.
+ */
+public final class PagePipeline {
+
+    private final MessagePageSource source;
+    private final int capacity;
+    private final Executor executor;
+    private final PageConsumer consumer;
+
+    private final ArrayDeque<List<Message>> buffer = new ArrayDeque<>();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private boolean fetching, consuming, exhausted;
+    private Throwable failure;
+
+    /**
+     * @param source   where pages come from
+     * @param capacity the amount of fetched pages that may wait to be consumed
+     * @param executor the executor pages are consumed on
+     * @param consumer what to do with each page
+     */
+    public PagePipeline(MessagePageSource source, int capacity, Executor executor, PageConsumer consumer) {
+        this.source = source;
+        this.capacity = Math.max(1, capacity);
+        this.executor = executor;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Start fetching
+     *
+     * @return a future completed once every page was consumed, or with the first failure once the page being
+     * consumed, if any, is done
+     */
+    public CompletableFuture<Void> start() {
+        pump();
+        return done;
+    }
+
+    private synchronized void pump() {
+        if (done.isDone()) {
+            return;
+        }
+        if (failure != null) {
+            // nothing is consumed anymore once the future completed
+            if (!consuming) {
+                buffer.clear();
+                done.completeExceptionally(failure);
+            }
+            return;
+        }
+        // a page is taken before fetching, pages completed right away would otherwise stop the fetching short
+        if (!consuming && !buffer.isEmpty()) {
+            consuming = true;
+            List<Message> page = buffer.poll();
+            CompletableFuture.runAsync(() -> {
+                try {
+                    consumer.accept(page);
+                } catch (Exception e) {
+                    throw new PageConsumerException(e);
+                }
+            }, executor).whenComplete(this::onConsumed);
+        }
+        if (!fetching && !exhausted && buffer.size() < capacity) {
+            fetching = true;
+            CompletableFuture<List<Message>> page;
+            try {
+                page = source.nextPage();
+            } catch (RuntimeException e) {
+                page = CompletableFuture.failedFuture(e);
+            }
+            page.whenComplete(this::onFetched);
+        }
+        if (exhausted && buffer.isEmpty() && !fetching && !consuming) {
+            done.complete(null);
+        }
+    }
+
+    private void onFetched(List<Message> page, Throwable error) {
+        synchronized (this) {
+            fetching = false;
+            if (error != null) {
+                fail(error);
+            } else if (page == null || page.isEmpty()) {
+                exhausted = true;
+            } else {
+                buffer.add(page);
+            }
+        }
+        pump();
+    }
+
+    private void onConsumed(Void ignored, Throwable error) {
+        synchronized (this) {
+            consuming = false;
+            if (error != null) {
+                fail(error.getCause() instanceof PageConsumerException e ? e.getCause() : error);
+            }
+        }
+        pump();
+    }
+
+    private synchronized void fail(Throwable error) {
+        if (failure == null) {
+            failure = error;
+        }
+    }
+
+    @FunctionalInterface
+    public interface PageConsumer {
+
+        void accept(List<Message> page) throws Exception;
+    }
+
+    private static class PageConsumerException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        PageConsumerException(Exception cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package me.ryzeon.transcripts.fetch;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.attribute.IThreadContainer;
+import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches the threads of a channel and their histories, a bounded amount of threads at a time
+ */
+public final class ThreadFetcher {
+
+    private ThreadFetcher() {
+    }
+
+    /**
+     * Fetch the active and the archived public threads of a channel, or the posts of a forum channel
+     *
+     * @param channel the channel
+     * @return a future of the threads, oldest first
+     */
+    public static CompletableFuture<List<ThreadChannel>> threads(IThreadContainer channel) {
+        return channel.retrieveArchivedPublicThreadChannels()
+                .takeRemainingAsync(Integer.MAX_VALUE)
+                .thenApply(archived -> {
+                    Map<Long, ThreadChannel> threads = new TreeMap<>();
+                    for (ThreadChannel thread : channel.getThreadChannels()) {
+                        threads.put(thread.getIdLong(), thread);
+                    }
+                    for (ThreadChannel thread : archived) {
+                        threads.putIfAbsent(thread.getIdLong(), thread);
+                    }
+                    return List.copyOf(threads.values());
+                });
+    }
+
+    /**
+     * Fetch the whole history of every thread, at most {@code concurrency} threads at once. A thread is fetched
+     * page by page, the next thread starts as soon as one is done.
+     *
+     * @param threads     the threads
+     * @param pageSize    the amount of messages per page, at most 100
+     * @param concurrency the amount of threads fetched at once
+     * @return a future of the messages of every thread in ascending order, by thread in the given order
+     */
+    public static CompletableFuture<Map<ThreadChannel, List<Message>>> histories(List<ThreadChannel> threads, int pageSize,
+                                                                              int concurrency) {
+        List<List<Message>> histories = new ArrayList<>(Collections.nCopies(threads.size(), null));
+        AtomicInteger next = new AtomicInteger();
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[Math.min(Math.max(1, concurrency), threads.size())];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = fetchNext(threads, pageSize, next, histories);
+        }
+        return CompletableFuture.allOf(workers).thenApply(ignored -> {
+            Map<ThreadChannel, List<Message>> byThread = new LinkedHashMap<>();
+            for (int i = 0; i < threads.size(); i++) {
+                byThread.put(threads.get(i), histories.get(i));
+            }
+            return byThread;
+        });
+    }
+
+    private static CompletableFuture<Void> fetchNext(List<ThreadChannel> threads, int pageSize, AtomicInteger next,
+                                                     List<List<Message>> histories) {
+        int index = next.getAndIncrement();
+        if (index >= threads.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return MessagePageSource.of(threads.get(index).getIterableHistory(), pageSize)
+                .collect()
+                .thenCompose(messages -> {
+                    histories.set(index, messages);
+                    return fetchNext(threads, pageSize, next, histories);
+                });
+    }
+}
@@ -0,0 +1,122 @@
+package me.ryzeon.transcripts.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * Reports renders as Java Flight Recorder events, to be read with JDK Mission Control or {@code jfr print}.
+ * Every render becomes a {@code me.ryzeon.transcripts.Render} event, markdown inputs slower than the threshold
+ * a {@code me.ryzeon.transcripts.SlowMarkdown} event.
+ */
+public class JfrTranscriptMetrics implements TranscriptMetrics {
+
+    private final long slowMarkdownNanos;
+
+    /**
+     * @param slowMarkdownNanos markdown inputs taking at least this long are reported
+     */
+    public JfrTranscriptMetrics(long slowMarkdownNanos) {
+        this.slowMarkdownNanos = slowMarkdownNanos;
+    }
+
+    @Override
+    public boolean enabled() {
+        return FlightRecorder.isInitialized();
+    }
+
+    @Override
+    public void markdown(CharSequence input, long nanos) {
+        if (nanos < slowMarkdownNanos) {
+            return;
+        }
+        SlowMarkdownEvent event = new SlowMarkdownEvent();
+        if (event.shouldCommit()) {
+            event.length = input.length();
+            event.excerpt = input.subSequence(0, Math.min(input.length(), 120)).toString();
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void rendered(RenderSummary summary) {
+        RenderEvent event = new RenderEvent();
+        if (event.shouldCommit()) {
+            event.messages = summary.messages();
+            event.embeds = summary.embeds();
+            event.attachments = summary.attachments();
+            event.markdownCalls = summary.markdownCalls();
+            event.htmlBytes = summary.stats().htmlBytes();
+            event.outputBytes = summary.stats().outputBytes();
+            event.allocatedBytes = summary.allocatedBytes();
+            event.elapsed = summary.stats().elapsedNanos();
+            event.fetch = summary.nanos(Phase.FETCH);
+            event.sort = summary.nanos(Phase.SORT);
+            event.assets = summary.nanos(Phase.ASSETS);
+            event.render = summary.nanos(Phase.RENDER);
+            event.markdown = summary.nanos(Phase.MARKDOWN);
+            event.embedsTime = summary.nanos(Phase.EMBEDS);
+            event.serialize = summary.nanos(Phase.SERIALIZE);
+            event.commit();
+        }
+    }
+
+    @Name("me.ryzeon.transcripts.Render")
+    @Label("Transcript Render")
+    @Category("Discord Transcripts")
+    static class RenderEvent extends Event {
+        @Label("Messages")
+        long messages;
+        @Label("Embeds")
+        long embeds;
+        @Label("Attachments")
+        long attachments;
+        @Label("Markdown Calls")
+        long markdownCalls;
+        @Label("Html Bytes")
+        @DataAmount
+        long htmlBytes;
+        @Label("Output Bytes")
+        @DataAmount
+        long outputBytes;
+        @Label("Allocated Bytes")
+        @DataAmount
+        long allocatedBytes;
+        @Label("Elapsed")
+        @Timespan
+        long elapsed;
+        @Label("Fetch")
+        @Timespan
+        long fetch;
+        @Label("Sort")
+        @Timespan
+        long sort;
+        @Label("Assets")
+        @Timespan
+        long assets;
+        @Label("Render")
+        @Timespan
+        long render;
+        @Label("Markdown")
+        @Timespan
+        long markdown;
+        @Label("Embeds Time")
+        @Timespan
+        long embedsTime;
+        @Label("Serialize")
+        @Timespan
+        long serialize;
+    }
+
+    @Name("me.ryzeon.transcripts.SlowMarkdown")
+    @Label("Slow Markdown")
+    @Category("Discord Transcripts")
+    static class SlowMarkdownEvent extends Event {
+        @Label("Length")
+        int length;
+        @Label("Excerpt")
+        String excerpt;
+        @Label("Duration")
+        @Timespan
+        long nanos;
+    }
+}
@@ -0,0 +1,149 @@
+package me.ryzeon.transcripts.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adds up the figures of every render it listens to and keeps the slowest markdown inputs
+ */
+public class RecordingTranscriptMetrics implements TranscriptMetrics {
+
+    private static final int EXCERPT_LENGTH = 120;
+
+    private final int slowestInputLimit;
+    private final PriorityQueue<SlowInput> slowestInputs = new PriorityQueue<>(Comparator.comparingLong(SlowInput::nanos));
+    private final LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+    private final LongAdder renders = new LongAdder();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder embeds = new LongAdder();
+    private final LongAdder attachments = new LongAdder();
+    private final LongAdder markdownCalls = new LongAdder();
+    private final LongAdder htmlBytes = new LongAdder();
+    private final LongAdder outputBytes = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    /**
+     * @param slowestInputLimit the amount of slowest markdown inputs kept
+     */
+    public RecordingTranscriptMetrics(int slowestInputLimit) {
+        this.slowestInputLimit = slowestInputLimit;
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void markdown(CharSequence input, long nanos) {
+        markdownCalls.increment();
+        synchronized (slowestInputs) {
+            if (slowestInputs.size() < slowestInputLimit) {
+                slowestInputs.add(SlowInput.of(input, nanos));
+            } else if (!slowestInputs.isEmpty() && slowestInputs.peek().nanos() < nanos) {
+                slowestInputs.poll();
+                slowestInputs.add(SlowInput.of(input, nanos));
+            }
+        }
+    }
+
+    @Override
+    public void rendered(RenderSummary summary) {
+        renders.increment();
+        for (Phase phase : Phase.values()) {
+            phaseNanos[phase.ordinal()].add(summary.nanos(phase));
+        }
+        messages.add(summary.messages());
+        embeds.add(summary.embeds());
+        attachments.add(summary.attachments());
+        htmlBytes.add(summary.stats().htmlBytes());
+        outputBytes.add(summary.stats().outputBytes());
+        if (summary.allocatedBytes() > 0) {
+            allocatedBytes.add(summary.allocatedBytes());
+        }
+    }
+
+    public long nanos(Phase phase) {
+        return phaseNanos[phase.ordinal()].sum();
+    }
+
+    public long renders() {
+        return renders.sum();
+    }
+
+    public long messages() {
+        return messages.sum();
+    }
+
+    public long embeds() {
+        return embeds.sum();
+    }
+
+    public long attachments() {
+        return attachments.sum();
+    }
+
+    /**
+     * @return the amount of markdown texts rendered, {@code Formatter.format} calls of renders
+     */
+    public long markdownCalls() {
+        return markdownCalls.sum();
+    }
+
+    public long htmlBytes() {
+        return htmlBytes.sum();
+    }
+
+    public long outputBytes() {
+        return outputBytes.sum();
+    }
+
+    public long allocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    /**
+     * @return the slowest markdown inputs, slowest first
+     */
+    public List<SlowInput> slowestInputs() {
+        List<SlowInput> inputs;
+        synchronized (slowestInputs) {
+            inputs = new ArrayList<>(slowestInputs);
+        }
+        inputs.sort(Comparator.comparingLong(SlowInput::nanos).reversed());
+        return inputs;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder()
+                .append("renders=").append(renders())
+                .append(" messages=").append(messages())
+                .append(" embeds=").append(embeds())
+                .append(" attachments=").append(attachments())
+                .append(" markdownCalls=").append(markdownCalls())
+                .append(" outputBytes=").append(outputBytes())
+                .append(" allocatedBytes=").append(allocatedBytes());
+        for (Phase phase : Phase.values()) {
+            builder.append(' ').append(phase.name().toLowerCase(Locale.ROOT)).append("Ms=").append(nanos(phase) / 1_000_000);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A markdown input that took long to render
+     *
+     * @param excerpt the start of the input
+     * @param length  the length of the input
+     * @param nanos   how long it took
+     */
+    public record SlowInput(String excerpt, int length, long nanos) {
+
+        static SlowInput of(CharSequence input, long nanos) {
+            String excerpt = input.subSequence(0, Math.min(input.length(), EXCERPT_LENGTH)).toString();
+            return new SlowInput(excerpt, input.length(), nanos);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package me.ryzeon.transcripts.metrics;
+
+import me.ryzeon.transcripts.TranscriptStats;
+
+/**
+ * Figures of one render.
+ * Phase times of work spread over several threads are summed up, they can exceed the elapsed time of the render.
+ *
+ * @param stats          the sizes and elapsed time of the render
+ * @param phaseNanos     the time spent per {@link TranscriptMetrics.Phase}, indexed by ordinal
+ * @param embeds         the amount of embeds rendered
+ * @param attachments    the amount of attachments rendered
+ * @param markdownCalls  the amount of markdown texts rendered
+ * @param allocatedBytes the bytes allocated while rendering message groups, -1 if the jvm does not count them
+ */
+public record RenderSummary(TranscriptStats stats, long[] phaseNanos, long embeds, long attachments,
+                            long markdownCalls, long allocatedBytes) {
+
+    /**
+     * @param phase a phase
+     * @return the time spent in it
+     */
+    public long nanos(TranscriptMetrics.Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * @return the amount of messages rendered
+     */
+    public long messages() {
+        return stats.messageCount();
+    }
+}
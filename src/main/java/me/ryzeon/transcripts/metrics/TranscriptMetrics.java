@@ -0,0 +1,85 @@
+package me.ryzeon.transcripts.metrics;
+
+/**
+ * Listener of transcript renders, set through {@code TranscriptOptions.metrics}.
+ * <p>
+ * Renders only measure anything when {@link #enabled()} is true. {@link #NOOP} is disabled, a call site that
+ * only ever sees it is reduced to nothing by the JIT. Methods are called from every thread a render runs on.
+ */
+public interface TranscriptMetrics {
+
+    /**
+     * Measures nothing, the default
+     */
+    TranscriptMetrics NOOP = new TranscriptMetrics() {
+        @Override
+        public boolean enabled() {
+            return false;
+        }
+    };
+
+    /**
+     * @return whether renders should measure and report to this listener
+     */
+    default boolean enabled() {
+        return true;
+    }
+
+    /**
+     * A markdown text was rendered to html, for message contents and embed texts
+     *
+     * @param input the markdown
+     * @param nanos how long it took
+     */
+    default void markdown(CharSequence input, long nanos) {
+    }
+
+    /**
+     * A transcript was completely written
+     *
+     * @param summary the figures of the render
+     */
+    default void rendered(RenderSummary summary) {
+    }
+
+    /**
+     * Parts of a render that are timed
+     */
+    enum Phase {
+
+        /**
+         * Waiting for message history from Discord
+         */
+        FETCH,
+
+        /**
+         * Ordering the messages
+         */
+        SORT,
+
+        /**
+         * Downloading assets, see {@code AssetMode}
+         */
+        ASSETS,
+
+        /**
+         * Rendering message groups, including markdown, embeds and serialization
+         */
+        RENDER,
+
+        /**
+         * Rendering markdown
+         */
+        MARKDOWN,
+
+        /**
+         * Rendering embeds, including the markdown of their texts
+         */
+        EMBEDS,
+
+        /**
+         * Turning rendered message groups into html bytes
+         */
+        SERIALIZE
+    }
+}
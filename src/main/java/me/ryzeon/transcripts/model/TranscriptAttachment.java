@@ -0,0 +1,32 @@
+package me.ryzeon.transcripts.model;
+
+import net.dv8tion.jda.api.entities.Message;
+
+/**
+ * A file attached to a message
+ *
+ * @param id          the attachment id
+ * @param url         the cdn url
+ * @param fileName    the file name
+ * @param size        the size in bytes
+ * @param contentType the media type, null if discord did not detect one
+ */
+public record TranscriptAttachment(long id, String url, String fileName, long size, String contentType) {
+
+    /**
+     * @param attachment an attachment of a received message
+     * @return what a transcript shows of the attachment
+     */
+    public static TranscriptAttachment of(Message.Attachment attachment) {
+        return new TranscriptAttachment(attachment.getIdLong(), attachment.getUrl(), attachment.getFileName(),
+                attachment.getSize(), attachment.getContentType());
+    }
+
+    /**
+     * @return the extension of the file name without the dot, null if it has none
+     */
+    public String fileExtension() {
+        int index = fileName.lastIndexOf('.') + 1;
+        return index == 0 || index == fileName.length() ? null : fileName.substring(index);
+    }
+}
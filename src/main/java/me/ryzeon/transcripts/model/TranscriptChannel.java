@@ -0,0 +1,25 @@
+package me.ryzeon.transcripts.model;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildChannel;
+
+/**
+ * The channel and guild shown in the header of a transcript
+ *
+ * @param id           the channel id
+ * @param name         the channel name, without {@code #}
+ * @param guildId      the guild id
+ * @param guildName    the guild name
+ * @param guildIconUrl the guild icon url, null if the guild has no icon
+ */
+public record TranscriptChannel(long id, String name, long guildId, String guildName, String guildIconUrl) {
+
+    /**
+     * @param channel a channel of a guild
+     * @return what a transcript shows of the channel
+     */
+    public static TranscriptChannel of(GuildChannel channel) {
+        Guild guild = channel.getGuild();
+        return new TranscriptChannel(channel.getIdLong(), channel.getName(), guild.getIdLong(), guild.getName(), guild.getIconUrl());
+    }
+}
@@ -0,0 +1,187 @@
+package me.ryzeon.transcripts.model;
+
+import me.ryzeon.transcripts.author.AuthorProfile;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A message as a transcript shows it, without the entity graph of a JDA message.
+ * Embeds stay {@link MessageEmbed}s, which are plain values that can be built without a JDA instance.
+ * <p>
+ * The message a reply refers to is only taken once {@link #reference()} is asked for, replies to messages in the
+ * transcript are previewed from those messages and never need it.
+ */
+public final class TranscriptMessage {
+
+    private final long id;
+    private final AuthorProfile author;
+    private final String content;
+    private final List<TranscriptAttachment> attachments;
+    private final List<MessageEmbed> embeds;
+    private final boolean reply;
+    private final long referenceId;
+    private final Message referencedMessage;
+    private final Function<User, AuthorProfile> authors;
+    private volatile TranscriptMessage reference;
+
+    /**
+     * @param id          the message id
+     * @param author      the author, null if unknown
+     * @param content     the display content, empty if the message has none
+     * @param attachments the attached files
+     * @param embeds      the embeds
+     * @param reference   the message replied to, without a reference of its own, null if this is no reply
+     */
+    public TranscriptMessage(long id, AuthorProfile author, String content, List<TranscriptAttachment> attachments,
+                             List<MessageEmbed> embeds, TranscriptMessage reference) {
+        this(id, author, content, attachments, embeds, reference != null, reference != null ? reference.id : 0, null, null);
+        this.reference = reference;
+    }
+
+    private TranscriptMessage(long id, AuthorProfile author, String content, List<TranscriptAttachment> attachments,
+                              List<MessageEmbed> embeds, boolean reply, long referenceId, Message referencedMessage,
+                              Function<User, AuthorProfile> authors) {
+        this.id = id;
+        this.author = author;
+        this.content = content != null ? content : "";
+        this.attachments = attachments != null ? attachments : List.of();
+        this.embeds = embeds != null ? embeds : List.of();
+        this.reply = reply;
+        this.referenceId = referenceId;
+        this.referencedMessage = referencedMessage;
+        this.authors = authors;
+    }
+
+    /**
+     * Take what a transcript shows of a received message
+     *
+     * @param message the message
+     * @param authors resolves the profile of an author, e.g. once per render
+     * @return the message
+     */
+    public static TranscriptMessage of(Message message, Function<User, AuthorProfile> authors) {
+        Message referenced = message.getReferencedMessage();
+        return of(message, authors, referenced, referenced != null ? authors : null);
+    }
+
+    private static TranscriptMessage of(Message message, Function<User, AuthorProfile> authors, Message referenced,
+                                        Function<User, AuthorProfile> referenceAuthors) {
+        List<TranscriptAttachment> attachments = List.of();
+        if (!message.getAttachments().isEmpty()) {
+            attachments = new ArrayList<>(message.getAttachments().size());
+            for (Message.Attachment attachment : message.getAttachments()) {
+                attachments.add(TranscriptAttachment.of(attachment));
+            }
+        }
+        List<MessageEmbed> embeds = message.getEmbeds();
+        for (MessageEmbed embed : embeds) {
+            if (embed == null) {
+                embeds = embeds.stream().filter(Objects::nonNull).toList();
+                break;
+            }
+        }
+        return new TranscriptMessage(message.getIdLong(),
+                message.getAuthor() != null ? authors.apply(message.getAuthor()) : null,
+                message.getContentDisplay(), attachments, embeds,
+                referenced != null, referenced != null ? referenced.getIdLong() : 0, referenced, referenceAuthors);
+    }
+
+    /**
+     * @return the message id
+     */
+    public long id() {
+        return id;
+    }
+
+    /**
+     * @return the author, null if unknown
+     */
+    public AuthorProfile author() {
+        return author;
+    }
+
+    /**
+     * @return the display content, empty if the message has none
+     */
+    public String content() {
+        return content;
+    }
+
+    /**
+     * @return the attached files
+     */
+    public List<TranscriptAttachment> attachments() {
+        return attachments;
+    }
+
+    /**
+     * @return the embeds
+     */
+    public List<MessageEmbed> embeds() {
+        return embeds;
+    }
+
+    /**
+     * @return whether this message replies to another one
+     */
+    public boolean isReply() {
+        return reply;
+    }
+
+    /**
+     * @return the id of the message replied to, only meaningful for {@link #isReply() replies}
+     */
+    public long referenceId() {
+        return referenceId;
+    }
+
+    /**
+     * @return the message replied to, without a reference of its own, null if this is no reply. It is taken of the
+     * copy the reply came with on the first call.
+     */
+    public TranscriptMessage reference() {
+        TranscriptMessage adapted = reference;
+        if (adapted == null && referencedMessage != null) {
+            // racing calls take equal copies
+            reference = adapted = of(referencedMessage, authors, null, null);
+        }
+        return adapted;
+    }
+
+    /**
+     * @return the message id as a string
+     */
+    public String idString() {
+        return Long.toUnsignedString(id);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TranscriptMessage other)) {
+            return false;
+        }
+        return id == other.id && Objects.equals(author, other.author) && content.equals(other.content)
+                && attachments.equals(other.attachments) && embeds.equals(other.embeds)
+                && Objects.equals(reference(), other.reference());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, author, content, attachments, embeds, reference());
+    }
+
+    @Override
+    public String toString() {
+        return "TranscriptMessage[id=" + idString() + ", author=" + author + ", content=" + content
+                + ", attachments=" + attachments + ", embeds=" + embeds + ", reference=" + reference() + "]";
+    }
+}
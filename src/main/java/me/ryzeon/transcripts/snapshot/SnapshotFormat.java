@@ -0,0 +1,35 @@
+package me.ryzeon.transcripts.snapshot;
+
+/**
+ * Layout of a message snapshot, written by {@link SnapshotWriter} and read by {@link SnapshotReader}.
+ * <p>
+ * A snapshot starts with {@link #MAGIC} and the format version, followed by the channel, the message count plus one
+ * (zero when unknown) and one record per message, each starting with {@link #MESSAGE}, until {@link #END}.
+ * Numbers are unsigned varints, message ids are stored as the difference to the previous message.
+ * <p>
+ * Repeated strings such as author names and avatar urls are written once and referred to by their index in a table
+ * built up while reading: {@code 0} is null, {@code 1} a new string that is added to the table, {@code n} the entry
+ * {@code n - 2}. Authors are shared the same way.
+ */
+final class SnapshotFormat {
+
+    static final byte[] MAGIC = {'D', 'H', 'T', 'S'};
+    static final int VERSION = 1;
+
+    static final int END = 0;
+    static final int MESSAGE = 1;
+
+    static final int NULL = 0;
+    static final int NEW = 1;
+    static final int TABLE = 2;
+
+    /**
+     * Flags of the optional parts of a message and of an embed
+     */
+    static final int HAS_REFERENCE = 1;
+    static final int HAS_TIMESTAMP = 1, HAS_THUMBNAIL = 1 << 1, HAS_PROVIDER = 1 << 2, HAS_AUTHOR = 1 << 3,
+            HAS_VIDEO = 1 << 4, HAS_FOOTER = 1 << 5, HAS_IMAGE = 1 << 6;
+
+    private SnapshotFormat() {
+    }
+}
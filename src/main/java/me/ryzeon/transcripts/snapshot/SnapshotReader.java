@@ -0,0 +1,236 @@
+package me.ryzeon.transcripts.snapshot;
+
+import me.ryzeon.transcripts.author.AuthorProfile;
+import me.ryzeon.transcripts.model.TranscriptAttachment;
+import me.ryzeon.transcripts.model.TranscriptChannel;
+import me.ryzeon.transcripts.model.TranscriptMessage;
+import me.ryzeon.transcripts.utils.io.Varints;
+import net.dv8tion.jda.api.entities.EmbedType;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static me.ryzeon.transcripts.snapshot.SnapshotFormat.*;
+
+/**
+ * Reads the messages of a snapshot written by {@link SnapshotWriter} one by one, in the order they were written.
+ * <p>
+ * Read errors are thrown as {@link UncheckedIOException} by {@link #hasNext()} and {@link #next()}.
+ */
+public final class SnapshotReader implements Iterator<TranscriptMessage>, Closeable {
+
+    private final DataInputStream in;
+    private final TranscriptChannel channel;
+    private final long messageCount;
+    private final List<String> strings = new ArrayList<>();
+    private final List<AuthorProfile> authors = new ArrayList<>();
+    private long previousId;
+    private TranscriptMessage next;
+    private boolean ended;
+
+    /**
+     * Read the header of a snapshot
+     *
+     * @param in the snapshot, closed with this reader
+     * @throws IOException if the stream holds no snapshot or one of a newer version
+     */
+    public SnapshotReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        byte[] magic = new byte[MAGIC.length];
+        this.in.readFully(magic);
+        for (int i = 0; i < magic.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new IOException("Not a transcript snapshot");
+            }
+        }
+        long version = readVarint();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        this.channel = new TranscriptChannel(readVarint(), readString(), readVarint(), readString(), readShared());
+        this.messageCount = readVarint() - 1;
+    }
+
+    /**
+     * @return the channel the messages belong to
+     */
+    public TranscriptChannel channel() {
+        return channel;
+    }
+
+    /**
+     * @return the amount of messages in the snapshot, or -1 if it was not known when it was written
+     */
+    public long messageCount() {
+        return messageCount;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !ended) {
+            try {
+                next = readMessage();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            ended = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public TranscriptMessage next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        TranscriptMessage message = next;
+        next = null;
+        return message;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private TranscriptMessage readMessage() throws IOException {
+        int tag = in.readUnsignedByte();
+        if (tag == END) {
+            return null;
+        }
+        if (tag != MESSAGE) {
+            throw new IOException("Corrupt snapshot, unknown record " + tag);
+        }
+        long id = previousId + readSignedVarint();
+        previousId = id;
+        int flags = in.readUnsignedByte();
+        AuthorProfile author = readAuthor();
+        String content = readString();
+        List<TranscriptAttachment> attachments = readAttachments();
+        List<MessageEmbed> embeds = readEmbeds();
+
+        TranscriptMessage reference = null;
+        if ((flags & HAS_REFERENCE) != 0) {
+            reference = new TranscriptMessage(readVarint(), readAuthor(), readString(), readAttachments(), readEmbeds(), null);
+        }
+        return new TranscriptMessage(id, author, content, attachments, embeds, reference);
+    }
+
+    private AuthorProfile readAuthor() throws IOException {
+        int kind = (int) readVarint();
+        if (kind == NULL) {
+            return null;
+        }
+        if (kind != NEW) {
+            return authors.get(kind - TABLE);
+        }
+        AuthorProfile author = new AuthorProfile(readVarint(), readShared(), readShared(), readShared(), readShared(),
+                in.readBoolean());
+        authors.add(author);
+        return author;
+    }
+
+    private List<TranscriptAttachment> readAttachments() throws IOException {
+        int count = (int) readVarint();
+        if (count == 0) {
+            return List.of();
+        }
+        List<TranscriptAttachment> attachments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            attachments.add(new TranscriptAttachment(readVarint(), readString(), readString(), readVarint(), readShared()));
+        }
+        return attachments;
+    }
+
+    private List<MessageEmbed> readEmbeds() throws IOException {
+        int count = (int) readVarint();
+        if (count == 0) {
+            return List.of();
+        }
+        List<MessageEmbed> embeds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            embeds.add(readEmbed());
+        }
+        return embeds;
+    }
+
+    private MessageEmbed readEmbed() throws IOException {
+        EmbedType type = EmbedType.valueOf(readShared());
+        String url = readString();
+        String title = readString();
+        String description = readString();
+        int color = (int) readVarint();
+        int flags = in.readUnsignedByte();
+
+        OffsetDateTime timestamp = null;
+        if ((flags & HAS_TIMESTAMP) != 0) {
+            Instant instant = Instant.ofEpochMilli(readSignedVarint());
+            timestamp = instant.atOffset(ZoneOffset.ofTotalSeconds((int) readSignedVarint()));
+        }
+        MessageEmbed.Thumbnail thumbnail = (flags & HAS_THUMBNAIL) != 0
+                ? new MessageEmbed.Thumbnail(readString(), readString(), (int) readSignedVarint(), (int) readSignedVarint())
+                : null;
+        MessageEmbed.Provider provider = (flags & HAS_PROVIDER) != 0
+                ? new MessageEmbed.Provider(readShared(), readShared())
+                : null;
+        MessageEmbed.AuthorInfo author = (flags & HAS_AUTHOR) != 0
+                ? new MessageEmbed.AuthorInfo(readShared(), readShared(), readShared(), readShared())
+                : null;
+        MessageEmbed.VideoInfo video = (flags & HAS_VIDEO) != 0
+                ? new MessageEmbed.VideoInfo(readString(), readString(), (int) readSignedVarint(), (int) readSignedVarint())
+                : null;
+        MessageEmbed.Footer footer = (flags & HAS_FOOTER) != 0
+                ? new MessageEmbed.Footer(readShared(), readShared(), readShared())
+                : null;
+        MessageEmbed.ImageInfo image = (flags & HAS_IMAGE) != 0
+                ? new MessageEmbed.ImageInfo(readString(), readString(), (int) readSignedVarint(), (int) readSignedVarint())
+                : null;
+
+        int fieldCount = (int) readVarint();
+        List<MessageEmbed.Field> fields = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            fields.add(new MessageEmbed.Field(readString(), readString(), in.readBoolean(), false));
+        }
+        return new MessageEmbed(url, title, description, type, timestamp, color, thumbnail, provider, author, video,
+                footer, image, fields);
+    }
+
+    private String readShared() throws IOException {
+        int kind = (int) readVarint();
+        if (kind == NULL) {
+            return null;
+        }
+        if (kind != NEW) {
+            return strings.get(kind - TABLE);
+        }
+        String value = readString();
+        strings.add(value);
+        return value;
+    }
+
+    private String readString() throws IOException {
+        long length = readVarint();
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[Math.toIntExact(length - 1)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long readSignedVarint() throws IOException {
+        return Varints.readSigned(in);
+    }
+
+    private long readVarint() throws IOException {
+        return Varints.read(in);
+    }
+}
@@ -0,0 +1,258 @@
+package me.ryzeon.transcripts.snapshot;
+
+import me.ryzeon.transcripts.MessageOrder;
+import me.ryzeon.transcripts.author.AuthorProfile;
+import me.ryzeon.transcripts.model.TranscriptAttachment;
+import me.ryzeon.transcripts.model.TranscriptChannel;
+import me.ryzeon.transcripts.model.TranscriptMessage;
+import me.ryzeon.transcripts.utils.io.Varints;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildMessageChannel;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.*;
+
+import static me.ryzeon.transcripts.snapshot.SnapshotFormat.*;
+
+/**
+ * Writes messages into a compact snapshot that can be rendered later without JDA, see {@link SnapshotReader}.
+ * <p>
+ * Messages are written as they come, they should be passed oldest first so the transcript reads in order.
+ */
+public final class SnapshotWriter implements Closeable {
+
+    private final OutputStream out;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final Map<AuthorProfile, Integer> authors = new HashMap<>();
+    private long previousId;
+    private boolean closed;
+
+    /**
+     * Start a snapshot by writing its header
+     *
+     * @param out          the stream to write to, it is flushed but not closed
+     * @param channel      the channel the messages belong to
+     * @param messageCount the amount of messages that will be written, or -1 if unknown
+     */
+    public SnapshotWriter(OutputStream out, TranscriptChannel channel, long messageCount) throws IOException {
+        this.out = new BufferedOutputStream(out, 1 << 16);
+        this.out.write(MAGIC);
+        writeVarint(VERSION);
+        writeVarint(channel.id());
+        writeString(channel.name());
+        writeVarint(channel.guildId());
+        writeString(channel.guildName());
+        writeShared(channel.guildIconUrl());
+        writeVarint(messageCount < 0 ? 0 : messageCount + 1);
+    }
+
+    /**
+     * Write a snapshot of received messages, each author is resolved once
+     *
+     * @param messages the messages, all of the same guild channel
+     * @param out      the stream to write to, it is flushed but not closed
+     */
+    public static void write(Collection<Message> messages, OutputStream out) throws IOException {
+        if (messages.isEmpty()) {
+            throw new IllegalArgumentException("No messages to take a snapshot of");
+        }
+
+        GuildMessageChannel channel = messages.iterator().next().getChannel().asGuildMessageChannel();
+        Guild guild = channel.getGuild();
+        Map<Long, AuthorProfile> profiles = new HashMap<>();
+        List<Message> sorted = MessageOrder.ascending(messages);
+        try (SnapshotWriter writer = new SnapshotWriter(out, TranscriptChannel.of(channel), sorted.size())) {
+            for (Message message : sorted) {
+                writer.write(TranscriptMessage.of(message,
+                        (User user) -> profiles.computeIfAbsent(user.getIdLong(), id -> AuthorProfile.resolve(guild, user))));
+            }
+        }
+    }
+
+    /**
+     * Append a message
+     *
+     * @param message the message
+     */
+    public void write(TranscriptMessage message) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("The snapshot is already closed");
+        }
+        out.write(MESSAGE);
+        writeSignedVarint(message.id() - previousId);
+        previousId = message.id();
+        out.write(message.isReply() ? HAS_REFERENCE : 0);
+        writeBody(message);
+
+        TranscriptMessage reference = message.reference();
+        if (reference != null) {
+            writeVarint(reference.id());
+            writeBody(reference);
+        }
+    }
+
+    /**
+     * End the snapshot and flush it, the underlying stream stays open
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        out.write(END);
+        out.flush();
+    }
+
+    private void writeBody(TranscriptMessage message) throws IOException {
+        writeAuthor(message.author());
+        writeString(message.content());
+
+        writeVarint(message.attachments().size());
+        for (TranscriptAttachment attachment : message.attachments()) {
+            writeVarint(attachment.id());
+            writeString(attachment.url());
+            writeString(attachment.fileName());
+            writeVarint(attachment.size());
+            writeShared(attachment.contentType());
+        }
+
+        writeVarint(message.embeds().size());
+        for (MessageEmbed embed : message.embeds()) {
+            writeEmbed(embed);
+        }
+    }
+
+    private void writeAuthor(AuthorProfile author) throws IOException {
+        if (author == null) {
+            writeVarint(NULL);
+            return;
+        }
+        Integer index = authors.get(author);
+        if (index != null) {
+            writeVarint(TABLE + index);
+            return;
+        }
+        authors.put(author, authors.size());
+        writeVarint(NEW);
+        writeVarint(author.id());
+        writeShared(author.name());
+        writeShared(author.displayName());
+        writeShared(author.colorHex());
+        writeShared(author.avatarUrl());
+        out.write(author.bot() ? 1 : 0);
+    }
+
+    private void writeEmbed(MessageEmbed embed) throws IOException {
+        writeShared(embed.getType().name());
+        writeString(embed.getUrl());
+        writeString(embed.getTitle());
+        writeString(embed.getDescription());
+        writeVarint(embed.getColorRaw());
+
+        int flags = (embed.getTimestamp() != null ? HAS_TIMESTAMP : 0)
+                | (embed.getThumbnail() != null ? HAS_THUMBNAIL : 0)
+                | (embed.getSiteProvider() != null ? HAS_PROVIDER : 0)
+                | (embed.getAuthor() != null ? HAS_AUTHOR : 0)
+                | (embed.getVideoInfo() != null ? HAS_VIDEO : 0)
+                | (embed.getFooter() != null ? HAS_FOOTER : 0)
+                | (embed.getImage() != null ? HAS_IMAGE : 0);
+        out.write(flags);
+
+        if (embed.getTimestamp() != null) {
+            OffsetDateTime timestamp = embed.getTimestamp();
+            writeSignedVarint(timestamp.toInstant().toEpochMilli());
+            writeSignedVarint(timestamp.getOffset().getTotalSeconds());
+        }
+        if (embed.getThumbnail() != null) {
+            MessageEmbed.Thumbnail thumbnail = embed.getThumbnail();
+            writeImage(thumbnail.getUrl(), thumbnail.getProxyUrl(), thumbnail.getWidth(), thumbnail.getHeight());
+        }
+        if (embed.getSiteProvider() != null) {
+            writeShared(embed.getSiteProvider().getName());
+            writeShared(embed.getSiteProvider().getUrl());
+        }
+        if (embed.getAuthor() != null) {
+            MessageEmbed.AuthorInfo author = embed.getAuthor();
+            writeShared(author.getName());
+            writeShared(author.getUrl());
+            writeShared(author.getIconUrl());
+            writeShared(author.getProxyIconUrl());
+        }
+        if (embed.getVideoInfo() != null) {
+            MessageEmbed.VideoInfo video = embed.getVideoInfo();
+            writeImage(video.getUrl(), video.getProxyUrl(), video.getWidth(), video.getHeight());
+        }
+        if (embed.getFooter() != null) {
+            MessageEmbed.Footer footer = embed.getFooter();
+            writeShared(footer.getText());
+            writeShared(footer.getIconUrl());
+            writeShared(footer.getProxyIconUrl());
+        }
+        if (embed.getImage() != null) {
+            MessageEmbed.ImageInfo image = embed.getImage();
+            writeImage(image.getUrl(), image.getProxyUrl(), image.getWidth(), image.getHeight());
+        }
+
+        writeVarint(embed.getFields().size());
+        for (MessageEmbed.Field field : embed.getFields()) {
+            writeString(field.getName());
+            writeString(field.getValue());
+            out.write(field.isInline() ? 1 : 0);
+        }
+    }
+
+    private void writeImage(String url, String proxyUrl, int width, int height) throws IOException {
+        writeString(url);
+        writeString(proxyUrl);
+        writeSignedVarint(width);
+        writeSignedVarint(height);
+    }
+
+    /**
+     * Write a string that is likely to repeat, e.g. an author name or a content type
+     */
+    private void writeShared(String value) throws IOException {
+        if (value == null) {
+            writeVarint(NULL);
+            return;
+        }
+        Integer index = strings.get(value);
+        if (index != null) {
+            writeVarint(TABLE + index);
+            return;
+        }
+        strings.put(value, strings.size());
+        writeVarint(NEW);
+        writeString(value);
+    }
+
+    /**
+     * Write a string as its utf-8 length plus one, zero for null, followed by its bytes
+     */
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private void writeSignedVarint(long value) throws IOException {
+        Varints.writeSigned(out, value);
+    }
+
+    private void writeVarint(long value) throws IOException {
+        Varints.write(out, value);
+    }
+}
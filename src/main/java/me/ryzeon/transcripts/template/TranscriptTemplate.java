@@ -0,0 +1,203 @@
+package me.ryzeon.transcripts.template;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A transcript template compiled once into pre-encoded static segments with named slots between them.
+ * <p>
+ * Rendering only writes the slot values between the segments, the html is never parsed again.
+ * Instances are immutable and can be shared between threads.
+ */
+public final class TranscriptTemplate {
+
+    private static final Pattern SLOT = Pattern.compile("\\{\\{transcript:([a-z-]+)}}");
+
+    private static volatile TranscriptTemplate defaultTemplate;
+
+    private final byte[][] segments;
+    private final Slot[] slots;
+    private final int chatlogIndex;
+
+    private TranscriptTemplate(byte[][] segments, Slot[] slots) {
+        this.segments = segments;
+        this.slots = slots;
+
+        int chatlog = -1;
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] == Slot.CHATLOG) {
+                if (chatlog >= 0) {
+                    throw new IllegalArgumentException("The template contains more than one chatlog");
+                }
+                chatlog = i;
+            }
+        }
+        if (chatlog < 0) {
+            throw new IllegalArgumentException("The template has no element with the id chatlog");
+        }
+        this.chatlogIndex = chatlog;
+    }
+
+    /**
+     * Get the bundled template.html, compiled on first use
+     *
+     * @return the default template
+     */
+    public static TranscriptTemplate defaultTemplate() {
+        TranscriptTemplate template = defaultTemplate;
+        if (template == null) {
+            synchronized (TranscriptTemplate.class) {
+                template = defaultTemplate;
+                if (template == null) {
+                    InputStream inputStream = TranscriptTemplate.class.getClassLoader().getResourceAsStream("template.html");
+                    if (inputStream == null) {
+                        throw new IllegalArgumentException("file is not found: " + "template.html");
+                    }
+                    try (inputStream) {
+                        defaultTemplate = template = compile(inputStream);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Failed to compile template.html", e);
+                    }
+                }
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Compile a template.
+     * <p>
+     * Slots are found the same way as in the bundled template: the {@code preamble__guild-icon} image and the
+     * {@code transcriptTitle}, {@code guildname}, {@code ticketname} and {@code chatlog} ids.
+     * A template can also place {@code {{transcript:<slot>}}} markers itself, e.g. {@code {{transcript:guild-name}}}.
+     *
+     * @param html the template html, it is not closed
+     * @return the compiled template
+     */
+    public static TranscriptTemplate compile(InputStream html) throws IOException {
+        Document document = Jsoup.parse(html, "UTF-8", "template.html");
+        document.outputSettings().indentAmount(0).prettyPrint(true);
+
+        Element guildIcon = document.getElementsByClass("preamble__guild-icon").first();
+        if (guildIcon != null) {
+            guildIcon.attr("src", Slot.GUILD_ICON.marker());
+        }
+        replaceText(document, "transcriptTitle", Slot.TITLE);
+        replaceText(document, "guildname", Slot.GUILD_NAME);
+        replaceText(document, "ticketname", Slot.CHANNEL_NAME);
+        replaceText(document, "chatlog", Slot.CHATLOG);
+
+        String compiled = document.outerHtml();
+        List<byte[]> segments = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        Matcher matcher = SLOT.matcher(compiled);
+        int last = 0;
+        while (matcher.find()) {
+            segments.add(compiled.substring(last, matcher.start()).getBytes(StandardCharsets.UTF_8));
+            slots.add(Slot.byName(matcher.group(1)));
+            last = matcher.end();
+        }
+        segments.add(compiled.substring(last).getBytes(StandardCharsets.UTF_8));
+        return new TranscriptTemplate(segments.toArray(byte[][]::new), slots.toArray(Slot[]::new));
+    }
+
+    private static void replaceText(Document document, String id, Slot slot) {
+        Element element = document.getElementById(id);
+        if (element != null) {
+            element.empty().appendText(slot.marker());
+        }
+    }
+
+    /**
+     * Write everything in front of the chatlog
+     *
+     * @param outputStream where to write to
+     * @param values       the value of each slot, unescaped, null leaves the slot empty
+     */
+    public void writeHead(OutputStream outputStream, Function<Slot, String> values) throws IOException {
+        write(outputStream, values, 0, chatlogIndex);
+    }
+
+    /**
+     * Write everything after the chatlog
+     *
+     * @param outputStream where to write to
+     * @param values       the value of each slot, unescaped, null leaves the slot empty
+     */
+    public void writeTail(OutputStream outputStream, Function<Slot, String> values) throws IOException {
+        write(outputStream, values, chatlogIndex + 1, slots.length);
+    }
+
+    private void write(OutputStream outputStream, Function<Slot, String> values, int fromSlot, int toSlot) throws IOException {
+        for (int i = fromSlot; i < toSlot; i++) {
+            outputStream.write(segments[i]);
+            String value = values.apply(slots[i]);
+            if (value != null) {
+                outputStream.write(escape(value).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        outputStream.write(segments[toSlot]);
+    }
+
+    /**
+     * Html escape a slot value, also usable inside a double quoted attribute value like the guild icon
+     */
+    static String escape(String value) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            String escape = switch (value.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                default -> null;
+            };
+            if (escape != null && escaped == null) {
+                escaped = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            if (escaped != null) {
+                if (escape != null) {
+                    escaped.append(escape);
+                } else {
+                    escaped.append(value.charAt(i));
+                }
+            }
+        }
+        return escaped != null ? escaped.toString() : value;
+    }
+
+    public enum Slot {
+        GUILD_ICON,
+        TITLE,
+        GUILD_NAME,
+        CHANNEL_NAME,
+        CHATLOG;
+
+        private final String marker = "{{transcript:" + name().toLowerCase(Locale.ROOT).replace('_', '-') + "}}";
+
+        String marker() {
+            return marker;
+        }
+
+        static Slot byName(String name) {
+            for (Slot slot : values()) {
+                if (slot.marker.equals("{{transcript:" + name + "}}")) {
+                    return slot;
+                }
+            }
+            throw new IllegalArgumentException("Unknown template slot " + name);
+        }
+    }
+}
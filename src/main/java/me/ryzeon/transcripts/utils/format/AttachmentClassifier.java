@@ -0,0 +1,157 @@
+package me.ryzeon.transcripts.utils.format;
+
+import me.ryzeon.transcripts.utils.format.impl.AudioFormat;
+import me.ryzeon.transcripts.utils.format.impl.ImageFormat;
+import me.ryzeon.transcripts.utils.format.impl.VideoFormat;
+import net.dv8tion.jda.api.entities.Message;
+
+import java.util.*;
+
+/**
+ * Decides how an attachment is shown, from its content type when Discord sent one and its file extension otherwise.
+ * <p>
+ * Lookups go through precomputed hash maps, extensions and content types are matched case-insensitively.
+ * Instances are immutable, new kinds are registered through {@link #toBuilder()}.
+ */
+public final class AttachmentClassifier {
+
+    /**
+     * Images, videos and audio of {@link ImageFormat}, {@link VideoFormat} and {@link AudioFormat}
+     */
+    public static final AttachmentClassifier DEFAULT = builder()
+            .register(MediaKind.IMAGE, new ImageFormat())
+            .register(MediaKind.VIDEO, new VideoFormat())
+            .register(MediaKind.AUDIO, new AudioFormat())
+            .registerContentType("image", MediaKind.IMAGE)
+            .registerContentType("video", MediaKind.VIDEO)
+            .registerContentType("audio", MediaKind.AUDIO)
+            .build();
+
+    private final Map<String, MediaKind> extensions;
+    private final Map<String, MediaKind> contentTypes;
+    private final String[] topLevelTypes;
+    private final MediaKind[] topLevelKinds;
+
+    private AttachmentClassifier(Builder builder) {
+        this.extensions = Map.copyOf(builder.extensions);
+        Map<String, MediaKind> contentTypes = new HashMap<>();
+        List<String> topLevelTypes = new ArrayList<>();
+        List<MediaKind> topLevelKinds = new ArrayList<>();
+        builder.contentTypes.forEach((type, kind) -> {
+            if (type.indexOf('/') >= 0) {
+                contentTypes.put(type, kind);
+            } else {
+                topLevelTypes.add(type + "/");
+                topLevelKinds.add(kind);
+            }
+        });
+        this.contentTypes = Map.copyOf(contentTypes);
+        this.topLevelTypes = topLevelTypes.toArray(String[]::new);
+        this.topLevelKinds = topLevelKinds.toArray(MediaKind[]::new);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return a builder holding every registration of this classifier
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.extensions.putAll(extensions);
+        builder.contentTypes.putAll(contentTypes);
+        for (int i = 0; i < topLevelTypes.length; i++) {
+            builder.contentTypes.put(topLevelTypes[i].substring(0, topLevelTypes[i].length() - 1), topLevelKinds[i]);
+        }
+        return builder;
+    }
+
+    /**
+     * Classify an attachment
+     *
+     * @param attachment the attachment
+     * @return how to show it
+     */
+    public MediaKind classify(Message.Attachment attachment) {
+        return classify(attachment.getContentType(), attachment.getFileExtension());
+    }
+
+    /**
+     * Classify by content type, falling back to the file extension when the content type is missing or unknown
+     *
+     * @param contentType the content type, may be null and carry parameters
+     * @param extension   the file extension without the dot, may be null
+     * @return how to show it
+     */
+    public MediaKind classify(String contentType, String extension) {
+        if (contentType != null) {
+            MediaKind kind = contentTypes.get(contentType);
+            if (kind == null && !contentTypes.isEmpty()) {
+                kind = contentTypes.get(normalizeContentType(contentType));
+            }
+            if (kind != null) {
+                return kind;
+            }
+            for (int i = 0; i < topLevelTypes.length; i++) {
+                if (contentType.regionMatches(true, 0, topLevelTypes[i], 0, topLevelTypes[i].length())) {
+                    return topLevelKinds[i];
+                }
+            }
+        }
+        if (extension != null) {
+            MediaKind kind = extensions.get(extension);
+            if (kind == null) {
+                kind = extensions.get(extension.toLowerCase(Locale.ROOT));
+            }
+            if (kind != null) {
+                return kind;
+            }
+        }
+        return MediaKind.GENERIC;
+    }
+
+    private static String normalizeContentType(String contentType) {
+        int parameters = contentType.indexOf(';');
+        return (parameters >= 0 ? contentType.substring(0, parameters) : contentType).trim().toLowerCase(Locale.ROOT);
+    }
+
+    public static final class Builder {
+
+        private final Map<String, MediaKind> extensions = new HashMap<>();
+        private final Map<String, MediaKind> contentTypes = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * @param extension the file extension without the dot, e.g. {@code webp}
+         * @param kind      how to show files with it
+         */
+        public Builder registerExtension(String extension, MediaKind kind) {
+            extensions.put(extension.toLowerCase(Locale.ROOT), kind);
+            return this;
+        }
+
+        /**
+         * @param contentType a full content type like {@code application/pdf}, or a top-level type like {@code image}
+         * @param kind        how to show files with it
+         */
+        public Builder registerContentType(String contentType, MediaKind kind) {
+            contentTypes.put(normalizeContentType(contentType), kind);
+            return this;
+        }
+
+        /**
+         * Register every extension of a format helper
+         */
+        public Builder register(MediaKind kind, IFormatHelper formats) {
+            formats.formats().forEach(extension -> registerExtension(extension, kind));
+            return this;
+        }
+
+        public AttachmentClassifier build() {
+            return new AttachmentClassifier(this);
+        }
+    }
+}
@@ -1,13 +1,24 @@
 package me.ryzeon.transcripts.utils.format;
 
 import java.util.List;
-import java.util.function.Predicate;
 
 public interface IFormatHelper {
 
     List<String> formats();
 
+    /**
+     * Check whether an extension belongs to this format, ignoring case.
+     * Transcripts classify attachments through {@link AttachmentClassifier}, which looks formats up in a map.
+     */
     default boolean isFormat(String format) {
-        return formats().stream().anyMatch(Predicate.isEqual(format));
+        if (format == null) {
+            return false;
+        }
+        for (String candidate : formats()) {
+            if (candidate.equalsIgnoreCase(format)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,32 @@
+package me.ryzeon.transcripts.utils.format;
+
+/**
+ * How an attachment is shown in a transcript
+ */
+public enum MediaKind {
+
+    /**
+     * Inline image
+     */
+    IMAGE,
+
+    /**
+     * Video player
+     */
+    VIDEO,
+
+    /**
+     * Audio player
+     */
+    AUDIO,
+
+    /**
+     * Embedded document preview, e.g. a pdf, falling back to a download link
+     */
+    DOCUMENT,
+
+    /**
+     * Download link with the file name and size
+     */
+    GENERIC
+}
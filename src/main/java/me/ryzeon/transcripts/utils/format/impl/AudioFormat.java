@@ -7,7 +7,7 @@ import java.util.List;
 
 public class AudioFormat implements IFormatHelper {
 
-    final List<String> formats = Arrays.asList("mp3", "wav", "ogg", "flac");
+    final List<String> formats = Arrays.asList("mp3", "wav", "ogg", "flac", "m4a", "opus");
 
     @Override
     public List<String> formats() {
@@ -8,7 +8,7 @@ import java.util.function.Predicate;
 
 public class ImageFormat implements IFormatHelper {
 
-    final List<String> formats = Arrays.asList("png", "jpg", "jpeg", "gif");
+    final List<String> formats = Arrays.asList("png", "jpg", "jpeg", "gif", "webp", "avif");
     @Override
     public List<String> formats() {
         return formats;
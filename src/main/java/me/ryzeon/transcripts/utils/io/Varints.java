@@ -0,0 +1,51 @@
+package me.ryzeon.transcripts.utils.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Unsigned numbers in 7 bit groups, least significant first, so small numbers take a single byte.
+ * Signed numbers are zigzag encoded first.
+ */
+public final class Varints {
+
+    private Varints() {
+    }
+
+    public static void write(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    public static void writeSigned(OutputStream out, long value) throws IOException {
+        write(out, value << 1 ^ value >> 63);
+    }
+
+    /**
+     * @throws EOFException if the stream ends within the number
+     */
+    public static long read(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint, longer than 64 bits");
+    }
+
+    public static long readSigned(InputStream in) throws IOException {
+        long value = read(in);
+        return value >>> 1 ^ -(value & 1);
+    }
+}
@@ -0,0 +1,40 @@
+package me.ryzeon.transcripts.utils.markdown;
+
+import java.util.List;
+
+/**
+ * A node of the markdown syntax tree, text is never copied out of the source,
+ * nodes only keep the range they cover
+ */
+final class MarkdownNode {
+
+    enum Type {
+        ROOT, TEXT, DELIMITER, LINE_BREAK,
+        STRONG, EM, STRIKE, UNDERLINE, SPOILER, QUOTE, LINK,
+        CODE_INLINE, CODE_BLOCK
+    }
+
+    final Type type;
+
+    // source range of the text, the code, or the link target
+    int start, end;
+
+    // language of a code block, empty when start == end
+    int languageStart, languageEnd;
+
+    // delimiter run left as literal text
+    char delimiter;
+    int count;
+
+    List<MarkdownNode> children;
+
+    MarkdownNode(Type type) {
+        this.type = type;
+    }
+
+    MarkdownNode(Type type, int start, int end) {
+        this.type = type;
+        this.start = start;
+        this.end = end;
+    }
+}
@@ -0,0 +1,386 @@
+package me.ryzeon.transcripts.utils.markdown;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hand-written Discord markdown parser.
+ * <p>
+ * Blocks (quotes) are split line by line, inline markup is matched with a delimiter stack
+ * in the same scan, so every character of the source is looked at a bounded number of times.
+ * Instances keep their working buffers between calls and are not thread safe.
+ */
+final class MarkdownParser {
+
+    private static final String ESCAPABLE = "\\*_~|`>[]()#-";
+
+    private final List<MarkdownNode> nodes = new ArrayList<>();
+    private final List<Delimiter> delimiters = new ArrayList<>();
+    private final int[] openers = new int[4];
+
+    // a closing backtick run of a given length is known to be missing in [failedFrom, failedTo)
+    private final int[] failedFrom = new int[4], failedTo = new int[4];
+    // no link url ends in [urlScanFrom, urlScanTo), the source there holds neither ')' nor whitespace
+    private int urlScanFrom, urlScanTo;
+
+    private CharSequence source;
+
+    MarkdownNode parse(CharSequence source) {
+        this.source = source;
+        for (int i = 0; i < failedTo.length; i++) {
+            failedFrom[i] = Integer.MAX_VALUE;
+            failedTo[i] = -1;
+        }
+        urlScanFrom = Integer.MAX_VALUE;
+        urlScanTo = -1;
+        try {
+            MarkdownNode root = new MarkdownNode(MarkdownNode.Type.ROOT);
+            root.children = parseBlocks(0, source.length());
+            return root;
+        } finally {
+            this.source = null;
+            nodes.clear();
+            delimiters.clear();
+            Arrays.fill(openers, 0);
+        }
+    }
+
+    private List<MarkdownNode> parseBlocks(int from, int to) {
+        List<MarkdownNode> blocks = new ArrayList<>();
+        int segmentStart = from;
+        int lineStart = from;
+        while (lineStart < to) {
+            if (startsWith(lineStart, to, ">>> ")) {
+                addSegment(blocks, segmentStart, lineStart, true);
+                MarkdownNode quote = new MarkdownNode(MarkdownNode.Type.QUOTE);
+                quote.children = parseInline(lineStart + 4, to);
+                blocks.add(quote);
+                return blocks;
+            }
+            if (startsWith(lineStart, to, "> ")) {
+                addSegment(blocks, segmentStart, lineStart, true);
+                MarkdownNode quote = new MarkdownNode(MarkdownNode.Type.QUOTE);
+                quote.children = new ArrayList<>();
+                while (lineStart < to && startsWith(lineStart, to, "> ")) {
+                    int lineEnd = lineEnd(lineStart + 2, to);
+                    if (!quote.children.isEmpty()) {
+                        quote.children.add(new MarkdownNode(MarkdownNode.Type.LINE_BREAK));
+                    }
+                    quote.children.addAll(parseInline(lineStart + 2, lineEnd));
+                    lineStart = Math.min(lineEnd + 1, to);
+                }
+                blocks.add(quote);
+                segmentStart = lineStart;
+                continue;
+            }
+            lineStart = Math.min(lineEnd(lineStart, to) + 1, to);
+        }
+        addSegment(blocks, segmentStart, to, false);
+        return blocks;
+    }
+
+    private void addSegment(List<MarkdownNode> blocks, int start, int end, boolean beforeQuote) {
+        // a quote is a block of its own, the line break before it is not rendered
+        if (beforeQuote && end > start) {
+            end--;
+        }
+        if (end > start) {
+            blocks.addAll(parseInline(start, end));
+        }
+    }
+
+    /**
+     * @return the index of the newline ending the line at {@code from}, skipping over code blocks
+     */
+    private int lineEnd(int from, int to) {
+        int i = from;
+        while (i < to) {
+            char c = source.charAt(i);
+            if (c == '\n') {
+                return i;
+            }
+            if (c == '`') {
+                int run = runLength(i, to, '`');
+                int close = run >= 3 ? findCodeClose(i + run, to, run) : -1;
+                i = close >= 0 ? close + runLength(close, to, '`') : i + run;
+                continue;
+            }
+            i++;
+        }
+        return to;
+    }
+
+    private List<MarkdownNode> parseInline(int from, int to) {
+        int nodeBase = nodes.size();
+        int delimiterBase = delimiters.size();
+
+        int textStart = from;
+        int i = from;
+        while (i < to) {
+            char c = source.charAt(i);
+            if (c == '\\' && i + 1 < to && ESCAPABLE.indexOf(source.charAt(i + 1)) >= 0) {
+                addText(textStart, i);
+                addText(i + 1, i + 2);
+                i += 2;
+                textStart = i;
+            } else if (c == '\n') {
+                addText(textStart, i);
+                nodes.add(new MarkdownNode(MarkdownNode.Type.LINE_BREAK));
+                textStart = ++i;
+            } else if (c == '`') {
+                int run = runLength(i, to, '`');
+                int close = findCodeClose(i + run, to, run);
+                if (close < 0) {
+                    i += run; // stays literal text
+                    continue;
+                }
+                addText(textStart, i);
+                nodes.add(code(i + run, close, run >= 3));
+                i = close + runLength(close, to, '`');
+                textStart = i;
+            } else if (c == '[') {
+                int linkEnd = parseLink(i, to, textStart);
+                if (linkEnd < 0) {
+                    i++;
+                    continue;
+                }
+                i = textStart = linkEnd;
+            } else if (kind(c) >= 0) {
+                int run = runLength(i, to, c);
+                addText(textStart, i);
+                addDelimiter(c, i, run, from, to);
+                i += run;
+                textStart = i;
+            } else {
+                i++;
+            }
+        }
+        addText(textStart, to);
+
+        // whatever is still open stays literal text
+        while (delimiters.size() > delimiterBase) {
+            popDelimiter(delimiters.size() - 1);
+        }
+        List<MarkdownNode> range = nodes.subList(nodeBase, nodes.size());
+        List<MarkdownNode> children = new ArrayList<>(range);
+        range.clear();
+        return children;
+    }
+
+    private MarkdownNode code(int start, int end, boolean block) {
+        if (!block) {
+            return new MarkdownNode(MarkdownNode.Type.CODE_INLINE, start, end);
+        }
+        MarkdownNode node = new MarkdownNode(MarkdownNode.Type.CODE_BLOCK, start, end);
+        int i = start;
+        while (i < end && isLanguageChar(source.charAt(i))) {
+            i++;
+        }
+        if (i < end && source.charAt(i) == '\n') {
+            node.languageStart = start;
+            node.languageEnd = i;
+            node.start = i + 1;
+        } else if (start < end && source.charAt(start) == '\n') {
+            node.start = start + 1;
+        }
+        if (node.end > node.start && source.charAt(node.end - 1) == '\n') {
+            node.end--;
+        }
+        return node;
+    }
+
+    private int parseLink(int open, int to, int textStart) {
+        int close = open + 1;
+        while (close < to) {
+            char c = source.charAt(close);
+            if (c == ']') {
+                break;
+            }
+            if (c == '[' || c == '\n') {
+                return -1;
+            }
+            close++;
+        }
+        if (close == open + 1 || close + 1 >= to || source.charAt(close + 1) != '(') {
+            return -1;
+        }
+        int urlStart = close + 2;
+        if (!startsWith(urlStart, to, "https:") && !startsWith(urlStart, to, "http:") && !startsWith(urlStart, to, "www")) {
+            return -1;
+        }
+        int urlEnd = scanUrl(urlStart, to);
+        if (urlEnd >= to || source.charAt(urlEnd) != ')' || !Character.isLetterOrDigit(source.charAt(urlEnd - 1)) && source.charAt(urlEnd - 1) != '_') {
+            return -1;
+        }
+
+        addText(textStart, open);
+        MarkdownNode link = new MarkdownNode(MarkdownNode.Type.LINK, urlStart, urlEnd);
+        link.children = parseInline(open + 1, close);
+        nodes.add(link);
+        return urlEnd + 1;
+    }
+
+    /**
+     * @return the index of the {@code )} ending a url at {@code from}, of the whitespace stopping it, or {@code to}
+     */
+    private int scanUrl(int from, int to) {
+        boolean known = from >= urlScanFrom && from <= urlScanTo;
+        // [a](https: repeated would otherwise rescan the rest of the line for every link
+        int i = known ? Math.max(from, Math.min(urlScanTo, to)) : from;
+        while (i < to) {
+            char c = source.charAt(i);
+            if (c == ')' || Character.isWhitespace(c)) {
+                break;
+            }
+            i++;
+        }
+        if (!known) {
+            urlScanFrom = from;
+        }
+        urlScanTo = Math.max(known ? urlScanTo : -1, i);
+        return i;
+    }
+
+    private void addDelimiter(char c, int position, int run, int from, int to) {
+        char before = position > from ? source.charAt(position - 1) : ' ';
+        char after = position + run < to ? source.charAt(position + run) : ' ';
+        boolean canOpen = !Character.isWhitespace(after);
+        boolean canClose = !Character.isWhitespace(before);
+        if (c == '_') {
+            canOpen &= !Character.isLetterOrDigit(before);
+            canClose &= !Character.isLetterOrDigit(after);
+        }
+        boolean paired = c == '~' || c == '|';
+
+        int remaining = run;
+        if (canClose && (!paired || run >= 2)) {
+            int openerIndex;
+            while (remaining > 0 && (openerIndex = findOpener(c)) >= 0) {
+                Delimiter opener = delimiters.get(openerIndex);
+                if (paired && (remaining < 2 || opener.node.count < 2)) {
+                    break;
+                }
+                // ***text*** nests the emphasis inside the strong/underline
+                int use = paired ? 2 : remaining >= 3 && opener.node.count >= 3 ? 1
+                        : remaining >= 2 && opener.node.count >= 2 ? 2 : 1;
+
+                MarkdownNode element = new MarkdownNode(typeOf(c, use));
+                List<MarkdownNode> inner = nodes.subList(opener.nodeIndex + 1, nodes.size());
+                element.children = new ArrayList<>(inner);
+                inner.clear();
+                nodes.add(element);
+
+                // anything opened between the pair can no longer be closed
+                while (delimiters.size() > openerIndex + 1) {
+                    popDelimiter(delimiters.size() - 1);
+                }
+                opener.node.count -= use;
+                if (opener.node.count == 0 || paired && opener.node.count < 2) {
+                    popDelimiter(openerIndex);
+                }
+                remaining -= use;
+            }
+        }
+        if (remaining > 0) {
+            MarkdownNode node = new MarkdownNode(MarkdownNode.Type.DELIMITER);
+            node.delimiter = c;
+            node.count = remaining;
+            nodes.add(node);
+            if (canOpen && (!paired || remaining >= 2)) {
+                delimiters.add(new Delimiter(node, nodes.size() - 1));
+                openers[kind(c)]++;
+            }
+        }
+    }
+
+    private int findOpener(char c) {
+        if (openers[kind(c)] == 0) {
+            return -1;
+        }
+        for (int i = delimiters.size() - 1; i >= 0; i--) {
+            if (delimiters.get(i).node.delimiter == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void popDelimiter(int index) {
+        openers[kind(delimiters.remove(index).node.delimiter)]--;
+    }
+
+    private int findCodeClose(int from, int to, int run) {
+        int length = Math.min(run, 3);
+        if (from >= failedFrom[length] && to <= failedTo[length]) {
+            return -1;
+        }
+        int i = from;
+        while (i < to) {
+            if (source.charAt(i) != '`') {
+                i++;
+                continue;
+            }
+            int closeRun = runLength(i, to, '`');
+            if (closeRun == run || run >= 3 && closeRun >= 3) {
+                return i;
+            }
+            i += closeRun;
+        }
+        failedFrom[length] = from;
+        failedTo[length] = to;
+        return -1;
+    }
+
+    private void addText(int start, int end) {
+        if (end > start) {
+            nodes.add(new MarkdownNode(MarkdownNode.Type.TEXT, start, end));
+        }
+    }
+
+    private int runLength(int from, int to, char c) {
+        int i = from;
+        while (i < to && source.charAt(i) == c) {
+            i++;
+        }
+        return i - from;
+    }
+
+    private boolean startsWith(int from, int to, String prefix) {
+        if (to - from < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (source.charAt(from + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLanguageChar(char c) {
+        return c < 128 && (Character.isLetterOrDigit(c) || c == '+' || c == '#' || c == '-');
+    }
+
+    private static int kind(char c) {
+        return switch (c) {
+            case '*' -> 0;
+            case '_' -> 1;
+            case '~' -> 2;
+            case '|' -> 3;
+            default -> -1;
+        };
+    }
+
+    private static MarkdownNode.Type typeOf(char c, int use) {
+        return switch (c) {
+            case '*' -> use == 2 ? MarkdownNode.Type.STRONG : MarkdownNode.Type.EM;
+            case '_' -> use == 2 ? MarkdownNode.Type.UNDERLINE : MarkdownNode.Type.EM;
+            case '~' -> MarkdownNode.Type.STRIKE;
+            default -> MarkdownNode.Type.SPOILER;
+        };
+    }
+
+    private record Delimiter(MarkdownNode node, int nodeIndex) {
+    }
+}
@@ -0,0 +1,118 @@
+package me.ryzeon.transcripts.utils.markdown;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Renders Discord markdown to html in a single pass over the text.
+ * <p>
+ * Every piece of user text is html escaped, only the markup produced here ends up as tags.
+ * Instances reuse their parser buffers and are not thread safe.
+ */
+public final class MarkdownRenderer {
+
+    private final MarkdownParser parser = new MarkdownParser();
+
+    /**
+     * Render markdown into the given builder
+     *
+     * @param text the markdown source
+     * @param out  the builder the html is appended to
+     */
+    public void render(CharSequence text, StringBuilder out) {
+        try {
+            render(text, (Appendable) out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // never thrown by a StringBuilder
+        }
+    }
+
+    /**
+     * Render markdown into any appendable
+     *
+     * @param text the markdown source
+     * @param out  where the html is appended to
+     */
+    public void render(CharSequence text, Appendable out) throws IOException {
+        MarkdownNode root = parser.parse(text);
+        renderChildren(text, root.children, out);
+    }
+
+    private void renderChildren(CharSequence source, List<MarkdownNode> children, Appendable out) throws IOException {
+        for (MarkdownNode node : children) {
+            renderNode(source, node, out);
+        }
+    }
+
+    private void renderNode(CharSequence source, MarkdownNode node, Appendable out) throws IOException {
+        switch (node.type) {
+            case TEXT -> escape(source, node.start, node.end, out);
+            case DELIMITER -> {
+                for (int i = 0; i < node.count; i++) {
+                    out.append(node.delimiter);
+                }
+            }
+            case LINE_BREAK -> out.append("<br />");
+            case STRONG -> wrap(source, node, "<strong>", "</strong>", out);
+            case EM -> wrap(source, node, "<em>", "</em>", out);
+            case STRIKE -> wrap(source, node, "<s>", "</s>", out);
+            case UNDERLINE -> wrap(source, node, "<u>", "</u>", out);
+            case SPOILER -> wrap(source, node,
+                    "<span class=\"spoiler-text spoiler-text--hidden\" onclick=\"showSpoiler(event, this)\">", "</span>", out);
+            case QUOTE -> wrap(source, node, "<span class=\"quote\">", "</span>", out);
+            case LINK -> {
+                out.append("<a href=\"");
+                escape(source, node.start, node.end, out);
+                out.append("\">");
+                renderChildren(source, node.children, out);
+                out.append("</a>");
+            }
+            case CODE_INLINE -> {
+                out.append("<span class=\"pre pre--inline\">");
+                escape(source, node.start, node.end, out);
+                out.append("</span>");
+            }
+            case CODE_BLOCK -> {
+                if (node.languageEnd > node.languageStart) {
+                    out.append("<div class=\"pre pre--multiline language-")
+                            .append(source, node.languageStart, node.languageEnd)
+                            .append("\">");
+                } else {
+                    out.append("<div class=\"pre pre--multiline nohighlight\">");
+                }
+                escape(source, node.start, node.end, out);
+                out.append("</div>");
+            }
+            default -> throw new IllegalStateException("Unexpected markdown node " + node.type);
+        }
+    }
+
+    private void wrap(CharSequence source, MarkdownNode node, String open, String close, Appendable out) throws IOException {
+        out.append(open);
+        renderChildren(source, node.children, out);
+        out.append(close);
+    }
+
+    /**
+     * Escape a range of text, runs that need no escaping are appended in one call
+     */
+    private static void escape(CharSequence source, int start, int end, Appendable out) throws IOException {
+        int plain = start;
+        for (int i = start; i < end; i++) {
+            String replacement = switch (source.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\n' -> "<br />";
+                default -> null;
+            };
+            if (replacement != null) {
+                out.append(source, plain, i).append(replacement);
+                plain = i + 1;
+            }
+        }
+        out.append(source, plain, end);
+    }
+}
@@ -0,0 +1,224 @@
+package me.ryzeon.transcripts;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.middleman.GuildMessageChannel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppendTranscriptTest {
+
+    private static final TranscriptEngine ENGINE = TranscriptEngine.builder().warmUp(false).build();
+    private static final TranscriptOptions INDEXED = TranscriptOptions.builder().messageIndex(true).searchIndex(true).build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendsLikeAFullRender() throws IOException {
+        List<Message> messages = TestMessages.messages(150);
+        Path appended = directory.resolve("appended.html"), full = directory.resolve("full.html");
+
+        ENGINE.writeTranscript(messages.subList(0, 100), appended, TranscriptOptions.DEFAULT);
+        assertEquals(30, ENGINE.appendToTranscript(appended, TestMessages.shuffled(messages.subList(90, 130), 1), TranscriptOptions.DEFAULT));
+        assertEquals(20, ENGINE.appendToTranscript(appended, messages.subList(120, 150), TranscriptOptions.DEFAULT));
+        assertEquals(0, ENGINE.appendToTranscript(appended, messages.subList(120, 150), TranscriptOptions.DEFAULT));
+        ENGINE.writeTranscript(messages, full, TranscriptOptions.DEFAULT);
+
+        assertArrayEquals(Files.readAllBytes(full), Files.readAllBytes(appended));
+        assertEquals(TranscriptSidecar.read(full), TranscriptSidecar.read(appended));
+        assertFalse(Files.exists(TranscriptIndex.pathOf(appended)));
+    }
+
+    @Test
+    void reopensAppendedIndexes() throws IOException {
+        List<Message> messages = TestMessages.messages(120);
+        Path appended = directory.resolve("appended.html"), full = directory.resolve("full.html");
+
+        ENGINE.writeTranscript(messages.subList(0, 70), appended, INDEXED);
+        ENGINE.appendToTranscript(appended, messages.subList(70, 120), INDEXED);
+        ENGINE.writeTranscript(messages, full, INDEXED);
+
+        assertArrayEquals(Files.readAllBytes(full), Files.readAllBytes(appended));
+        assertArrayEquals(Files.readAllBytes(TranscriptIndex.pathOf(full)), Files.readAllBytes(TranscriptIndex.pathOf(appended)));
+        try (TranscriptIndex index = TranscriptIndex.open(appended)) {
+            assertEquals(120, index.size());
+            assertTrue(string(index.message(TestMessages.id(69))).contains("message 69"));
+            assertTrue(string(index.message(TestMessages.id(101))).contains("message 101"));
+            assertNull(index.message(TestMessages.id(120)));
+        }
+        TranscriptSearchIndex search = TranscriptSearchIndex.read(appended);
+        assertEquals(120, search.messageCount());
+        assertEquals(30, search.search("world").length);
+        assertArrayEquals(TranscriptSearchIndex.read(full).search("world"), search.search("world"));
+    }
+
+    @Test
+    void failedAppendLeavesTheTranscriptAsItWas() throws IOException {
+        List<Message> messages = TestMessages.messages(60);
+        Path file = directory.resolve("transcript.html");
+        ENGINE.writeTranscript(messages.subList(0, 40), file, INDEXED);
+        Map<Path, byte[]> before = contents();
+
+        TranscriptOptions failing = INDEXED.toBuilder().markdownFormatter((markdown, html) -> {
+            if (markdown.toString().equals("message 50")) {
+                throw new IllegalStateException("formatter failed");
+            }
+            Formatter.format(markdown, html);
+        }).build();
+        assertThrows(RuntimeException.class, () -> ENGINE.appendToTranscript(file, messages.subList(40, 60), failing));
+
+        Map<Path, byte[]> after = contents();
+        assertEquals(before.keySet(), after.keySet());
+        before.forEach((path, content) -> assertArrayEquals(content, after.get(path), path.toString()));
+
+        assertEquals(20, ENGINE.appendToTranscript(file, messages.subList(40, 60), INDEXED));
+        Path full = directory.resolve("full").resolve("transcript.html");
+        Files.createDirectories(full.getParent());
+        ENGINE.writeTranscript(messages, full, INDEXED);
+        assertArrayEquals(Files.readAllBytes(full), Files.readAllBytes(file));
+    }
+
+    @Test
+    void rejectsSidecarsPastTheEndOfTheTranscript() throws IOException {
+        List<Message> messages = TestMessages.messages(20);
+        Path file = directory.resolve("transcript.html");
+        ENGINE.writeTranscript(messages.subList(0, 10), file, TranscriptOptions.DEFAULT);
+        TranscriptSidecar sidecar = TranscriptSidecar.read(file);
+        new TranscriptSidecar(sidecar.lastMessageId(), Files.size(file) + 1, sidecar.messageCount()).write(file);
+        byte[] html = Files.readAllBytes(file);
+
+        assertThrows(IOException.class, () -> ENGINE.appendToTranscript(file, messages, TranscriptOptions.DEFAULT));
+        assertArrayEquals(html, Files.readAllBytes(file));
+    }
+
+    @Test
+    void rejectsMissingIndexesBeforeWriting() throws IOException {
+        List<Message> messages = TestMessages.messages(20);
+        Path file = directory.resolve("transcript.html");
+        ENGINE.writeTranscript(messages.subList(0, 10), file, TranscriptOptions.DEFAULT);
+        byte[] html = Files.readAllBytes(file);
+
+        TranscriptOptions indexed = TranscriptOptions.builder().messageIndex(true).build();
+        assertThrows(IllegalArgumentException.class, () -> ENGINE.appendToTranscript(file, messages, indexed));
+        assertArrayEquals(html, Files.readAllBytes(file));
+        assertEquals(10, TranscriptSidecar.read(file).messageCount());
+    }
+
+    @Test
+    void updatesLikeAFullRender() throws Exception {
+        List<Message> messages = TestMessages.messages(100);
+        Path file = directory.resolve("transcript.html");
+        ENGINE.writeTranscript(messages.subList(0, 40), file, INDEXED);
+        TranscriptOptions paged = INDEXED.toBuilder().pageSize(20).build();
+
+        assertEquals(60, ENGINE.updateTranscript(history(messages.subList(30, 100), 20), file, paged).get(10, TimeUnit.SECONDS));
+        assertEquals(0, ENGINE.updateTranscript(history(messages.subList(90, 100), 20), file, paged).get(10, TimeUnit.SECONDS));
+
+        Path full = directory.resolve("full").resolve("transcript.html");
+        Files.createDirectories(full.getParent());
+        ENGINE.writeTranscript(messages, full, INDEXED);
+        assertArrayEquals(Files.readAllBytes(full), Files.readAllBytes(file));
+        assertArrayEquals(Files.readAllBytes(TranscriptIndex.pathOf(full)), Files.readAllBytes(TranscriptIndex.pathOf(file)));
+        assertArrayEquals(Files.readAllBytes(TranscriptSearchIndex.pathOf(full)), Files.readAllBytes(TranscriptSearchIndex.pathOf(file)));
+        assertEquals(TranscriptSidecar.read(full), TranscriptSidecar.read(file));
+    }
+
+    @Test
+    void updateRewritesTheTranscriptOnce() throws Exception {
+        List<Message> messages = TestMessages.messages(100);
+        Path file = directory.resolve("transcript.html");
+        ENGINE.writeTranscript(messages.subList(0, 40), file, INDEXED);
+        Map<Path, byte[]> before = contents();
+        List<Map<Path, byte[]>> seen = new ArrayList<>();
+        // every page is fetched once the previous one was rendered, the files must not change until the last one is
+        GuildMessageChannel channel = TestMessages.stub(GuildMessageChannel.class, Map.of("getIterableHistory",
+                TestMessages.history(messages.subList(40, 100), 10, page -> {
+                    try {
+                        seen.add(contents());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return CompletableFuture.completedFuture(page);
+                })));
+
+        assertEquals(60, ENGINE.updateTranscript(channel, file, INDEXED.toBuilder().pageSize(10).prefetchPages(1).build())
+                .get(10, TimeUnit.SECONDS));
+
+        assertTrue(seen.size() >= 6, () -> seen.size() + " pages");
+        for (Map<Path, byte[]> files : seen) {
+            for (Map.Entry<Path, byte[]> entry : before.entrySet()) {
+                assertArrayEquals(entry.getValue(), files.get(entry.getKey()), entry.getKey().toString());
+            }
+        }
+        assertFalse(Files.exists(file.resolveSibling("transcript.html.tmp")));
+    }
+
+    @Test
+    void failedUpdateLeavesTheTranscriptAsItWas() throws Exception {
+        List<Message> messages = TestMessages.messages(100);
+        Path file = directory.resolve("transcript.html");
+        ENGINE.writeTranscript(messages.subList(0, 40), file, INDEXED);
+        Map<Path, byte[]> before = contents();
+        TranscriptOptions failing = INDEXED.toBuilder().pageSize(20).markdownFormatter((markdown, html) -> {
+            if (markdown.toString().equals("message 70")) {
+                throw new IllegalStateException("formatter failed");
+            }
+            Formatter.format(markdown, html);
+        }).build();
+
+        CompletableFuture<Integer> update = ENGINE.updateTranscript(history(messages.subList(40, 100), 20), file, failing);
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> update.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, thrown.getCause());
+
+        Map<Path, byte[]> after = contents();
+        assertEquals(before.keySet(), after.keySet());
+        for (Map.Entry<Path, byte[]> entry : before.entrySet()) {
+            assertArrayEquals(entry.getValue(), after.get(entry.getKey()), entry.getKey().toString());
+        }
+
+        TranscriptOptions paged = INDEXED.toBuilder().pageSize(20).build();
+        assertEquals(60, ENGINE.updateTranscript(history(messages.subList(40, 100), 20), file, paged).get(10, TimeUnit.SECONDS));
+        Path full = directory.resolve("full").resolve("transcript.html");
+        Files.createDirectories(full.getParent());
+        ENGINE.writeTranscript(messages, full, INDEXED);
+        assertArrayEquals(Files.readAllBytes(full), Files.readAllBytes(file));
+    }
+
+    /**
+     * @return a channel whose history holds the messages in pages, oldest first
+     */
+    private static GuildMessageChannel history(List<Message> messages, int pageSize) {
+        return TestMessages.stub(GuildMessageChannel.class, Map.of("getIterableHistory", TestMessages.history(messages, pageSize)));
+    }
+
+    /**
+     * @return every file of the test directory by path
+     */
+    private Map<Path, byte[]> contents() throws IOException {
+        Map<Path, byte[]> contents = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                contents.put(file, Files.readAllBytes(file));
+            }
+        }
+        return contents;
+    }
+
+    private static String string(ByteBuffer html) {
+        return StandardCharsets.UTF_8.decode(html).toString();
+    }
+}
@@ -0,0 +1,79 @@
+package me.ryzeon.transcripts;
+
+import me.ryzeon.transcripts.assets.Asset;
+import me.ryzeon.transcripts.assets.AssetCache;
+import me.ryzeon.transcripts.assets.AssetMode;
+import me.ryzeon.transcripts.assets.AssetServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetResolverTest {
+
+    @TempDir
+    Path directory;
+
+    private AssetServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new AssetServer();
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void inlinesAssetsAndKeepsTheUrlOfFailedOnes() throws IOException {
+        byte[] png = "png".getBytes(StandardCharsets.UTF_8);
+        String avatar = server.serve("/avatar.png", png, "image/png");
+        String missing = server.url("/missing.png");
+        TranscriptOptions options = TranscriptOptions.builder().assetMode(AssetMode.INLINE)
+                .assetCache(new AssetCache(directory, 1 << 20)).build();
+
+        try (AssetResolver resolver = new AssetResolver(options)) {
+            resolver.resolve(Arrays.asList(avatar, missing, null, avatar));
+
+            assertEquals("data:image/png;base64," + Base64.getEncoder().encodeToString(png), resolver.rewrite(avatar));
+            assertEquals(missing, resolver.rewrite(missing));
+            assertNull(resolver.rewrite(null));
+            assertTrue(resolver.bundle().isEmpty());
+        }
+        assertEquals(1, server.requests("/avatar.png"));
+        assertEquals(1, server.requests("/missing.png"));
+    }
+
+    @Test
+    void bundlesEqualContentsOnceAndKeepsTheUrlOfOversizedOnes() {
+        byte[] png = "png".getBytes(StandardCharsets.UTF_8);
+        String first = server.serve("/a/avatar.png", png, "image/png");
+        String second = server.serve("/b/avatar", png, "image/png");
+        String large = server.serve("/large.bin", new byte[64], null);
+        TranscriptOptions options = TranscriptOptions.builder().assetMode(AssetMode.BUNDLE).maxAssetBytes(16).build();
+
+        try (AssetResolver resolver = new AssetResolver(options)) {
+            resolver.resolve(List.of(first, second, large));
+
+            Map<String, Asset> bundle = resolver.bundle();
+            assertEquals(1, bundle.size());
+            String entry = bundle.keySet().iterator().next();
+            assertEquals("assets/" + bundle.get(entry).hash() + ".png", entry);
+            assertEquals(entry, resolver.rewrite(first));
+            assertEquals(entry, resolver.rewrite(second));
+            assertEquals(large, resolver.rewrite(large));
+        }
+    }
+}
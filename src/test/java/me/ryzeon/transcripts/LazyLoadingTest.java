@@ -0,0 +1,126 @@
+package me.ryzeon.transcripts;
+
+import net.dv8tion.jda.api.entities.Message;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyLoadingTest {
+
+    private static final TranscriptEngine ENGINE = TranscriptEngine.builder().warmUp(false).build();
+    private static final List<Message> MESSAGES = TestMessages.messages(1000);
+
+    @Test
+    void rendersOnlyTheFirstChunkAsElements() throws IOException {
+        Document document = Jsoup.parse(render(true));
+
+        List<Element> shown = document.select(".chatlog__message");
+        assertEquals(100, shown.size());
+        for (int i = 0; i < shown.size(); i++) {
+            assertEquals(Long.toUnsignedString(TestMessages.id(i)), shown.get(i).attr("data-message-id"));
+        }
+
+        List<Element> chunks = document.select("script.chatlog__chunk-data");
+        assertEquals(9, chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            assertEquals("application/json", chunks.get(i).attr("type"));
+            assertEquals(Long.toUnsignedString(TestMessages.id(100 * (i + 1))), chunks.get(i).attr("data-first"));
+            assertEquals(Long.toUnsignedString(TestMessages.id(100 * (i + 1) + 99)), chunks.get(i).attr("data-last"));
+        }
+    }
+
+    @Test
+    void storesEveryLaterMessageInOrder() throws IOException {
+        List<String> ids = new ArrayList<>();
+        for (Element chunk : Jsoup.parse(render(true)).select("script.chatlog__chunk-data")) {
+            Jsoup.parse(decode(chunk.data())).select(".chatlog__message")
+                    .forEach(message -> ids.add(message.attr("data-message-id")));
+        }
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 100; i < 1000; i++) {
+            expected.add(Long.toUnsignedString(TestMessages.id(i)));
+        }
+        assertEquals(expected, ids);
+    }
+
+    @Test
+    void storesTheSameHtmlAsAnEagerRender() throws IOException {
+        String eager = render(false);
+        for (Element chunk : Jsoup.parse(render(true)).select("script.chatlog__chunk-data")) {
+            String html = decode(chunk.data());
+            assertTrue(eager.contains(html), () -> "chunk from " + chunk.attr("data-first"));
+        }
+    }
+
+    @Test
+    void keepsMarkupOutOfTheScriptElements() throws IOException {
+        for (Element chunk : Jsoup.parse(render(true)).select("script.chatlog__chunk-data")) {
+            String data = chunk.data();
+            assertTrue(data.startsWith("\"") && data.endsWith("\""));
+            // </script> or <!-- inside the string would end the element early
+            assertEquals(-1, data.indexOf('<'), () -> "chunk from " + chunk.attr("data-first"));
+            assertTrue(decode(data).contains("</div>"));
+        }
+    }
+
+    @Test
+    void addsTheLoaderOnlyWhenLazy() throws IOException {
+        String loader = new String(LazyChunks.loader(), StandardCharsets.UTF_8);
+
+        assertTrue(render(true).contains(loader));
+        String eager = render(false);
+        assertFalse(eager.contains(loader));
+        assertFalse(eager.contains("chatlog__chunk-data"));
+    }
+
+    @Test
+    void escapesJsonStrings() {
+        StringBuilder json = new StringBuilder();
+        LazyChunks.jsonString("a\"b\\c\nd\re\tf</script><!--\u0001  é😀", json);
+
+        assertEquals("\"a\\\"b\\\\c\\nd\\re\\tf\\u003c/script>\\u003c!--\\u0001\\u2028\\u2029é😀\"", json.toString());
+        assertEquals("a\"b\\c\nd\re\tf</script><!--\u0001  é😀", decode(json.toString()));
+    }
+
+    private static String render(boolean lazy) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ENGINE.writeTranscript(MESSAGES, out, TranscriptOptions.builder().lazyLoading(lazy).chunkSize(100).build());
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decode the json strings {@link LazyChunks#jsonString} writes
+     */
+    private static String decode(String json) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i < json.length() - 1; i++) {
+            char c = json.charAt(i);
+            if (c != '\\') {
+                text.append(c);
+                continue;
+            }
+            char escaped = json.charAt(++i);
+            switch (escaped) {
+                case 'n' -> text.append('\n');
+                case 'r' -> text.append('\r');
+                case 't' -> text.append('\t');
+                case 'u' -> {
+                    text.append((char) Integer.parseInt(json.substring(i + 1, i + 5), 16));
+                    i += 4;
+                }
+                default -> text.append(escaped);
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package me.ryzeon.transcripts;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.User;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageGroupingTest {
+
+    private static final TranscriptEngine ENGINE = TranscriptEngine.builder().warmUp(false).build();
+    private static final Duration WINDOW = Duration.ofMinutes(7);
+
+    private final List<Message> base = TestMessages.messages(3);
+    private final User alice = base.get(0).getAuthor(), bot = base.get(2).getAuthor();
+    private final List<Message> messages = new ArrayList<>();
+
+    @Test
+    void groupsConsecutiveMessagesOfAnAuthorWithinTheWindow() throws IOException {
+        add(0, alice, false);
+        add(60_000, alice, false);
+        // exactly the window after the message before still continues the group
+        add(60_000 + WINDOW.toMillis(), alice, false);
+        add(60_000 + 2 * WINDOW.toMillis() + 1, alice, false);
+        add(60_000 + 2 * WINDOW.toMillis() + 2, bot, false);
+        // a reply starts a group of its own, the message after it may join that group
+        add(60_000 + 2 * WINDOW.toMillis() + 3, bot, true);
+        add(60_000 + 2 * WINDOW.toMillis() + 4, bot, false);
+        add(60_000 + 2 * WINDOW.toMillis() + 5, alice, false);
+        add(60_000 + 2 * WINDOW.toMillis() + 6, null, false);
+        add(60_000 + 2 * WINDOW.toMillis() + 7, null, false);
+
+        List<List<Integer>> expected = List.of(List.of(0, 1, 2), List.of(3), List.of(4), List.of(5, 6), List.of(7),
+                List.of(8), List.of(9));
+        assertEquals(expected, groups(TranscriptOptions.builder().groupWindow(WINDOW).build()));
+        // groups are never cut by chunks, even ones smaller than a group
+        assertEquals(expected, groups(TranscriptOptions.builder().groupWindow(WINDOW).chunkSize(1).build()));
+    }
+
+    @Test
+    void rendersTheHeaderOnceAGroup() throws IOException {
+        add(0, bot, false);
+        add(1000, bot, false);
+        add(2000, bot, false);
+
+        Element group = render(TranscriptOptions.builder().groupWindow(WINDOW).build()).selectFirst(".chatlog__message-group");
+
+        assertEquals(3, group.select(".chatlog__message").size());
+        assertEquals(1, group.select(".chatlog__author-avatar").size());
+        assertEquals(1, group.select(".chatlog__author-name").size());
+        assertEquals(1, group.select(".chatlog__bot-tag").size());
+        assertEquals(1, group.select(".chatlog__timestamp").size());
+    }
+
+    @Test
+    void givesEveryMessageAGroupWithoutAWindow() throws IOException {
+        add(0, alice, false);
+        add(1000, alice, false);
+        add(2000, alice, false);
+
+        List<List<Integer>> expected = List.of(List.of(0), List.of(1), List.of(2));
+        assertEquals(expected, groups(TranscriptOptions.builder().build()));
+        assertEquals(expected, groups(TranscriptOptions.builder().groupWindow(Duration.ZERO).build()));
+    }
+
+    private void add(long millis, User author, boolean reply) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("getIdLong", TestMessages.FIRST_ID + (millis << 22));
+        values.put("getChannel", base.get(0).getChannel());
+        values.put("getAuthor", author);
+        values.put("getContentDisplay", "message " + messages.size());
+        values.put("getReferencedMessage", reply ? messages.get(messages.size() - 1) : null);
+        messages.add(TestMessages.stub(Message.class, values));
+    }
+
+    /**
+     * @return the indexes of the messages in each rendered group
+     */
+    private List<List<Integer>> groups(TranscriptOptions options) throws IOException {
+        List<String> ids = messages.stream().map(Message::getId).toList();
+        List<List<Integer>> groups = new ArrayList<>();
+        for (Element group : render(options).select(".chatlog__message-group")) {
+            groups.add(group.select(".chatlog__message").stream().map(message -> ids.indexOf(message.attr("data-message-id"))).toList());
+        }
+        return groups;
+    }
+
+    private Element render(TranscriptOptions options) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ENGINE.writeTranscript(messages, out, options);
+        return Jsoup.parse(out.toString(StandardCharsets.UTF_8)).body();
+    }
+}
@@ -0,0 +1,67 @@
+package me.ryzeon.transcripts;
+
+import net.dv8tion.jda.api.entities.Message;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageOrderTest {
+
+    private static final List<Message> MESSAGES = TestMessages.messages(50);
+
+    @Test
+    void keepsOrderedInput() {
+        List<Message> messages = new ArrayList<>(MESSAGES);
+
+        assertSame(messages, MessageOrder.ascending(messages));
+        assertEquals(List.of(), MessageOrder.ascending(List.of()));
+        assertEquals(MESSAGES.subList(0, 1), MessageOrder.ascending(MESSAGES.subList(0, 1)));
+    }
+
+    @Test
+    void reversesNewestFirstInput() {
+        List<Message> history = new ArrayList<>(MESSAGES);
+        Collections.reverse(history);
+        List<Message> copy = new ArrayList<>(history);
+
+        assertEquals(MESSAGES, MessageOrder.ascending(history));
+        assertEquals(copy, history);
+    }
+
+    @Test
+    void sortsUnorderedInput() {
+        for (long seed = 0; seed < 5; seed++) {
+            List<Message> shuffled = TestMessages.shuffled(MESSAGES, seed);
+            List<Message> copy = new ArrayList<>(shuffled);
+
+            assertEquals(MESSAGES, MessageOrder.ascending(shuffled));
+            assertEquals(copy, shuffled);
+            assertEquals(MESSAGES, MessageOrder.ascending(new LinkedHashSet<>(shuffled)));
+        }
+    }
+
+    @Test
+    void mergesSourcesOfAnyOrderOnce() {
+        List<Message> newestFirst = new ArrayList<>(MESSAGES.subList(0, 30));
+        Collections.reverse(newestFirst);
+        List<Message> oldestFirst = MESSAGES.subList(20, 40);
+        List<Message> unordered = TestMessages.shuffled(MESSAGES.subList(35, 50), 3);
+
+        assertEquals(MESSAGES, MessageOrder.merge(List.of(newestFirst, oldestFirst, unordered, List.of())));
+        assertEquals(MESSAGES, MessageOrder.merge(List.of(unordered, MESSAGES, MESSAGES)));
+        assertEquals(List.of(), MessageOrder.merge(List.of()));
+    }
+
+    @Test
+    void sortsInPlace() {
+        List<Long> ids = new ArrayList<>(List.of(3L, 1L, 2L, 2L));
+        MessageOrder.sort(ids, Long::longValue);
+        assertEquals(List.of(1L, 2L, 2L, 3L), ids);
+
+        ids = new ArrayList<>(List.of(5L, 4L, 4L, 1L));
+        MessageOrder.sort(ids, Long::longValue);
+        assertEquals(List.of(1L, 4L, 4L, 5L), ids);
+    }
+}
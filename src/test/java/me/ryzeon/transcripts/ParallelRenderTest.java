@@ -0,0 +1,98 @@
+package me.ryzeon.transcripts;
+
+import net.dv8tion.jda.api.entities.Message;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class ParallelRenderTest {
+
+    private static final TranscriptEngine ENGINE = TranscriptEngine.builder().warmUp(false).build();
+    private static final int[] CHUNK_SIZES = {1, 2, 3, 7, 64, 256};
+
+    /**
+     * Contents put on every message, so surrogate pairs and lone surrogates start and end every chunk
+     */
+    private static final String[] CONTENTS = {
+            "😀 starts with a pair",
+            "ends with a pair 🇩🇪",
+            "𝒜𝒞",
+            "lone high at the end \uD83D",
+            "\uDE00 lone low at the start",
+            "ünïcödé **bold 日本語** `code 😀`",
+            "plain"
+    };
+
+    private static ExecutorService pool;
+
+    @BeforeAll
+    static void start() {
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    static void stop() {
+        pool.shutdown();
+    }
+
+    @Test
+    void rendersTheSameBytesOnAnExecutor() throws IOException {
+        List<Message> messages = withContents(TestMessages.messages(500));
+        byte[] sequential = render(messages, TranscriptOptions.builder().build());
+
+        for (int chunkSize : CHUNK_SIZES) {
+            assertArrayEquals(sequential, render(messages, TranscriptOptions.builder().chunkSize(chunkSize).build()),
+                    "sequential, chunks of " + chunkSize);
+            assertArrayEquals(sequential, render(messages, TranscriptOptions.builder().executor(pool).chunkSize(chunkSize)
+                    .maxPendingChunks(3).build()), "pool, chunks of " + chunkSize);
+        }
+    }
+
+    @Test
+    void rendersTheSameBytesOnAThreadPerChunk() throws IOException {
+        List<Message> messages = withContents(TestMessages.messages(300));
+        Executor threadPerTask = task -> new Thread(task).start();
+        TranscriptOptions.TranscriptOptionsBuilder grouped = TranscriptOptions.builder().groupWindow(Duration.ofMinutes(7));
+        byte[] sequential = render(messages, grouped.build());
+
+        for (int chunkSize : CHUNK_SIZES) {
+            assertArrayEquals(sequential, render(messages, grouped.executor(threadPerTask).chunkSize(chunkSize).build()),
+                    "thread per chunk, chunks of " + chunkSize);
+        }
+    }
+
+    private static byte[] render(List<Message> messages, TranscriptOptions options) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ENGINE.writeTranscript(messages, out, options);
+        return out.toByteArray();
+    }
+
+    private static List<Message> withContents(List<Message> messages) {
+        List<Message> copies = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            Map<String, Object> values = new HashMap<>();
+            values.put("getIdLong", message.getIdLong());
+            values.put("getChannel", message.getChannel());
+            values.put("getAuthor", message.getAuthor());
+            values.put("getContentDisplay", CONTENTS[i % CONTENTS.length]);
+            // replies to the message before, which is in another chunk whenever a chunk starts here
+            values.put("getReferencedMessage", i % 5 == 4 ? copies.get(i - 1) : null);
+            copies.add(TestMessages.stub(Message.class, values));
+        }
+        return copies;
+    }
+}
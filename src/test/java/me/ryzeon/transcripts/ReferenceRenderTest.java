@@ -0,0 +1,209 @@
+package me.ryzeon.transcripts;
+
+import me.ryzeon.transcripts.assets.AssetCache;
+import me.ryzeon.transcripts.assets.AssetMode;
+import me.ryzeon.transcripts.assets.AssetServer;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.unions.GuildMessageChannelUnion;
+import net.dv8tion.jda.api.entities.channel.unions.MessageChannelUnion;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceRenderTest {
+
+    private static final TranscriptEngine ENGINE = TranscriptEngine.builder().warmUp(false).build();
+
+    @Test
+    void linksRepliesToMessagesInTheTranscript() throws IOException {
+        Element link = referenceLink(render(TestMessages.messages(6)));
+
+        assertEquals("scrollToMessage(event, '" + TestMessages.id(4) + "')", link.attr("onclick"));
+        Element excerpt = link.selectFirst("em");
+        assertNotNull(excerpt);
+        assertEquals("hello **world** `code` <b>4</b>", excerpt.text());
+        assertTrue(excerpt.children().isEmpty());
+    }
+
+    @Test
+    void doesNotLinkRepliesToMessagesOutsideTheTranscript() throws IOException {
+        List<Message> messages = TestMessages.messages(6);
+        Element link = referenceLink(render(messages.subList(5, 6)));
+
+        assertFalse(link.hasAttr("onclick"));
+        assertEquals("hello **world** `code` <b>4</b>", link.selectFirst("em").text());
+    }
+
+    @Test
+    void linksToTheIdsMessagesAreRenderedWith() throws IOException {
+        List<Message> messages = TestMessages.messages(6);
+        // ids past the signed range, the reply refers to the first of them
+        long id = -2L << 22;
+        Message first = withId(messages.get(4), id, null);
+        Message reply = withId(messages.get(5), id + (1000L << 22), first);
+
+        Document document = render(List.of(first, reply));
+
+        Element link = referenceLink(document);
+        String target = Long.toUnsignedString(id);
+        assertEquals("scrollToMessage(event, '" + target + "')", link.attr("onclick"));
+        Element message = document.getElementById("message-" + target);
+        assertNotNull(message);
+        assertEquals(target, message.attr("data-message-id"));
+    }
+
+    @Test
+    void showsRoleColoursInline() throws IOException {
+        Element name = referenceName(render(colored(), TranscriptOptions.builder().build()));
+
+        assertEquals("color: #5865f2", name.attr("style"));
+        assertEquals("chatlog__reference-name", name.className());
+    }
+
+    @Test
+    void refersToRoleColoursByClassWithAssetTables() throws IOException {
+        List<Message> messages = colored();
+        TranscriptOptions tables = TranscriptOptions.builder().assetTables(true).build();
+
+        for (List<Message> shown : List.of(messages, messages.subList(1, 2))) {
+            Document document = render(shown, tables);
+
+            Element name = referenceName(document);
+            assertFalse(name.hasAttr("style"));
+            assertTrue(name.hasClass("rc-5865f2"), name::className);
+            assertTrue(document.select("style").stream().anyMatch(style -> style.data().contains(".rc-5865f2{color:#5865f2}")));
+        }
+    }
+
+    @Test
+    void keepsRoleColoursOfAppendedReplies(@TempDir Path directory) throws IOException {
+        List<Message> messages = colored();
+        TranscriptOptions tables = TranscriptOptions.builder().assetTables(true).build();
+        Path file = directory.resolve("transcript.html");
+
+        ENGINE.writeTranscript(messages.subList(0, 1), file, tables);
+        assertEquals(1, ENGINE.appendToTranscript(file, messages.subList(1, 2), tables));
+
+        Document document = Jsoup.parse(Files.readString(file));
+        assertTrue(referenceName(document).hasClass("rc-5865f2"));
+        assertEquals(1, document.select("style").stream().filter(style -> style.data().contains(".rc-5865f2{color:#5865f2}")).count());
+        // a later append without coloured authors keeps the colours read back from the tables
+        ENGINE.appendToTranscript(file, TestMessages.messages(3).subList(2, 3), tables);
+        assertTrue(Jsoup.parse(Files.readString(file)).select("style").stream()
+                .anyMatch(style -> style.data().contains(".rc-5865f2{color:#5865f2}")));
+    }
+
+    @Test
+    void onlyReadsTheCopiesOfMessagesOutsideTheTranscript(@TempDir Path directory) throws IOException {
+        List<Message> messages = TestMessages.messages(6);
+        try (AssetServer server = new AssetServer()) {
+            String avatar = server.serve("/copy.png", "png".getBytes(StandardCharsets.UTF_8), "image/png");
+            AtomicInteger reads = new AtomicInteger();
+            // the copy the reply came with, its author differs from the one of the message in the transcript
+            Map<String, Object> values = new HashMap<>();
+            values.put("getIdLong", TestMessages.id(4));
+            values.put("getChannel", messages.get(4).getChannel());
+            values.put("getAuthor", (Function<Object, Object>) self -> {
+                reads.incrementAndGet();
+                return TestMessages.stub(User.class, Map.of("getName", "copy", "getIdLong", 3L, "getEffectiveAvatarUrl", avatar));
+            });
+            values.put("getContentDisplay", (Function<Object, Object>) self -> {
+                reads.incrementAndGet();
+                return "copy";
+            });
+            Message reply = inChannel(messages.get(5), messages.get(5).getChannel(), TestMessages.stub(Message.class, values));
+            TranscriptOptions options = TranscriptOptions.builder().assetMode(AssetMode.INLINE).assetTables(true)
+                    .assetCache(new AssetCache(directory, 1 << 20)).build();
+
+            Element name = referenceName(render(List.of(messages.get(4), reply), options));
+            assertEquals("alice", name.text());
+            assertEquals(0, reads.get());
+            assertEquals(0, server.requests("/copy.png"));
+
+            name = referenceName(render(List.of(reply), options));
+            assertEquals("copy", name.text());
+            assertTrue(reads.get() > 0);
+            assertEquals(1, server.requests("/copy.png"));
+        }
+    }
+
+    /**
+     * @return a message of an author with a coloured role and a reply to it
+     */
+    private static List<Message> colored() {
+        List<Message> messages = TestMessages.messages(2);
+        Member member = TestMessages.stub(Member.class, Map.of("getColor", new Color(0x5865f2), "getEffectiveName", "Alice",
+                "getEffectiveAvatarUrl", "https://cdn.test/alice.png"));
+        Guild guild = TestMessages.stub(Guild.class, Map.of("getName", "Test Guild", "getMember", member));
+        Map<String, Object> channelValues = new HashMap<>();
+        channelValues.put("getName", "ticket-1");
+        channelValues.put("getGuild", guild);
+        channelValues.put("getIdLong", 42L);
+        channelValues.put("asGuildMessageChannel", (Function<Object, Object>) self -> self);
+        MessageChannelUnion channel = TestMessages.stub(MessageChannelUnion.class, channelValues, GuildMessageChannelUnion.class);
+
+        Message first = inChannel(messages.get(0), channel, null);
+        return List.of(first, inChannel(messages.get(1), channel, first));
+    }
+
+    private static Message inChannel(Message message, MessageChannelUnion channel, Message reference) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("getIdLong", message.getIdLong());
+        values.put("getChannel", channel);
+        values.put("getAuthor", message.getAuthor());
+        values.put("getContentDisplay", message.getContentDisplay());
+        values.put("getReferencedMessage", reference);
+        return TestMessages.stub(Message.class, values);
+    }
+
+    private static Element referenceName(Document document) {
+        Element name = document.selectFirst(".chatlog__reference-name");
+        assertNotNull(name);
+        return name;
+    }
+
+    private static Message withId(Message message, long id, Message reference) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("getIdLong", id);
+        values.put("getChannel", message.getChannel());
+        values.put("getAuthor", message.getAuthor());
+        values.put("getContentDisplay", message.getContentDisplay());
+        values.put("getReferencedMessage", reference);
+        return TestMessages.stub(Message.class, values);
+    }
+
+    private static Element referenceLink(Document document) {
+        Element link = document.selectFirst(".chatlog__reference-link");
+        assertNotNull(link);
+        return link;
+    }
+
+    private static Document render(List<Message> messages) throws IOException {
+        return render(messages, TranscriptOptions.builder().build());
+    }
+
+    private static Document render(List<Message> messages, TranscriptOptions options) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ENGINE.writeTranscript(messages, out, options);
+        return Jsoup.parse(out.toString(StandardCharsets.UTF_8));
+    }
+}
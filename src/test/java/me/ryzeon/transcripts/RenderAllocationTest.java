@@ -0,0 +1,47 @@
+package me.ryzeon.transcripts;
+
+import com.sun.management.ThreadMXBean;
+import net.dv8tion.jda.api.entities.Message;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * A coarse guard of what RenderAllocationBenchmark measures precisely: once warm, a render allocates little more than
+ * its output. The output is built once as chars and copied once as utf-8 bytes, everything else is per render.
+ */
+class RenderAllocationTest {
+
+    private static final int MESSAGES = 1000;
+
+    @Test
+    void allocatesLittleMoreThanTheOutputPerMessage() throws IOException {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof ThreadMXBean threads && threads.isThreadAllocatedMemorySupported()
+                && threads.isThreadAllocatedMemoryEnabled());
+        ThreadMXBean threads = (ThreadMXBean) bean;
+        TranscriptEngine engine = TranscriptEngine.builder().warmUp(false).build();
+        List<Message> messages = TestMessages.messages(MESSAGES);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        engine.writeTranscript(messages, output, TranscriptOptions.DEFAULT);
+        for (int i = 0; i < 30; i++) {
+            engine.writeTranscript(messages, OutputStream.nullOutputStream(), TranscriptOptions.DEFAULT);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        engine.writeTranscript(messages, OutputStream.nullOutputStream(), TranscriptOptions.DEFAULT);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        long outputPerMessage = output.size() / MESSAGES;
+        long allocatedPerMessage = allocated / MESSAGES;
+        assertTrue(allocatedPerMessage < 3 * outputPerMessage,
+                () -> allocatedPerMessage + " bytes allocated per message of " + outputPerMessage + " output bytes");
+    }
+}
@@ -0,0 +1,149 @@
+package me.ryzeon.transcripts;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderContextTest {
+
+    private static final String[] TEXTS = {
+            "",
+            "plain ascii <b>&amp;</b>",
+            "\u0000\u007f",
+            "ünïcödé ß ߿",
+            "ࠀ € 日本語 ￿",
+            "😀 𝒜𝒞 🇩🇪",
+            "ends with a high surrogate \uD83D",
+            "a lone low surrogate \uDE00 in the middle",
+            "\uDE00\uD83D reversed pair",
+            "\uD83D😀 two highs"
+    };
+
+    private RenderContext context;
+
+    @BeforeEach
+    void acquire() {
+        context = RenderContext.acquire();
+    }
+
+    @AfterEach
+    void release() {
+        context.release();
+    }
+
+    @Test
+    void encodesLikeTheJdk() {
+        for (String text : TEXTS) {
+            assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), context.encode(text), text);
+        }
+        String all = String.join("", TEXTS);
+        assertArrayEquals(all.getBytes(StandardCharsets.UTF_8), context.encode(all));
+    }
+
+    @Test
+    void growsItsBufferForLargeInput() {
+        String large = "日本語 😀 text ".repeat(1 << 16);
+
+        assertArrayEquals(large.getBytes(StandardCharsets.UTF_8), context.encode(large));
+        assertArrayEquals(TEXTS[5].getBytes(StandardCharsets.UTF_8), context.encode(TEXTS[5]));
+    }
+
+    @Test
+    void turnsMarksIntoByteOffsets() {
+        StringBuilder html = context.html();
+        context.mark();
+        for (String text : TEXTS) {
+            html.append(text);
+            // before the multi-byte chars of the next text and twice at the same place
+            context.mark();
+            context.mark();
+        }
+        context.mark();
+
+        byte[] bytes = context.encodeMarked();
+
+        String expected = html.toString();
+        assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), bytes);
+        int[] offsets = new int[context.markCount()];
+        int end = 0;
+        offsets[0] = 0;
+        int mark = 1;
+        for (String text : TEXTS) {
+            end += text.getBytes(StandardCharsets.UTF_8).length;
+            offsets[mark++] = end;
+            offsets[mark++] = end;
+        }
+        offsets[mark] = bytes.length;
+        assertArrayEquals(offsets, Arrays.copyOf(context.marks(), context.markCount()));
+    }
+
+    @Test
+    void movesAMarkWithinASurrogatePairAfterIt() {
+        context.append("a😀");
+        context.html().setLength(2);
+        context.mark();
+        context.append("\uDE00b");
+        context.mark();
+
+        byte[] bytes = context.encodeMarked();
+
+        assertArrayEquals("a😀b".getBytes(StandardCharsets.UTF_8), bytes);
+        assertArrayEquals(new int[]{5, 6}, Arrays.copyOf(context.marks(), context.markCount()));
+    }
+
+    @Test
+    void escapesTextAndAttributes() {
+        context.text("a < b & \"c\" > 'd' 😀").attribute("title", "x\" onclick=\"y").attribute("alt", null);
+
+        assertEquals("a &lt; b &amp; &quot;c&quot; &gt; 'd' 😀 title=\"x&quot; onclick=&quot;y\"", context.html().toString());
+    }
+
+    @Test
+    void writesTheTimeOfSnowflakes() {
+        context.time(TestMessages.id(0)).append(' ').time(TestMessages.id(3661));
+
+        assertEquals("22:13:20 23:14:21", context.html().toString());
+    }
+
+    @Test
+    void reusesContextsReleasedOnOtherThreads() throws Exception {
+        RenderContext released = CompletableFuture.supplyAsync(() -> {
+            RenderContext acquired = RenderContext.acquire();
+            acquired.release();
+            return acquired;
+        }, task -> new Thread(task).start()).get(5, TimeUnit.SECONDS);
+
+        // the pool holds at most a context per processor, the released one is among them
+        List<RenderContext> acquired = new ArrayList<>();
+        try {
+            for (int i = 0; i < Runtime.getRuntime().availableProcessors(); i++) {
+                acquired.add(RenderContext.acquire());
+            }
+            assertTrue(acquired.stream().anyMatch(context -> context == released));
+        } finally {
+            acquired.forEach(RenderContext::release);
+        }
+    }
+
+    @Test
+    void handsOutAnotherContextWhileOneIsInUse() {
+        context.append("kept");
+        RenderContext nested = RenderContext.acquire();
+        try {
+            assertNotSame(context, nested);
+            assertEquals(0, nested.html().length());
+        } finally {
+            nested.release();
+        }
+        assertEquals("kept", context.html().toString());
+    }
+}
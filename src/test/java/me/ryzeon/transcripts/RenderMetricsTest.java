@@ -0,0 +1,83 @@
+package me.ryzeon.transcripts;
+
+import com.sun.management.ThreadMXBean;
+import me.ryzeon.transcripts.metrics.RecordingTranscriptMetrics;
+import me.ryzeon.transcripts.metrics.RenderSummary;
+import me.ryzeon.transcripts.metrics.TranscriptMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class RenderMetricsTest {
+
+    private static final TranscriptEngine ENGINE = TranscriptEngine.builder().warmUp(false).build();
+
+    @Test
+    void reportsEveryRender() throws IOException {
+        RecordingTranscriptMetrics metrics = new RecordingTranscriptMetrics(4);
+        TranscriptOptions options = TranscriptOptions.builder().metrics(metrics).build();
+
+        ENGINE.writeTranscript(TestMessages.messages(40), new ByteArrayOutputStream(), options);
+        ENGINE.writeTranscript(TestMessages.messages(10), new ByteArrayOutputStream(), options);
+
+        assertEquals(2, metrics.renders());
+        assertEquals(50, metrics.messages());
+        assertTrue(metrics.nanos(TranscriptMetrics.Phase.RENDER) > 0);
+        assertTrue(metrics.markdownCalls() >= 50);
+        assertEquals(4, metrics.slowestInputs().size());
+    }
+
+    @Test
+    void countsAllocationsWhenTheJvmDoes() throws IOException {
+        ThreadMXBean threads = counter();
+        assumeTrue(threads.isThreadAllocatedMemoryEnabled());
+        List<RenderSummary> summaries = new CopyOnWriteArrayList<>();
+
+        ENGINE.writeTranscript(TestMessages.messages(40), new ByteArrayOutputStream(),
+                TranscriptOptions.builder().metrics(listener(summaries)).build());
+
+        assertEquals(1, summaries.size());
+        assertTrue(summaries.get(0).allocatedBytes() > 0);
+    }
+
+    @Test
+    void leavesACounterTurnedOffByTheHostOff() throws IOException {
+        ThreadMXBean threads = counter();
+        boolean enabled = threads.isThreadAllocatedMemoryEnabled();
+        threads.setThreadAllocatedMemoryEnabled(false);
+        try {
+            List<RenderSummary> summaries = new CopyOnWriteArrayList<>();
+
+            ENGINE.writeTranscript(TestMessages.messages(40), new ByteArrayOutputStream(),
+                    TranscriptOptions.builder().metrics(listener(summaries)).build());
+
+            assertFalse(threads.isThreadAllocatedMemoryEnabled());
+            assertEquals(1, summaries.size());
+            assertEquals(-1, summaries.get(0).allocatedBytes());
+        } finally {
+            threads.setThreadAllocatedMemoryEnabled(enabled);
+        }
+    }
+
+    private static ThreadMXBean counter() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof ThreadMXBean counter && counter.isThreadAllocatedMemorySupported());
+        return (ThreadMXBean) threads;
+    }
+
+    private static TranscriptMetrics listener(List<RenderSummary> summaries) {
+        return new TranscriptMetrics() {
+            @Override
+            public void rendered(RenderSummary summary) {
+                summaries.add(summary);
+            }
+        };
+    }
+}
@@ -0,0 +1,183 @@
+package me.ryzeon.transcripts;
+
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.utils.FileUpload;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedTranscriptTest {
+
+    private static final TranscriptEngine ENGINE = TranscriptEngine.builder().warmUp(false).build();
+    private static final TranscriptOptions OPTIONS = TranscriptOptions.builder().build();
+
+    private final List<Message> messages = TestMessages.messages(100);
+
+    @Test
+    void splitsByMessageCount() throws IOException {
+        List<FileUpload> uploads = ENGINE.generateShardsFromMessages(messages, "ticket.html", TranscriptSharding.byMessages(30), OPTIONS);
+
+        assertEquals(List.of("ticket-1.html", "ticket-2.html", "ticket-3.html", "ticket-4.html", "ticket-index.html"),
+                uploads.stream().map(FileUpload::getName).toList());
+        List<List<Long>> parts = parts(read(uploads));
+        assertEquals(List.of(30, 30, 30, 10), parts.stream().map(List::size).toList());
+        assertEquals(ids(0, 100), parts.stream().flatMap(List::stream).toList());
+    }
+
+    @Test
+    void neverSplitsAMessageGroup() throws IOException {
+        TranscriptOptions grouped = TranscriptOptions.builder().groupWindow(Duration.ofMinutes(7)).build();
+        ByteArrayOutputStream whole = new ByteArrayOutputStream();
+        ENGINE.writeTranscript(messages, whole, grouped);
+        Set<Long> groupStarts = new HashSet<>();
+        for (Element group : Jsoup.parse(whole.toString(StandardCharsets.UTF_8)).select(".chatlog__message-group")) {
+            groupStarts.add(Long.parseUnsignedLong(group.selectFirst(".chatlog__message").attr("data-message-id")));
+        }
+
+        List<List<Long>> parts = parts(read(ENGINE.generateShardsFromMessages(messages, "ticket.html",
+                TranscriptSharding.byMessages(3), grouped)));
+
+        assertEquals(ids(0, 100), parts.stream().flatMap(List::stream).toList());
+        for (List<Long> part : parts) {
+            assertTrue(part.size() <= 3, () -> "part " + part);
+            assertTrue(groupStarts.contains(part.get(0)), () -> "part " + part + " starts within a group");
+        }
+        assertTrue(parts.stream().anyMatch(part -> part.size() < 3));
+    }
+
+    @Test
+    void splitsBySize() throws IOException {
+        long onePart = read(ENGINE.generateShardsFromMessages(messages.subList(0, 1), "ticket.html",
+                TranscriptSharding.byMessages(1), OPTIONS)).get(0).length;
+        long maxBytes = onePart + 20_000;
+
+        List<byte[]> uploads = read(ENGINE.generateShardsFromMessages(messages, "ticket.html", TranscriptSharding.bySize(maxBytes), OPTIONS));
+
+        List<List<Long>> parts = parts(uploads);
+        assertTrue(parts.size() > 1, () -> parts.size() + " parts");
+        assertEquals(ids(0, 100), parts.stream().flatMap(List::stream).toList());
+        for (byte[] part : uploads.subList(0, uploads.size() - 1)) {
+            assertTrue(part.length <= maxBytes, () -> part.length + " bytes of at most " + maxBytes);
+        }
+        // a part is only closed once the next group no longer fits
+        assertTrue(uploads.get(0).length > maxBytes - 2_000, () -> "first part of " + uploads.get(0).length + " bytes");
+    }
+
+    @Test
+    void splitsByDay() throws IOException {
+        // 21:00, 22:30 and 23:30 utc on one day, 00:30 utc on the next
+        long day = 86_400_000L;
+        List<Message> spread = List.of(at(21 * 3_600_000L), at(22 * 3_600_000L + 1_800_000), at(23 * 3_600_000L + 1_800_000),
+                at(day + 1_800_000));
+
+        assertEquals(List.of(3, 1), parts(read(ENGINE.generateShardsFromMessages(spread, "ticket.html", TranscriptSharding.byDay(), OPTIONS)))
+                .stream().map(List::size).toList());
+        // two hours ahead of utc, the day starts at 22:00 utc
+        assertEquals(List.of(1, 3), parts(read(ENGINE.generateShardsFromMessages(spread, "ticket.html",
+                TranscriptSharding.byDay(ZoneOffset.ofHours(2)), OPTIONS))).stream().map(List::size).toList());
+    }
+
+    @Test
+    void linksPartsToEachOtherAndToTheIndex() throws IOException {
+        List<byte[]> uploads = read(ENGINE.generateShardsFromMessages(messages, "ticket.html", TranscriptSharding.byMessages(40), OPTIONS));
+
+        assertEquals(List.of(List.of("ticket-index.html"), List.of("ticket-index.html", "ticket-2.html")), navigation(uploads.get(0)));
+        assertEquals(List.of(List.of("ticket-1.html", "ticket-index.html"), List.of("ticket-1.html", "ticket-index.html", "ticket-3.html")),
+                navigation(uploads.get(1)));
+        assertEquals(List.of(List.of("ticket-2.html", "ticket-index.html"), List.of("ticket-2.html", "ticket-index.html")),
+                navigation(uploads.get(2)));
+
+        Document index = parse(uploads.get(3));
+        List<Element> entries = index.select(".chatlog__shard-index li");
+        assertEquals(3, entries.size());
+        assertEquals(List.of("ticket-1.html", "ticket-2.html", "ticket-3.html"), entries.stream().map(li -> li.selectFirst("a").attr("href")).toList());
+        assertTrue(entries.get(0).text().startsWith("Part 1 · 40 messages · 2023-11-14 22:13 to 2023-11-14 22:13"), entries.get(0).text());
+        assertTrue(entries.get(2).text().startsWith("Part 3 · 20 messages"), entries.get(2).text());
+        assertTrue(index.title().contains("100 messages in 3 parts"), index.title());
+    }
+
+    @Test
+    void namesCompressedPartsAfterTheirArchive() throws IOException {
+        List<FileUpload> uploads = ENGINE.generateShardsFromMessages(messages, "ticket.zip", TranscriptSharding.byMessages(60),
+                TranscriptOptions.builder().compression(TranscriptCompression.ZIP).build());
+
+        assertEquals(List.of("ticket-1.zip", "ticket-2.zip", "ticket-index.zip"), uploads.stream().map(FileUpload::getName).toList());
+        assertThrows(IllegalArgumentException.class, () -> ENGINE.generateShardsFromMessages(messages, "ticket.html",
+                TranscriptSharding.byMessages(60), TranscriptOptions.builder().searchIndex(true).build()));
+        assertThrows(IllegalArgumentException.class, () -> TranscriptSharding.byMessages(0));
+        assertThrows(IllegalArgumentException.class, () -> TranscriptSharding.bySize(0));
+    }
+
+    /**
+     * @return the ids of the messages of every part, without the index page
+     */
+    private static List<List<Long>> parts(List<byte[]> uploads) {
+        List<List<Long>> parts = new ArrayList<>();
+        for (byte[] upload : uploads.subList(0, uploads.size() - 1)) {
+            parts.add(parse(upload).select(".chatlog__message").stream()
+                    .map(message -> Long.parseUnsignedLong(message.attr("data-message-id"))).toList());
+        }
+        return parts;
+    }
+
+    /**
+     * @return the links of the navigation at the start and at the end of a part
+     */
+    private static List<List<String>> navigation(byte[] upload) {
+        return parse(upload).select(".chatlog__shard-nav").stream()
+                .map(nav -> nav.select("a").stream().map(a -> a.attr("href")).toList()).toList();
+    }
+
+    private static List<Long> ids(int from, int to) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            ids.add(TestMessages.id(i));
+        }
+        return ids;
+    }
+
+    private Message at(long millisAfterFirstDay) {
+        // the first test message is sent at 22:13:20 utc
+        long millis = millisAfterFirstDay - (22 * 3_600_000L + 13 * 60_000 + 20_000);
+        Message template = messages.get(0);
+        Map<String, Object> values = new HashMap<>();
+        values.put("getIdLong", TestMessages.FIRST_ID + (millis << 22));
+        values.put("getChannel", template.getChannel());
+        values.put("getAuthor", template.getAuthor());
+        values.put("getContentDisplay", "message");
+        return TestMessages.stub(Message.class, values);
+    }
+
+    /**
+     * @return the data of every upload, which can only be read once
+     */
+    private static List<byte[]> read(List<FileUpload> uploads) throws IOException {
+        List<byte[]> data = new ArrayList<>(uploads.size());
+        for (FileUpload upload : uploads) {
+            try (InputStream in = upload.getData()) {
+                data.add(in.readAllBytes());
+            }
+        }
+        return data;
+    }
+
+    private static Document parse(byte[] html) {
+        return Jsoup.parse(new String(html, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,150 @@
+package me.ryzeon.transcripts;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.unions.GuildMessageChannelUnion;
+import net.dv8tion.jda.api.entities.channel.unions.MessageChannelUnion;
+import net.dv8tion.jda.api.requests.restaction.pagination.MessagePaginationAction;
+import net.dv8tion.jda.api.utils.TimeUtil;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * JDA messages for tests, backed by proxies that answer from a map of method names
+ */
+public final class TestMessages {
+
+    /**
+     * Id of the first message, sent at 2023-11-14T22:13:20Z. Messages are a second apart.
+     */
+    public static final long FIRST_ID = (1_700_000_000_000L - TimeUtil.DISCORD_EPOCH) << TimeUtil.TIMESTAMP_OFFSET;
+
+    private TestMessages() {
+    }
+
+    /**
+     * @param count the amount of messages
+     * @return messages of two authors in one channel, oldest first. Some are replies, some have markdown.
+     */
+    public static List<Message> messages(int count) {
+        Guild guild = stub(Guild.class, Map.of("getName", "Test Guild", "getIconUrl", "https://cdn.test/icon.png"));
+        Map<String, Object> channelValues = new HashMap<>();
+        channelValues.put("getName", "ticket-1");
+        channelValues.put("getGuild", guild);
+        channelValues.put("getIdLong", 42L);
+        channelValues.put("asGuildMessageChannel", (Function<Object, Object>) self -> self);
+        MessageChannelUnion channel = stub(MessageChannelUnion.class, channelValues, GuildMessageChannelUnion.class);
+        User alice = stub(User.class, Map.of("getName", "alice", "getGlobalName", "Alice", "getIdLong", 1L,
+                "getEffectiveAvatarUrl", "https://cdn.test/alice.png"));
+        User bot = stub(User.class, Map.of("getName", "bot", "getGlobalName", "Bot", "getIdLong", 2L, "isBot", true,
+                "getEffectiveAvatarUrl", "https://cdn.test/bot.png"));
+
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> values = new HashMap<>();
+            values.put("getIdLong", id(i));
+            values.put("getChannel", channel);
+            values.put("getAuthor", i % 3 == 2 ? bot : alice);
+            values.put("getContentDisplay", i % 4 == 0 ? "hello **world** `code` <b>" + i + "</b>" : "message " + i);
+            if (i % 6 == 5) {
+                values.put("getReferencedMessage", messages.get(i - 1));
+            }
+            messages.add(stub(Message.class, values));
+        }
+        return messages;
+    }
+
+    /**
+     * @return the id of the message at an index of {@link #messages(int)}
+     */
+    public static long id(int index) {
+        return FIRST_ID + ((long) index * 1000 << TimeUtil.TIMESTAMP_OFFSET);
+    }
+
+    /**
+     * @param messages messages
+     * @param seed     the seed of the shuffle
+     * @return the messages in a shuffled copy
+     */
+    public static List<Message> shuffled(List<Message> messages, long seed) {
+        List<Message> shuffled = new ArrayList<>(messages);
+        Collections.shuffle(shuffled, new Random(seed));
+        return shuffled;
+    }
+
+    /**
+     * @param messages messages, oldest first
+     * @param pageSize the amount of messages per page
+     * @return a history that hands out the messages page by page, oldest first, followed by an empty page
+     */
+    public static MessagePaginationAction history(List<Message> messages, int pageSize) {
+        return history(messages, pageSize, CompletableFuture::completedFuture);
+    }
+
+    /**
+     * @param submit completes a page, e.g. later on another thread
+     */
+    public static MessagePaginationAction history(List<Message> messages, int pageSize,
+                                                  Function<List<Message>, CompletableFuture<List<Message>>> submit) {
+        Deque<List<Message>> pages = new ArrayDeque<>();
+        for (int i = 0; i < messages.size(); i += pageSize) {
+            pages.add(messages.subList(i, Math.min(i + pageSize, messages.size())));
+        }
+        Map<String, Object> values = new HashMap<>();
+        Function<Object, Object> self = action -> action;
+        for (String method : List.of("order", "cache", "limit", "skipTo")) {
+            values.put(method, self);
+        }
+        values.put("getMaxLimit", 100);
+        values.put("submit", (Function<Object, Object>) action -> submit.apply(pages.isEmpty() ? List.of() : pages.poll()));
+        return stub(MessagePaginationAction.class, values);
+    }
+
+    /**
+     * Implement interfaces with a proxy. Methods return the value of their name, functions are applied to the proxy,
+     * other methods return null, false or zero.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T stub(Class<T> type, Map<String, Object> values, Class<?>... extra) {
+        Class<?>[] interfaces = new Class<?>[extra.length + 1];
+        interfaces[0] = type;
+        System.arraycopy(extra, 0, interfaces, 1, extra.length);
+        return (T) Proxy.newProxyInstance(TestMessages.class.getClassLoader(), interfaces, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (values.containsKey(name)) {
+                Object value = values.get(name);
+                return value instanceof Function<?, ?> function ? ((Function<Object, Object>) function).apply(proxy) : value;
+            }
+            if (values.containsKey("getIdLong")) {
+                long id = (Long) values.get("getIdLong");
+                if (name.equals("getId")) {
+                    return Long.toUnsignedString(id);
+                }
+                if (name.equals("getTimeCreated")) {
+                    return TimeUtil.getTimeCreated(id);
+                }
+            }
+            Class<?> returnType = method.getReturnType();
+            if (returnType == boolean.class) {
+                return false;
+            }
+            if (returnType == int.class) {
+                return 0;
+            }
+            if (returnType == long.class) {
+                return 0L;
+            }
+            return List.class.isAssignableFrom(returnType) ? List.of() : null;
+        });
+    }
+}
@@ -0,0 +1,142 @@
+package me.ryzeon.transcripts;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
+import net.dv8tion.jda.api.requests.restaction.pagination.ThreadChannelPaginationAction;
+import net.dv8tion.jda.api.utils.FileUpload;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadedTranscriptTest {
+
+    private static final TranscriptEngine ENGINE = TranscriptEngine.builder().warmUp(false).build();
+
+    private final List<Message> messages = TestMessages.messages(20);
+    private final Guild guild = messages.get(0).getChannel().asGuildMessageChannel().getGuild();
+
+    /**
+     * Started from message 3, with two messages
+     */
+    private final ThreadChannel started = thread(3, "started", 2);
+    /**
+     * Started from a message before the transcript, with one message
+     */
+    private final ThreadChannel outside = thread(50, "outside", 1);
+    /**
+     * Started from message 7, without messages
+     */
+    private final ThreadChannel empty = thread(7, "empty", 0);
+
+    @Test
+    void rendersThreadsBelowTheMessageTheyStartedFrom() throws Exception {
+        List<FileUpload> uploads = render(ThreadMode.INLINE);
+
+        assertEquals(List.of("ticket.html"), uploads.stream().map(FileUpload::getName).toList());
+        Document document = parse(uploads.get(0));
+
+        Element block = document.getElementById("thread-" + started.getId());
+        assertEquals("details", block.tagName());
+        assertSame(document.getElementById("message-" + TestMessages.id(3)), block.previousElementSibling());
+        assertEquals("started", block.selectFirst(".chatlog__thread-name").text());
+        assertEquals("2 messages", block.selectFirst(".chatlog__thread-count").text());
+        assertEquals(List.of(threadMessageId(3, 0), threadMessageId(3, 1)), messageIds(block));
+
+        assertEquals("details", document.getElementById("thread-" + empty.getId()).tagName());
+        assertEquals("0 messages", document.getElementById("thread-" + empty.getId()).selectFirst(".chatlog__thread-count").text());
+        assertEquals(20, document.select(".chatlog__message").size() - document.select(".chatlog__thread .chatlog__message").size());
+    }
+
+    @Test
+    void listsThreadsStartedOutsideTheTranscriptAfterItsLastMessage() throws Exception {
+        Document document = parse(render(ThreadMode.INLINE).get(0));
+
+        Element block = document.getElementById("thread-" + outside.getId());
+        assertSame(document.getElementById("message-" + TestMessages.id(19)), block.previousElementSibling());
+        assertEquals(List.of(threadMessageId(50, 0)), messageIds(block));
+    }
+
+    @Test
+    void linksThreadsToTheirOwnTranscripts() throws Exception {
+        List<FileUpload> uploads = render(ThreadMode.SEPARATE);
+
+        String startedFile = "ticket-thread-" + started.getId() + ".html";
+        String outsideFile = "ticket-thread-" + outside.getId() + ".html";
+        assertEquals(Set.of("ticket.html", startedFile, outsideFile),
+                new HashSet<>(uploads.stream().map(FileUpload::getName).toList()));
+        assertEquals("ticket.html", uploads.get(0).getName());
+
+        Document document = parse(uploads.get(0));
+        assertEquals(startedFile, document.getElementById("thread-" + started.getId()).selectFirst("a").attr("href"));
+        assertEquals(outsideFile, document.getElementById("thread-" + outside.getId()).selectFirst("a").attr("href"));
+        assertNull(document.getElementById("thread-" + empty.getId()).selectFirst("a"));
+        assertTrue(document.select("details").isEmpty());
+        assertSame(document.getElementById("message-" + TestMessages.id(3)),
+                document.getElementById("thread-" + started.getId()).previousElementSibling());
+
+        Map<String, FileUpload> byName = new HashMap<>();
+        uploads.forEach(upload -> byName.put(upload.getName(), upload));
+        assertEquals(List.of(threadMessageId(3, 0), threadMessageId(3, 1)), messageIds(parse(byName.get(startedFile)).body()));
+        assertEquals(List.of(threadMessageId(50, 0)), messageIds(parse(byName.get(outsideFile)).body()));
+    }
+
+    private List<FileUpload> render(ThreadMode mode) throws Exception {
+        // active threads first, the archived ones are merged in by id
+        TextChannel channel = TestMessages.stub(TextChannel.class, Map.of(
+                "getIdLong", 42L,
+                "getName", "ticket-1",
+                "getGuild", guild,
+                "getIterableHistory", TestMessages.history(messages, 7),
+                "getThreadChannels", List.of(outside, started),
+                "retrieveArchivedPublicThreadChannels", TestMessages.stub(ThreadChannelPaginationAction.class,
+                        Map.of("takeRemainingAsync", CompletableFuture.completedFuture(List.of(empty, started))))));
+        return ENGINE.createThreadedTranscriptAsync(channel, "ticket.html", mode, TranscriptOptions.builder().pageSize(7).build())
+                .get(10, TimeUnit.SECONDS);
+    }
+
+    private ThreadChannel thread(int startedFrom, String name, int messageCount) {
+        List<Message> replies = new ArrayList<>();
+        for (int i = 0; i < messageCount; i++) {
+            Message template = messages.get(i);
+            replies.add(TestMessages.stub(Message.class, Map.of(
+                    "getIdLong", threadMessageId(startedFrom, i),
+                    "getChannel", template.getChannel(),
+                    "getAuthor", template.getAuthor(),
+                    "getContentDisplay", name + " " + i)));
+        }
+        return TestMessages.stub(ThreadChannel.class, Map.of(
+                "getIdLong", TestMessages.id(startedFrom),
+                "getName", name,
+                "getGuild", guild,
+                "getIterableHistory", TestMessages.history(replies, 1)));
+    }
+
+    /**
+     * @return the id of a message of a thread, sent after the message the thread started from
+     */
+    private static long threadMessageId(int startedFrom, int index) {
+        return TestMessages.id(startedFrom) + ((long) (index + 1) << 22);
+    }
+
+    private static List<Long> messageIds(Element element) {
+        return element.select(".chatlog__message").stream().map(message -> Long.parseUnsignedLong(message.attr("data-message-id"))).toList();
+    }
+
+    private static Document parse(FileUpload upload) throws IOException {
+        try (InputStream in = upload.getData()) {
+            return Jsoup.parse(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
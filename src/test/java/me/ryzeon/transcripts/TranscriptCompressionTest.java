@@ -0,0 +1,110 @@
+package me.ryzeon.transcripts;
+
+import me.ryzeon.transcripts.assets.AssetMode;
+import net.dv8tion.jda.api.entities.Message;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptCompressionTest {
+
+    private static final TranscriptEngine ENGINE = TranscriptEngine.builder().warmUp(false).build();
+    private static final List<Message> MESSAGES = TestMessages.messages(2000);
+    private static final int[] LEVELS = {Deflater.DEFAULT_COMPRESSION, Deflater.NO_COMPRESSION, Deflater.BEST_COMPRESSION};
+
+    @Test
+    void writesPlainHtml() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        TranscriptStats stats = ENGINE.writeTranscript(MESSAGES, out, options(TranscriptCompression.NONE, -1));
+
+        assertEquals(2000, stats.messageCount());
+        assertEquals(out.size(), stats.htmlBytes());
+        assertEquals(out.size(), stats.outputBytes());
+        assertEquals(1, stats.compressionRatio());
+    }
+
+    @Test
+    void gzipsToTheSameHtml() throws IOException {
+        byte[] html = plain();
+        for (int level : LEVELS) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            TranscriptStats stats = ENGINE.writeTranscript(MESSAGES, out, options(TranscriptCompression.GZIP, level));
+
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+                assertArrayEquals(html, in.readAllBytes(), "level " + level);
+            }
+            assertEquals(html.length, stats.htmlBytes());
+            assertEquals(out.size(), stats.outputBytes());
+            if (level != Deflater.NO_COMPRESSION) {
+                assertTrue(stats.compressionRatio() > 2, () -> "ratio " + stats.compressionRatio());
+            }
+        }
+    }
+
+    @Test
+    void zipsToTheSameHtml() throws IOException {
+        byte[] html = plain();
+        for (int level : LEVELS) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            TranscriptStats stats = ENGINE.writeTranscript(MESSAGES, out, options(TranscriptCompression.ZIP, level));
+
+            Map<String, byte[]> entries = unzip(out.toByteArray());
+            assertEquals(List.of("transcript.html"), List.copyOf(entries.keySet()));
+            assertArrayEquals(html, entries.get("transcript.html"), "level " + level);
+            assertEquals(html.length, stats.htmlBytes());
+            assertEquals(out.size(), stats.outputBytes());
+        }
+    }
+
+    @Test
+    void bundlesAssetsIntoZipsOnly() throws IOException {
+        for (TranscriptCompression compression : List.of(TranscriptCompression.NONE, TranscriptCompression.GZIP)) {
+            TranscriptOptions options = TranscriptOptions.builder().compression(compression).assetMode(AssetMode.BUNDLE).build();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            assertThrows(IllegalArgumentException.class, () -> ENGINE.writeTranscript(MESSAGES, out, options));
+            assertEquals(0, out.size());
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TranscriptStats stats = ENGINE.writeTranscript(MESSAGES.subList(0, 10), out, TranscriptOptions.builder()
+                .compression(TranscriptCompression.ZIP).assetMode(AssetMode.BUNDLE).build());
+        byte[] html = unzip(out.toByteArray()).get("transcript.html");
+        assertNotNull(html);
+        assertEquals(html.length, stats.htmlBytes());
+    }
+
+    private static byte[] plain() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ENGINE.writeTranscript(MESSAGES, out, options(TranscriptCompression.NONE, -1));
+        return out.toByteArray();
+    }
+
+    private static TranscriptOptions options(TranscriptCompression compression, int level) {
+        return TranscriptOptions.builder().compression(compression).compressionLevel(level).build();
+    }
+
+    private static Map<String, byte[]> unzip(byte[] zip) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (ZipEntry entry; (entry = in.getNextEntry()) != null; ) {
+                entries.put(entry.getName(), in.readAllBytes());
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,89 @@
+package me.ryzeon.transcripts;
+
+import net.dv8tion.jda.api.entities.Message;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptSearchIndexTest {
+
+    private static final TranscriptEngine ENGINE = TranscriptEngine.builder().warmUp(false).build();
+    private static final TranscriptOptions OPTIONS = TranscriptOptions.builder().searchIndex(true).build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsMessagesByThePrefixesOfTheirWords() throws IOException {
+        List<Message> messages = withContents(TestMessages.messages(5),
+                "Refund via PayPal", "refunded twice", "the paypal refund", "Größe ändern", "𝒜𝒞 𝒜𝒟");
+        Path transcript = directory.resolve("transcript.html");
+        ENGINE.writeTranscript(messages, transcript, OPTIONS);
+
+        TranscriptSearchIndex index = TranscriptSearchIndex.read(transcript);
+
+        assertEquals(5, index.messageCount());
+        assertArrayEquals(ids(0, 1, 2), index.search("refund"));
+        assertArrayEquals(ids(0, 2), index.search("REFUND paypal"));
+        assertArrayEquals(ids(1), index.search("refunded"));
+        assertArrayEquals(ids(3), index.search("grö änd"));
+        assertArrayEquals(ids(4), index.search("𝒜𝒟"));
+        assertArrayEquals(ids(4), index.search("𝒜𝒞"));
+        assertArrayEquals(ids(), index.search("refund missing"));
+        assertArrayEquals(ids(), index.search("  - "));
+    }
+
+    @Test
+    void decodesWhatWasEncoded() throws IOException {
+        Path transcript = directory.resolve("transcript.html");
+        ENGINE.writeTranscript(TestMessages.messages(300), transcript, OPTIONS);
+        TranscriptSearchIndex index = TranscriptSearchIndex.read(transcript);
+
+        Path copy = directory.resolve("copy.html");
+        new SearchIndexBuilder(index).write(copy);
+        TranscriptSearchIndex decoded = TranscriptSearchIndex.read(copy);
+
+        assertArrayEquals(Files.readAllBytes(TranscriptSearchIndex.pathOf(transcript)),
+                Files.readAllBytes(TranscriptSearchIndex.pathOf(copy)));
+        assertArrayEquals(index.messageIds(), decoded.messageIds());
+        assertArrayEquals(index.terms(), decoded.terms());
+        assertArrayEquals(index.postings(), decoded.postings());
+        assertEquals(300, decoded.messageCount());
+        assertEquals(75, decoded.search("hello world").length);
+        assertArrayEquals(ids(120), decoded.search("120"));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path transcript = directory.resolve("transcript.html");
+        Files.write(TranscriptSearchIndex.pathOf(transcript), new byte[]{'D', 'H', 'T', 'Y', 1, 0, 0});
+
+        assertThrows(IOException.class, () -> TranscriptSearchIndex.read(transcript));
+    }
+
+    private static long[] ids(int... indexes) {
+        long[] ids = new long[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            ids[i] = TestMessages.id(indexes[i]);
+        }
+        return ids;
+    }
+
+    private static List<Message> withContents(List<Message> messages, String... contents) {
+        List<Message> copies = new ArrayList<>(contents.length);
+        for (int i = 0; i < contents.length; i++) {
+            Message message = messages.get(i);
+            copies.add(TestMessages.stub(Message.class, Map.of("getIdLong", message.getIdLong(),
+                    "getChannel", message.getChannel(), "getAuthor", message.getAuthor(), "getContentDisplay", contents[i])));
+        }
+        return copies;
+    }
+}
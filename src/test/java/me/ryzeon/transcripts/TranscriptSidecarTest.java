@@ -0,0 +1,71 @@
+package me.ryzeon.transcripts;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptSidecarTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsWhatWasWritten() throws IOException {
+        Path transcript = directory.resolve("transcript.html");
+        TranscriptSidecar sidecar = new TranscriptSidecar(TestMessages.id(41), 123_456, 42);
+
+        sidecar.write(transcript);
+
+        assertEquals(directory.resolve("transcript.html.meta"), TranscriptSidecar.pathOf(transcript));
+        assertEquals(sidecar, TranscriptSidecar.read(transcript));
+    }
+
+    @Test
+    void keepsIdsAboveTheSignedRange() throws IOException {
+        Path transcript = directory.resolve("transcript.html");
+        TranscriptSidecar sidecar = new TranscriptSidecar(-1L, Long.MAX_VALUE, 0);
+
+        sidecar.write(transcript);
+
+        assertEquals(sidecar, TranscriptSidecar.read(transcript));
+        assertTrue(Files.readString(TranscriptSidecar.pathOf(transcript)).contains("lastMessageId=18446744073709551615"));
+    }
+
+    @Test
+    void replacesThePreviousSidecar() throws IOException {
+        Path transcript = directory.resolve("transcript.html");
+        new TranscriptSidecar(1, 2, 3).write(transcript);
+        TranscriptSidecar sidecar = new TranscriptSidecar(4, 5, 6);
+
+        sidecar.write(transcript);
+
+        assertEquals(sidecar, TranscriptSidecar.read(transcript));
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void rejectsMalformedSidecars() throws IOException {
+        Path transcript = directory.resolve("transcript.html");
+        Path path = TranscriptSidecar.pathOf(transcript);
+
+        Files.writeString(path, "lastMessageId=1\nchatlogEnd=2\n");
+        assertThrows(IOException.class, () -> TranscriptSidecar.read(transcript));
+        Files.writeString(path, "lastMessageId=1\nchatlogEnd=two\nmessageCount=3\n");
+        assertThrows(IOException.class, () -> TranscriptSidecar.read(transcript));
+        Files.writeString(path, "");
+        assertThrows(IOException.class, () -> TranscriptSidecar.read(transcript));
+    }
+
+    @Test
+    void failsWithoutASidecar() {
+        assertThrows(NoSuchFileException.class, () -> TranscriptSidecar.read(directory.resolve("missing.html")));
+    }
+}
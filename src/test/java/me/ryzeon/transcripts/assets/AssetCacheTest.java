@@ -0,0 +1,119 @@
+package me.ryzeon.transcripts.assets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssetCacheTest {
+
+    private static final long MAX_BYTES = 1 << 20;
+
+    @TempDir
+    Path directory;
+
+    private AssetServer server;
+    private final HttpAssetFetcher fetcher = new HttpAssetFetcher();
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new AssetServer();
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void storesEqualContentsOnce() throws IOException {
+        AssetCache cache = new AssetCache(directory, MAX_BYTES);
+        byte[] png = bytes(500, 7);
+        String first = server.serve("/a/avatar.png", png, "image/png");
+        String second = server.serve("/b/avatar.png", png, "image/png");
+
+        Asset asset = cache.get(first, MAX_BYTES, fetcher);
+        cache.get(second, MAX_BYTES, fetcher);
+        Asset cached = cache.get(first, MAX_BYTES, fetcher);
+
+        assertArrayEquals(png, cached.data());
+        assertEquals("image/png", cached.contentType());
+        assertEquals(asset.hash(), cached.hash());
+        assertEquals(1, server.requests("/a/avatar.png"));
+        assertEquals(1, server.requests("/b/avatar.png"));
+        assertEquals(1, count(directory.resolve("blobs")));
+        assertEquals(2, count(directory.resolve("urls")));
+        assertEquals(500, cache.size());
+        assertEquals(500, new AssetCache(directory, MAX_BYTES).size());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedContents() throws IOException {
+        AssetCache cache = new AssetCache(directory, 250);
+        String a = server.serve("/a.bin", bytes(100, 1), null);
+        String b = server.serve("/b.bin", bytes(100, 2), null);
+        String c = server.serve("/c.bin", bytes(100, 3), null);
+
+        Asset assetA = cache.get(a, MAX_BYTES, fetcher);
+        Asset assetB = cache.get(b, MAX_BYTES, fetcher);
+        Instant now = Instant.now();
+        touch(assetA, now.minus(Duration.ofHours(3)));
+        touch(assetB, now.minus(Duration.ofHours(2)));
+        // a cache hit makes a the most recently used content
+        cache.get(a, MAX_BYTES, fetcher);
+        cache.get(c, MAX_BYTES, fetcher);
+
+        assertEquals(200, cache.size());
+        assertTrue(Files.exists(blob(assetA)));
+        assertFalse(Files.exists(blob(assetB)));
+        cache.get(a, MAX_BYTES, fetcher);
+        cache.get(b, MAX_BYTES, fetcher);
+        assertEquals(1, server.requests("/a.bin"));
+        assertEquals(2, server.requests("/b.bin"));
+        assertEquals(1, server.requests("/c.bin"));
+    }
+
+    @Test
+    void doesNotStoreFailedFetches() throws IOException {
+        AssetCache cache = new AssetCache(directory, MAX_BYTES);
+        String missing = server.url("/missing.png");
+
+        assertThrows(IOException.class, () -> cache.get(missing, MAX_BYTES, fetcher));
+        assertThrows(IOException.class, () -> cache.get(missing, MAX_BYTES, fetcher));
+
+        assertEquals(2, server.requests("/missing.png"));
+        assertEquals(0, count(directory.resolve("blobs")));
+        assertEquals(0, cache.size());
+    }
+
+    private void touch(Asset asset, Instant time) throws IOException {
+        Files.setLastModifiedTime(blob(asset), FileTime.from(time));
+    }
+
+    private Path blob(Asset asset) {
+        return directory.resolve("blobs").resolve(asset.hash());
+    }
+
+    private static long count(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static byte[] bytes(int length, int value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+}
@@ -0,0 +1,74 @@
+package me.ryzeon.transcripts.assets;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local http server serving assets from memory, every other path answers 404
+ */
+public final class AssetServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final Map<String, Asset> assets = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+    public AssetServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requests.computeIfAbsent(path, ignored -> new AtomicInteger()).incrementAndGet();
+            Asset asset = assets.get(path);
+            if (asset == null) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            if (asset.contentType() != null) {
+                exchange.getResponseHeaders().set("Content-Type", asset.contentType());
+            }
+            exchange.sendResponseHeaders(200, asset.data().length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(asset.data());
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * Serve an asset
+     *
+     * @param path the path of the asset, starting with a slash
+     * @return the url of the asset
+     */
+    public String serve(String path, byte[] data, String contentType) {
+        assets.put(path, new Asset(data, contentType));
+        return url(path);
+    }
+
+    /**
+     * @return the url of a path, served or not
+     */
+    public String url(String path) {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path;
+    }
+
+    /**
+     * @return how often a path was requested
+     */
+    public int requests(String path) {
+        AtomicInteger count = requests.get(path);
+        return count != null ? count.get() : 0;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
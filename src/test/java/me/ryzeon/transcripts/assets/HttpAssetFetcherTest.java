@@ -0,0 +1,52 @@
+package me.ryzeon.transcripts.assets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpAssetFetcherTest {
+
+    private static final long MAX_BYTES = 1 << 20;
+
+    private AssetServer server;
+    private final HttpAssetFetcher fetcher = new HttpAssetFetcher();
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new AssetServer();
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void fetchesOverHttp() throws IOException {
+        byte[] png = bytes(300, 1);
+        Asset asset = fetcher.fetch(server.serve("/avatar.png", png, "image/png"), MAX_BYTES);
+
+        assertArrayEquals(png, asset.data());
+        assertEquals("image/png", asset.contentType());
+    }
+
+    @Test
+    void failsOnErrorsAndOversizedAssets() {
+        String large = server.serve("/large.bin", bytes(2048, 1), null);
+
+        IOException missing = assertThrows(IOException.class, () -> fetcher.fetch(server.url("/missing.png"), MAX_BYTES));
+        assertTrue(missing.getMessage().contains("404"));
+        assertThrows(IOException.class, () -> fetcher.fetch(large, 1024));
+    }
+
+    private static byte[] bytes(int length, int value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+}
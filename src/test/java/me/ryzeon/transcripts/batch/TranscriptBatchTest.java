@@ -0,0 +1,65 @@
+package me.ryzeon.transcripts.batch;
+
+import me.ryzeon.transcripts.TestMessages;
+import me.ryzeon.transcripts.TranscriptEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptBatchTest {
+
+    private static final TranscriptEngine ENGINE = TranscriptEngine.builder().warmUp(false).build();
+
+    @Test
+    void rendersEveryJob() throws Exception {
+        List<TranscriptJob> jobs = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            jobs.add(TranscriptJob.of("job-" + i, TestMessages.messages(20 + i)).withFileName("job-" + i + ".html"));
+        }
+        List<TranscriptResult> results = Collections.synchronizedList(new ArrayList<>());
+
+        try (TranscriptBatch batch = TranscriptBatch.builder().engine(ENGINE).workers(2).concurrency(2).build()) {
+            batch.submit(jobs, results::add).get(30, TimeUnit.SECONDS);
+        }
+
+        assertEquals(6, results.size());
+        for (TranscriptResult result : results) {
+            assertTrue(result.isSuccess(), () -> String.valueOf(result.error()));
+            assertEquals(result.job().name() + ".html", result.fileName());
+            assertEquals(result.job().messages().size(), result.stats().messageCount());
+            assertTrue(result.data().length > 0);
+        }
+    }
+
+    @Test
+    void reportsJobsTheWorkersRejected() throws Exception {
+        ExecutorService workers = Executors.newSingleThreadExecutor();
+        workers.shutdown();
+        List<TranscriptJob> jobs = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            jobs.add(TranscriptJob.of("job-" + i, TestMessages.messages(3)));
+        }
+        List<TranscriptResult> results = Collections.synchronizedList(new ArrayList<>());
+
+        // one slot and a budget of one job, a job leaking either would stall the next one
+        try (TranscriptBatch batch = TranscriptBatch.builder().engine(ENGINE).executor(workers).concurrency(1)
+                .memoryBudget(1).estimatedBytesPerMessage(1).build()) {
+            batch.submit(jobs, results::add).get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(5, results.size());
+        for (TranscriptResult result : results) {
+            assertFalse(result.isSuccess());
+            assertInstanceOf(RejectedExecutionException.class, result.error());
+            assertThrows(IllegalStateException.class, result::toFileUpload);
+        }
+    }
+}
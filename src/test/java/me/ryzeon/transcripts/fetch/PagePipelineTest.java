@@ -0,0 +1,147 @@
+package me.ryzeon.transcripts.fetch;
+
+import net.dv8tion.jda.api.entities.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagePipelineTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void consumesPagesInFetchOrder() throws Exception {
+        StubPaginator paginator = new StubPaginator(20, true);
+        List<Long> consumed = Collections.synchronizedList(new ArrayList<>());
+
+        new PagePipeline(paginator, 3, executor, page -> {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+            page.forEach(message -> consumed.add(message.getIdLong()));
+        }).start().get(10, TimeUnit.SECONDS);
+
+        assertEquals(20 * PAGE_SIZE, consumed.size());
+        for (int i = 0; i < consumed.size(); i++) {
+            assertEquals(i, consumed.get(i));
+        }
+    }
+
+    @Test
+    void fetchesAtMostCapacityPagesAhead() throws Exception {
+        StubPaginator paginator = new StubPaginator(10, false);
+        CountDownLatch consuming = new CountDownLatch(1), release = new CountDownLatch(1);
+
+        CompletableFuture<Void> done = new PagePipeline(paginator, 2, executor, page -> {
+            consuming.countDown();
+            release.await();
+        }).start();
+        assertTrue(consuming.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+
+        // the page being consumed and two waiting ones
+        assertEquals(3, paginator.calls.get());
+        release.countDown();
+        done.get(10, TimeUnit.SECONDS);
+        assertEquals(11, paginator.calls.get());
+    }
+
+    @Test
+    void failsWithTheExceptionOfTheConsumer() {
+        StubPaginator paginator = new StubPaginator(10, false);
+        AtomicInteger consumed = new AtomicInteger();
+        IOException failure = new IOException("consumer failed");
+
+        CompletableFuture<Void> done = new PagePipeline(paginator, 2, executor, page -> {
+            if (consumed.incrementAndGet() == 2) {
+                throw failure;
+            }
+        }).start();
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> done.get(10, TimeUnit.SECONDS));
+        assertSame(failure, thrown.getCause());
+        assertEquals(2, consumed.get());
+    }
+
+    @Test
+    void failsWithTheExceptionOfThePaginator() {
+        IllegalStateException failure = new IllegalStateException("fetch failed");
+        MessagePageSource source = () -> CompletableFuture.failedFuture(failure);
+
+        CompletableFuture<Void> done = new PagePipeline(source, 2, executor, page -> fail("no page was fetched")).start();
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> done.get(10, TimeUnit.SECONDS));
+        assertSame(failure, thrown.getCause());
+    }
+
+    @Test
+    void failsOnceThePageBeingConsumedIsDone() throws Exception {
+        IllegalStateException failure = new IllegalStateException("fetch failed");
+        AtomicInteger calls = new AtomicInteger();
+        MessagePageSource source = () -> calls.getAndIncrement() == 0
+                ? CompletableFuture.completedFuture(List.of(message(0)))
+                : CompletableFuture.failedFuture(failure);
+        CountDownLatch consuming = new CountDownLatch(1), release = new CountDownLatch(1);
+
+        CompletableFuture<Void> done = new PagePipeline(source, 2, executor, page -> {
+            consuming.countDown();
+            release.await();
+        }).start();
+        assertTrue(consuming.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+
+        assertEquals(2, calls.get());
+        assertFalse(done.isDone());
+        release.countDown();
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> done.get(10, TimeUnit.SECONDS));
+        assertSame(failure, thrown.getCause());
+    }
+
+    /**
+     * Pages of {@link #PAGE_SIZE} messages with ascending ids, optionally completed on another thread after a delay
+     */
+    private static final class StubPaginator implements MessagePageSource {
+
+        private final int pages;
+        private final boolean delayed;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private StubPaginator(int pages, boolean delayed) {
+            this.pages = pages;
+            this.delayed = delayed;
+        }
+
+        @Override
+        public CompletableFuture<List<Message>> nextPage() {
+            int page = calls.getAndIncrement();
+            List<Message> messages = new ArrayList<>();
+            for (int i = 0; page < pages && i < PAGE_SIZE; i++) {
+                messages.add(message((long) page * PAGE_SIZE + i));
+            }
+            if (!delayed) {
+                return CompletableFuture.completedFuture(messages);
+            }
+            Executor delay = CompletableFuture.delayedExecutor(ThreadLocalRandom.current().nextInt(3), TimeUnit.MILLISECONDS);
+            return CompletableFuture.supplyAsync(() -> messages, delay);
+        }
+    }
+
+    private static Message message(long id) {
+        return (Message) Proxy.newProxyInstance(PagePipelineTest.class.getClassLoader(), new Class<?>[]{Message.class},
+                (proxy, method, args) -> method.getName().equals("getIdLong") ? id : null);
+    }
+}
@@ -0,0 +1,95 @@
+package me.ryzeon.transcripts.fetch;
+
+import me.ryzeon.transcripts.TestMessages;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.channel.attribute.IThreadContainer;
+import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
+import net.dv8tion.jda.api.requests.restaction.pagination.ThreadChannelPaginationAction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadFetcherTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+    private final List<Message> messages = TestMessages.messages(10);
+    private final AtomicInteger fetching = new AtomicInteger();
+    private final AtomicInteger maxFetching = new AtomicInteger();
+
+    @AfterEach
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void fetchesAtMostTheConcurrencyOfThreadsAtOnce() throws Exception {
+        List<ThreadChannel> threads = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            threads.add(thread(i, messages.subList(0, i)));
+        }
+
+        Map<ThreadChannel, List<Message>> histories = ThreadFetcher.histories(threads, PAGE_SIZE, 3).get(10, TimeUnit.SECONDS);
+
+        assertEquals(3, maxFetching.get());
+        assertEquals(0, fetching.get());
+        assertEquals(threads, List.copyOf(histories.keySet()));
+        for (int i = 0; i < threads.size(); i++) {
+            assertEquals(messages.subList(0, i), histories.get(threads.get(i)));
+        }
+    }
+
+    @Test
+    void fetchesOneThreadAtATimeWithoutConcurrency() throws Exception {
+        List<ThreadChannel> threads = List.of(thread(0, messages), thread(1, messages.subList(0, 4)));
+
+        Map<ThreadChannel, List<Message>> histories = ThreadFetcher.histories(threads, PAGE_SIZE, 0).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, maxFetching.get());
+        assertEquals(messages, histories.get(threads.get(0)));
+        assertEquals(messages.subList(0, 4), histories.get(threads.get(1)));
+        assertTrue(ThreadFetcher.histories(List.of(), PAGE_SIZE, 4).get(10, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test
+    void mergesActiveAndArchivedThreadsById() throws Exception {
+        ThreadChannel first = thread(1, List.of()), second = thread(2, List.of()), third = thread(3, List.of());
+        IThreadContainer channel = TestMessages.stub(IThreadContainer.class, Map.of(
+                "getThreadChannels", List.of(third, first),
+                "retrieveArchivedPublicThreadChannels", TestMessages.stub(ThreadChannelPaginationAction.class,
+                        Map.of("takeRemainingAsync", CompletableFuture.completedFuture(List.of(second, third))))));
+
+        assertEquals(List.of(first, second, third), ThreadFetcher.threads(channel).get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * A thread whose pages complete later on another thread, counting the threads being fetched
+     */
+    private ThreadChannel thread(long id, List<Message> history) {
+        AtomicInteger pages = new AtomicInteger();
+        return TestMessages.stub(ThreadChannel.class, Map.of(
+                "getIdLong", id,
+                "getIterableHistory", TestMessages.history(history, PAGE_SIZE, page -> {
+                    if (pages.getAndIncrement() == 0) {
+                        maxFetching.accumulateAndGet(fetching.incrementAndGet(), Math::max);
+                    }
+                    if (page.isEmpty()) {
+                        fetching.decrementAndGet();
+                    }
+                    CompletableFuture<List<Message>> future = new CompletableFuture<>();
+                    scheduler.schedule(() -> future.complete(page), 20, TimeUnit.MILLISECONDS);
+                    return future;
+                })));
+    }
+}
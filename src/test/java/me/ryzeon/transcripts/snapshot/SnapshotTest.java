@@ -0,0 +1,127 @@
+package me.ryzeon.transcripts.snapshot;
+
+import me.ryzeon.transcripts.TestMessages;
+import me.ryzeon.transcripts.TranscriptEngine;
+import me.ryzeon.transcripts.TranscriptOptions;
+import me.ryzeon.transcripts.author.AuthorProfile;
+import me.ryzeon.transcripts.model.TranscriptAttachment;
+import me.ryzeon.transcripts.model.TranscriptChannel;
+import me.ryzeon.transcripts.model.TranscriptMessage;
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotTest {
+
+    private static final TranscriptChannel CHANNEL = new TranscriptChannel(42, "ticket-1", 7, "Test Guild", null);
+
+    @Test
+    void readsWhatWasWritten() throws IOException {
+        AuthorProfile alice = new AuthorProfile(1, "alice", "Alice", "#ff0000", "https://cdn.test/alice.png", false);
+        AuthorProfile bot = new AuthorProfile(2, "bot", "Bot", null, "https://cdn.test/alice.png", true);
+        MessageEmbed embed = new EmbedBuilder()
+                .setTitle("Title", "https://example.test")
+                .setDescription("description")
+                .setColor(0x5865F2)
+                .setTimestamp(OffsetDateTime.of(2023, 11, 14, 22, 13, 20, 0, ZoneOffset.ofHours(2)))
+                .setThumbnail("https://cdn.test/thumbnail.png")
+                .setAuthor("author", "https://example.test/author", "https://cdn.test/author.png")
+                .setFooter("footer", "https://cdn.test/footer.png")
+                .setImage("https://cdn.test/image.png")
+                .addField("name", "value", true)
+                .addField("other", "value", false)
+                .build();
+        TranscriptAttachment attachment = new TranscriptAttachment(9, "https://cdn.test/file.txt", "file.txt", 1234, "text/plain");
+        TranscriptMessage first = new TranscriptMessage(TestMessages.id(0), alice, "hello **world**", List.of(), List.of(), null);
+        List<TranscriptMessage> messages = List.of(
+                first,
+                new TranscriptMessage(TestMessages.id(1), bot, "", List.of(attachment), List.of(embed), first),
+                // out of order and without an author, ids are stored as signed differences
+                new TranscriptMessage(TestMessages.id(0) - 5, null, "ünïcödé 𝒜", List.of(), List.of(), null),
+                new TranscriptMessage(-1L, alice, "max id", List.of(attachment, attachment), List.of(), null));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SnapshotWriter writer = new SnapshotWriter(out, CHANNEL, messages.size())) {
+            for (TranscriptMessage message : messages) {
+                writer.write(message);
+            }
+        }
+
+        try (SnapshotReader reader = reader(out)) {
+            assertEquals(CHANNEL, reader.channel());
+            assertEquals(messages.size(), reader.messageCount());
+            assertEquals(messages, read(reader));
+            assertFalse(reader.hasNext());
+            assertThrows(NoSuchElementException.class, reader::next);
+        }
+    }
+
+    @Test
+    void writesAnUnknownCountAsMinusOne() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SnapshotWriter(out, CHANNEL, -1).close();
+
+        try (SnapshotReader reader = reader(out)) {
+            assertEquals(-1, reader.messageCount());
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    void rendersLikeTheMessagesItWasTakenOf() throws IOException {
+        List<Message> messages = TestMessages.messages(300);
+        TranscriptEngine engine = TranscriptEngine.builder().warmUp(false).build();
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        SnapshotWriter.write(TestMessages.shuffled(messages, 1), snapshot);
+
+        ByteArrayOutputStream fromMessages = new ByteArrayOutputStream();
+        ByteArrayOutputStream fromSnapshot = new ByteArrayOutputStream();
+        engine.writeTranscript(messages, fromMessages);
+        try (SnapshotReader reader = reader(snapshot)) {
+            assertEquals(300, reader.messageCount());
+            engine.writeTranscript(reader, fromSnapshot, TranscriptOptions.builder().build());
+        }
+
+        assertEquals(fromMessages.toString(StandardCharsets.UTF_8), fromSnapshot.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void rejectsOtherStreams() throws IOException {
+        assertThrows(IOException.class, () -> new SnapshotReader(new ByteArrayInputStream("DHTX".getBytes(StandardCharsets.UTF_8))));
+        assertThrows(IOException.class, () -> new SnapshotReader(new ByteArrayInputStream(new byte[]{'D', 'H', 'T', 'S', 2})));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SnapshotWriter writer = new SnapshotWriter(out, CHANNEL, 1);
+        writer.write(new TranscriptMessage(1, null, "cut off", List.of(), List.of(), null));
+        writer.close();
+        assertThrows(IllegalStateException.class, () -> writer.write(new TranscriptMessage(2, null, "", List.of(), List.of(), null)));
+        byte[] truncated = out.toByteArray();
+        try (SnapshotReader reader = new SnapshotReader(new ByteArrayInputStream(truncated, 0, truncated.length - 4))) {
+            assertThrows(UncheckedIOException.class, reader::hasNext);
+        }
+    }
+
+    private static SnapshotReader reader(ByteArrayOutputStream out) throws IOException {
+        return new SnapshotReader(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static List<TranscriptMessage> read(SnapshotReader reader) {
+        List<TranscriptMessage> messages = new ArrayList<>();
+        reader.forEachRemaining(messages::add);
+        return messages;
+    }
+}
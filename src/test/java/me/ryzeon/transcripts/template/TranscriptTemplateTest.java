@@ -0,0 +1,90 @@
+package me.ryzeon.transcripts.template;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptTemplateTest {
+
+    private static final String HTML = """
+            <html><head><title id="transcriptTitle">title</title></head><body>
+            <img class="preamble__guild-icon" src="icon.png">
+            <div id="guildname">guild</div><div id="ticketname">channel</div>
+            <div id="chatlog"></div><p>{{transcript:guild-name}}</p>
+            </body></html>""";
+
+    @Test
+    void fillsSlotsAroundTheChatlog() throws IOException {
+        TranscriptTemplate template = TranscriptTemplate.compile(new ByteArrayInputStream(HTML.getBytes(StandardCharsets.UTF_8)));
+        Map<TranscriptTemplate.Slot, String> values = Map.of(
+                TranscriptTemplate.Slot.GUILD_ICON, "https://cdn.test/icon.png?size=64&format=png",
+                TranscriptTemplate.Slot.TITLE, "#ticket-1",
+                TranscriptTemplate.Slot.GUILD_NAME, "Test Guild",
+                TranscriptTemplate.Slot.CHANNEL_NAME, "ticket-1");
+
+        Document document = Jsoup.parse(render(template, values, "<div class=\"message\">hello</div>"));
+
+        assertEquals("https://cdn.test/icon.png?size=64&format=png", document.selectFirst(".preamble__guild-icon").attr("src"));
+        assertEquals("#ticket-1", document.getElementById("transcriptTitle").text());
+        assertEquals("Test Guild", document.getElementById("guildname").text());
+        assertEquals("ticket-1", document.getElementById("ticketname").text());
+        assertEquals("hello", document.getElementById("chatlog").selectFirst(".message").text());
+        assertEquals("Test Guild", document.selectFirst("p").text());
+    }
+
+    @Test
+    void escapesQuotesInAttributeSlots() throws IOException {
+        TranscriptTemplate template = TranscriptTemplate.compile(new ByteArrayInputStream(HTML.getBytes(StandardCharsets.UTF_8)));
+        String icon = "x\" onerror=\"alert(1)";
+        String name = "<b>\"Guild\" & co</b>";
+        Map<TranscriptTemplate.Slot, String> values = Map.of(
+                TranscriptTemplate.Slot.GUILD_ICON, icon,
+                TranscriptTemplate.Slot.GUILD_NAME, name);
+
+        String html = render(template, values, "");
+        Document document = Jsoup.parse(html);
+
+        assertFalse(html.contains("onerror=\""));
+        assertEquals(icon, document.selectFirst(".preamble__guild-icon").attr("src"));
+        assertFalse(document.selectFirst(".preamble__guild-icon").hasAttr("onerror"));
+        assertEquals(name, document.getElementById("guildname").text());
+        assertTrue(document.getElementById("guildname").children().isEmpty());
+    }
+
+    @Test
+    void escapesAmpersandsLessThanGreaterThanAndQuotes() {
+        assertEquals("plain", TranscriptTemplate.escape("plain"));
+        assertEquals("a &amp; b &lt;c&gt; &quot;d&quot; 'e'", TranscriptTemplate.escape("a & b <c> \"d\" 'e'"));
+    }
+
+    @Test
+    void compilesTheBundledTemplate() throws IOException {
+        String html = render(TranscriptTemplate.defaultTemplate(), TranscriptTemplate.Slot::name, "<div id=\"marker\"></div>");
+
+        Document document = Jsoup.parse(html);
+        assertNotNull(document.getElementById("chatlog").getElementById("marker"));
+        assertEquals("GUILD_NAME", document.getElementById("guildname").text());
+    }
+
+    private static String render(TranscriptTemplate template, Map<TranscriptTemplate.Slot, String> values, String chatlog) throws IOException {
+        return render(template, values::get, chatlog);
+    }
+
+    private static String render(TranscriptTemplate template, Function<TranscriptTemplate.Slot, String> values,
+                                 String chatlog) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        template.writeHead(out, values);
+        out.write(chatlog.getBytes(StandardCharsets.UTF_8));
+        template.writeTail(out, values);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,67 @@
+package me.ryzeon.transcripts.utils.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VarintsTest {
+
+    private static final long[] VALUES = {0, 1, 127, 128, 255, 300, 16_383, 16_384, Integer.MAX_VALUE,
+            0xFFFF_FFFFL, 1L << 56, Long.MAX_VALUE, Long.MIN_VALUE, -1};
+
+    @Test
+    void readsWhatWasWritten() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (long value : VALUES) {
+            Varints.write(out, value);
+            Varints.writeSigned(out, value);
+            Varints.writeSigned(out, -value);
+        }
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        for (long value : VALUES) {
+            assertEquals(value, Varints.read(in));
+            assertEquals(value, Varints.readSigned(in));
+            assertEquals(-value, Varints.readSigned(in));
+        }
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void writesSmallNumbersInFewBytes() throws IOException {
+        assertArrayEquals(new byte[]{0}, write(0));
+        assertArrayEquals(new byte[]{127}, write(127));
+        assertArrayEquals(new byte[]{(byte) 0x80, 1}, write(128));
+        assertArrayEquals(new byte[]{(byte) 0xAC, 2}, write(300));
+        assertEquals(10, write(-1).length);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Varints.writeSigned(out, -1);
+        Varints.writeSigned(out, 1);
+        Varints.writeSigned(out, -64);
+        assertArrayEquals(new byte[]{1, 2, 127}, out.toByteArray());
+    }
+
+    @Test
+    void rejectsTruncatedAndOverlongNumbers() {
+        assertThrows(EOFException.class, () -> Varints.read(new ByteArrayInputStream(new byte[0])));
+        assertThrows(EOFException.class, () -> Varints.read(new ByteArrayInputStream(new byte[]{(byte) 0x80, (byte) 0x80})));
+
+        byte[] overlong = new byte[11];
+        Arrays.fill(overlong, (byte) 0x80);
+        IOException e = assertThrows(IOException.class, () -> Varints.read(new ByteArrayInputStream(overlong)));
+        assertFalse(e instanceof EOFException);
+    }
+
+    private static byte[] write(long value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Varints.write(out, value);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,98 @@
+package me.ryzeon.transcripts.utils.markdown;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarkdownRendererTest {
+
+    private final MarkdownRenderer renderer = new MarkdownRenderer();
+
+    private String render(String text) {
+        StringBuilder out = new StringBuilder();
+        renderer.render(text, out);
+        return out.toString();
+    }
+
+    /**
+     * Markdown the regex chain rendered the way discord does, the parser must render it the same
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "", "plain text", "\n", "a\n\nb", "line1\nline2",
+            "**bold**", "*it*", "~~s~~", "__u__", "`code`",
+            "a **b** c *d* e", "**a** and **b**", "x ~~y~~ __z__ `w`", "**a**\n*b*", "emoji 😎 **bold**",
+            // nested
+            "**bold *it* bold**", "*a **b** c*", "__a *b* c__", "__**a**__", "~~**a**~~", "**~~a~~**",
+            "[**bold link**](https://x.y/z)",
+            // unterminated
+            "**unclosed", "*unclosed", "~~unclosed", "__unclosed", "`unclosed", "**", "[link](https://example.com/x",
+            // links
+            "[link](https://example.com/x)", "[link](http://example.com/x)", "[link](www.example.com)",
+            "[link](ftp://x.y/z)", "[x](https://x.y/z/)", "[a](https://x.y/z) and [b](https://x.y/w)",
+            "[a](https://x.y/z) `c`",
+            // edge cases
+            "~a~", "a_b_c", "snake_case_name", "`a` `b`", "`a` and **b**"
+    })
+    void rendersLikeTheRegexChain(String markdown) {
+        assertEquals(LegacyFormatter.format(markdown), render(markdown));
+    }
+
+    static Stream<Arguments> intendedDifferences() {
+        return Stream.of(
+                // user text is escaped, the regex chain passed html through
+                Arguments.of("<script>alert(1)</script>", "&lt;script&gt;alert(1)&lt;/script&gt;"),
+                Arguments.of("a & b < c", "a &amp; b &lt; c"),
+                // the regex chain closed the tags crosswise
+                Arguments.of("***both***", "<strong><em>both</em></strong>"),
+                // code is not formatted
+                Arguments.of("`**not bold**`", "<span class=\"pre pre--inline\">**not bold**</span>"),
+                // emphasis needs text right inside its delimiters, and may span lines
+                Arguments.of("* a *", "* a *"),
+                Arguments.of("****", "****"),
+                Arguments.of("multi **line\nbold**", "multi <strong>line<br />bold</strong>"),
+                // the nearest opener is closed first
+                Arguments.of("**a *b**", "*<em>a <em>b</em></em>"),
+                Arguments.of("*a **b*", "*a *<em>b</em>"),
+                // markup the regex chain did not know
+                Arguments.of("_it_", "<em>it</em>"),
+                Arguments.of("\\*not\\*", "*not*"),
+                Arguments.of("||spoiler||", "<span class=\"spoiler-text spoiler-text--hidden\" onclick=\"showSpoiler(event, this)\">spoiler</span>"),
+                Arguments.of("> quoted", "<span class=\"quote\">quoted</span>"),
+                Arguments.of("> q1\n> q2\nafter", "<span class=\"quote\">q1<br />q2</span>after"),
+                Arguments.of("```java\nint x = 1;\n```", "<div class=\"pre pre--multiline language-java\">int x = 1;</div>")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("intendedDifferences")
+    void rendersIntendedDifferences(String markdown, String html) {
+        assertNotEquals(html, LegacyFormatter.format(markdown));
+        assertEquals(html, render(markdown));
+    }
+
+    @Test
+    void rendersCodeBlocksTheRegexChainThrewOn() {
+        assertThrows(StringIndexOutOfBoundsException.class, () -> LegacyFormatter.format("```int x = 1;```"));
+        assertEquals("<div class=\"pre pre--multiline nohighlight\">int x = 1;</div>", render("```int x = 1;```"));
+    }
+
+    @Test
+    void parsesUnclosedLinksInLinearTime() {
+        String markdown = "[a](https:".repeat(52_000);
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> assertEquals(markdown, render(markdown)));
+    }
+
+    @Test
+    void parsesUnclosedCodeAndEmphasisInLinearTime() {
+        String markdown = "*a _b ~~c `d ".repeat(50_000);
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> render(markdown));
+    }
+}